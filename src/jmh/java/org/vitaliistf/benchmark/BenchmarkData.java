@@ -0,0 +1,147 @@
+package org.vitaliistf.benchmark;
+
+import org.vitaliistf.model.Customer;
+import org.vitaliistf.model.Rental;
+import org.vitaliistf.model.movie.Movie;
+import org.vitaliistf.model.movie.MovieType;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Generates synthetic, reproducible catalogs and customer bases for benchmarks.
+ */
+public final class BenchmarkData {
+
+    /**
+     * Number of lookup keys prepared per benchmark; a power of two so keys can be picked with a mask.
+     */
+    public static final int KEYS = 1024;
+
+    private static final String[] COUNTRIES = {
+            "USA", "UK", "France", "Germany", "Italy", "Spain", "Japan", "China", "India", "Brazil",
+            "Mexico", "Canada", "Australia", "Sweden", "Norway", "Poland", "Ukraine", "Korea", "Iran", "Egypt"
+    };
+    private static final String[] WORDS = {
+            "love", "war", "heist", "space", "dream", "family", "revenge", "journey", "secret", "city",
+            "night", "river", "king", "ghost", "robot", "summer", "storm", "island", "detective", "song"
+    };
+    private static final int MOVIES_PER_DIRECTOR = 20;
+    private static final int MOVIES_PER_ACTOR = 10;
+    private static final int ACTORS_PER_MOVIE = 3;
+
+    /**
+     * Private constructor to prevent instantiation of the utility class.
+     */
+    private BenchmarkData() {
+    }
+
+    /**
+     * Creates a catalog of movies with realistic repetition of directors, countries and actors.
+     *
+     * @param size The number of movies.
+     * @return List of the movies.
+     */
+    public static List<Movie> movies(int size) {
+        Random random = new Random(size);
+        MovieType[] types = MovieType.values();
+        int directors = Math.max(1, size / MOVIES_PER_DIRECTOR);
+        int actors = Math.max(1, size * ACTORS_PER_MOVIE / MOVIES_PER_ACTOR);
+        List<Movie> movies = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            List<String> cast = new ArrayList<>(ACTORS_PER_MOVIE);
+            for (int a = 0; a < ACTORS_PER_MOVIE; a++) {
+                cast.add(actor(random.nextInt(actors)));
+            }
+            movies.add(new Movie.Builder(title(i), types[i % types.length])
+                    .director(director(random.nextInt(directors)))
+                    .countryOfOrigin(COUNTRIES[random.nextInt(COUNTRIES.length)])
+                    .description(description(random))
+                    .actors(cast)
+                    .build());
+        }
+        return movies;
+    }
+
+    /**
+     * Creates customers renting movies from a catalog.
+     *
+     * @param size               The number of customers.
+     * @param rentalsPerCustomer The number of rentals of each customer.
+     * @param movies             The catalog to rent from.
+     * @return List of the customers.
+     */
+    public static List<Customer> customers(int size, int rentalsPerCustomer, List<Movie> movies) {
+        Random random = new Random(size);
+        List<Customer> customers = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            List<Rental> rentals = new ArrayList<>(rentalsPerCustomer);
+            for (int r = 0; r < rentalsPerCustomer; r++) {
+                rentals.add(new Rental(movies.get(random.nextInt(movies.size())), 1 + random.nextInt(14)));
+            }
+            customers.add(new Customer(customerName(i), rentals));
+        }
+        return customers;
+    }
+
+    /**
+     * Gets the title of the movie with the given number.
+     *
+     * @param i The number of the movie.
+     * @return The title.
+     */
+    public static String title(int i) {
+        return "Movie " + i;
+    }
+
+    /**
+     * Gets the name of the director with the given number.
+     *
+     * @param i The number of the director.
+     * @return The name.
+     */
+    public static String director(int i) {
+        return "Director " + i;
+    }
+
+    /**
+     * Gets the name of the actor with the given number.
+     *
+     * @param i The number of the actor.
+     * @return The name.
+     */
+    public static String actor(int i) {
+        return "Actor " + i;
+    }
+
+    /**
+     * Gets the name of the customer with the given number.
+     *
+     * @param i The number of the customer.
+     * @return The name.
+     */
+    public static String customerName(int i) {
+        return "Customer " + i;
+    }
+
+    /**
+     * Gets the countries used in generated catalogs.
+     *
+     * @return The countries.
+     */
+    public static String[] countries() {
+        return COUNTRIES.clone();
+    }
+
+    /**
+     * Builds a short random description.
+     */
+    private static String description(Random random) {
+        StringBuilder sb = new StringBuilder("A story about");
+        for (int w = 0; w < 8; w++) {
+            sb.append(' ').append(WORDS[random.nextInt(WORDS.length)]);
+        }
+        return sb.append('.').toString();
+    }
+}
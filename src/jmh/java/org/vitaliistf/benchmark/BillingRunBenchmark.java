@@ -0,0 +1,50 @@
+package org.vitaliistf.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import org.vitaliistf.billing.BillingListener;
+import org.vitaliistf.billing.BillingReport;
+import org.vitaliistf.billing.BillingRun;
+import org.vitaliistf.model.Customer;
+
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks the parallel billing run with one worker and with all cores, to show how it scales.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class BillingRunBenchmark {
+
+    @Param({"10000", "1000000"})
+    private int customers;
+
+    @Param({"1", "0"})
+    private int threads;
+
+    private List<Customer> snapshot;
+    private ForkJoinPool pool;
+    private BillingRun billingRun;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        snapshot = BenchmarkData.customers(customers, 5, BenchmarkData.movies(1000));
+        pool = new ForkJoinPool(threads > 0 ? threads : Runtime.getRuntime().availableProcessors());
+        billingRun = new BillingRun(pool);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        pool.shutdown();
+    }
+
+    @Benchmark
+    public BillingReport runBilling() {
+        return billingRun.run(snapshot, BillingListener.NONE);
+    }
+}
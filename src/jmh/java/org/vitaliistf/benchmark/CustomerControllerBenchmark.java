@@ -0,0 +1,50 @@
+package org.vitaliistf.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import org.vitaliistf.controller.CustomerController;
+import org.vitaliistf.model.Customer;
+import org.vitaliistf.serialization.DataManager;
+import org.vitaliistf.view.HtmlRentalsView;
+import org.vitaliistf.view.TextRentalsView;
+
+import java.util.ArrayList;
+import java.util.Optional;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks the customer lookup of CustomerController.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class CustomerControllerBenchmark {
+
+    @Param({"1000", "100000", "1000000", "10000000"})
+    private int size;
+
+    private CustomerController controller;
+    private final String[] names = new String[BenchmarkData.KEYS];
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        controller = new CustomerController(TextRentalsView.getInstance(), HtmlRentalsView.getInstance(),
+                DataManager.getInstance());
+        for (int i = 0; i < size; i++) {
+            controller.addCustomer(new Customer(BenchmarkData.customerName(i), new ArrayList<>()));
+        }
+        Random random = new Random(42);
+        for (int i = 0; i < BenchmarkData.KEYS; i++) {
+            names[i] = BenchmarkData.customerName(random.nextInt(size)).toLowerCase();
+        }
+    }
+
+    @Benchmark
+    public Optional<Customer> findCustomerByName() {
+        return controller.findCustomerByName(names[next++ & (BenchmarkData.KEYS - 1)]);
+    }
+}
@@ -0,0 +1,55 @@
+package org.vitaliistf.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import org.vitaliistf.model.Customer;
+import org.vitaliistf.view.HtmlRentalsView;
+import org.vitaliistf.view.TextRentalsView;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks customer totals and the rental statements built from them.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class CustomerTotalsBenchmark {
+
+    @Param({"10", "1000", "100000"})
+    private int rentals;
+
+    private Customer customer;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        customer = BenchmarkData.customers(1, rentals, BenchmarkData.movies(1000)).get(0);
+    }
+
+    @Benchmark
+    public double getTotalAmount() {
+        return customer.getTotalAmount();
+    }
+
+    @Benchmark
+    public long getTotalAmountCents() {
+        return customer.getTotalAmountCents();
+    }
+
+    @Benchmark
+    public int getPoints() {
+        return customer.getPoints();
+    }
+
+    @Benchmark
+    public String textRentalsView() {
+        return TextRentalsView.getInstance().generateRentalsOutput(customer);
+    }
+
+    @Benchmark
+    public String htmlRentalsView() {
+        return HtmlRentalsView.getInstance().generateRentalsOutput(customer);
+    }
+}
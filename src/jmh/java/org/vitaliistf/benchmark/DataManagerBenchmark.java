@@ -0,0 +1,125 @@
+package org.vitaliistf.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import org.vitaliistf.model.Customer;
+import org.vitaliistf.model.movie.Movie;
+import org.vitaliistf.serialization.CatalogStamp;
+import org.vitaliistf.serialization.DataManager;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Benchmarks saving and loading the catalog and the customer list.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class DataManagerBenchmark {
+
+    private static final int RENTALS_PER_CUSTOMER = 5;
+
+    @Param({"1000", "100000", "1000000"})
+    private int size;
+
+    private final DataManager dataManager = DataManager.getInstance();
+    private List<Movie> movies;
+    private List<Customer> customers;
+    private Path directory;
+    private String catalogFile;
+    private String customersFile;
+    private String referencedCustomersFile;
+    private Map<Movie, Long> movieIds;
+    private CatalogStamp catalog;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        movies = BenchmarkData.movies(size);
+        customers = BenchmarkData.customers(size, RENTALS_PER_CUSTOMER, movies);
+        directory = Files.createTempDirectory("benchmark");
+        catalogFile = directory.resolve("catalog.txt").toString();
+        customersFile = directory.resolve("customers.txt").toString();
+        dataManager.saveMovieCatalogToFile(catalogFile, movies);
+        dataManager.saveCustomersToFile(customersFile, customers);
+        referencedCustomersFile = directory.resolve("customers-ids.txt").toString();
+        movieIds = new IdentityHashMap<>();
+        for (int i = 0; i < movies.size(); i++) {
+            movieIds.put(movies.get(i), i + 1L);
+        }
+        catalog = new CatalogStamp(1, movies.size());
+        dataManager.saveCustomersToFile(referencedCustomersFile, customers, movieIds::get, catalog);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(Path.of(catalogFile));
+        Files.deleteIfExists(Path.of(customersFile));
+        Files.deleteIfExists(Path.of(referencedCustomersFile));
+        Files.deleteIfExists(directory);
+    }
+
+    @Benchmark
+    public void saveMovieCatalog() throws IOException {
+        dataManager.saveMovieCatalogToFile(catalogFile, movies);
+    }
+
+    @Benchmark
+    public void saveCustomers() throws IOException {
+        dataManager.saveCustomersToFile(customersFile, customers);
+    }
+
+    @Benchmark
+    public void saveCustomersWithMovieIds() throws IOException {
+        dataManager.saveCustomersToFile(referencedCustomersFile, customers, movieIds::get, catalog);
+    }
+
+    @Benchmark
+    public List<Movie> loadMovieCatalog() throws IOException {
+        List<Movie> loaded = new ArrayList<>();
+        dataManager.loadMovieCatalogFromFile(catalogFile, loaded);
+        return loaded;
+    }
+
+    @Benchmark
+    public int loadMovieCatalogAndReadAllFields() throws IOException {
+        List<Movie> loaded = new ArrayList<>();
+        dataManager.loadMovieCatalogFromFile(catalogFile, loaded);
+        int hash = 0;
+        for (Movie movie : loaded) {
+            hash += movie.hashCode();
+        }
+        return hash;
+    }
+
+    @Benchmark
+    public List<Customer> loadCustomers() throws IOException {
+        List<Customer> loaded = new ArrayList<>();
+        dataManager.loadCustomersFromFile(customersFile, loaded);
+        return loaded;
+    }
+
+    @Benchmark
+    public long streamCustomersWithMovieIds() throws IOException {
+        try (Stream<Customer> stream = dataManager.streamCustomersFromFile(referencedCustomersFile,
+                id -> movies.get((int) id - 1), catalog, damage -> { })) {
+            return stream.mapToLong(customer -> customer.rentals().size()).sum();
+        }
+    }
+
+    @Benchmark
+    public List<Customer> loadCustomersWithMovieIds() throws IOException {
+        List<Customer> loaded = new ArrayList<>();
+        dataManager.loadCustomersFromFile(referencedCustomersFile, loaded, id -> movies.get((int) id - 1), catalog);
+        return loaded;
+    }
+}
@@ -0,0 +1,101 @@
+package org.vitaliistf.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import org.vitaliistf.controller.CustomerController;
+import org.vitaliistf.controller.MovieController;
+import org.vitaliistf.controller.StorageController;
+import org.vitaliistf.model.Customer;
+import org.vitaliistf.model.movie.Movie;
+import org.vitaliistf.serialization.DataManager;
+import org.vitaliistf.view.HtmlRentalsView;
+import org.vitaliistf.view.TextRentalsView;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Benchmarks saving one new rental through the journal against rewriting the data files, as the Save menu does.
+ * The journaled rental returns once it is synced to disk; with more threads, syncs are shared by group commit.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class JournalBenchmark {
+
+    private static final int RENTALS_PER_CUSTOMER = 5;
+
+    @Param({"1000", "100000"})
+    private int size;
+
+    private final DataManager dataManager = DataManager.getInstance();
+    private MovieController movieController;
+    private CustomerController customerController;
+    private StorageController storageController;
+    private Customer[] customers;
+    private Movie[] movies;
+    private Path directory;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        directory = Files.createTempDirectory("benchmark");
+        movieController = new MovieController(dataManager);
+        customerController = new CustomerController(TextRentalsView.getInstance(), HtmlRentalsView.getInstance(),
+                dataManager);
+        List<Movie> catalog = BenchmarkData.movies(size);
+        catalog.forEach(movieController::addMovie);
+        BenchmarkData.customers(size, RENTALS_PER_CUSTOMER, catalog).forEach(customerController::addCustomer);
+        movies = catalog.toArray(new Movie[0]);
+        customers = customerController.getCustomers().toArray(new Customer[0]);
+        storageController = new StorageController(directory.resolve("rentals").toString(),
+                movieController, customerController, dataManager);
+        storageController.open();
+        storageController.compact().join();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        storageController.close();
+        try (Stream<Path> files = Files.walk(directory)) {
+            for (Path file : files.sorted(Comparator.reverseOrder()).toList()) {
+                Files.delete(file);
+            }
+        }
+    }
+
+    @Benchmark
+    public void addRentalJournaled() {
+        addRandomRental();
+    }
+
+    @Benchmark
+    @Threads(8)
+    public void addRentalJournaledConcurrently() {
+        addRandomRental();
+    }
+
+    @Benchmark
+    public void addRentalAndSaveFiles() throws IOException {
+        addRandomRental();
+        customerController.saveDataToFile(directory.resolve("customers.txt").toString(), movieController::getMovieId,
+                movieController.getCatalogStamp());
+        movieController.saveDataToFile(directory.resolve("catalog.txt").toString());
+    }
+
+    /**
+     * Adds a rental of a random movie to a random customer.
+     */
+    private void addRandomRental() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        customerController.addRental(customers[random.nextInt(customers.length)],
+                movies[random.nextInt(movies.length)], 1 + random.nextInt(7));
+    }
+}
@@ -0,0 +1,81 @@
+package org.vitaliistf.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import org.vitaliistf.controller.MovieController;
+import org.vitaliistf.model.movie.Movie;
+import org.vitaliistf.model.movie.MovieType;
+import org.vitaliistf.serialization.DataManager;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks the catalog lookups of MovieController.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class MovieControllerBenchmark {
+
+    @Param({"1000", "100000", "1000000"})
+    private int size;
+
+    private MovieController controller;
+    private final String[] titles = new String[BenchmarkData.KEYS];
+    private final String[] directors = new String[BenchmarkData.KEYS];
+    private final String[] countries = new String[BenchmarkData.KEYS];
+    private final String[] actors = new String[BenchmarkData.KEYS];
+    private final MovieType[] types = new MovieType[BenchmarkData.KEYS];
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        controller = new MovieController(DataManager.getInstance());
+        List<Movie> movies = BenchmarkData.movies(size);
+        movies.forEach(controller::addMovie);
+
+        Random random = new Random(42);
+        for (int i = 0; i < BenchmarkData.KEYS; i++) {
+            Movie movie = movies.get(random.nextInt(size));
+            titles[i] = movie.getTitle().toUpperCase();
+            directors[i] = movie.getDirector();
+            countries[i] = movie.getCountryOfOrigin();
+            actors[i] = movie.getActors().get(0);
+            types[i] = movie.getPriceCode();
+        }
+    }
+
+    private int nextKey() {
+        return next++ & (BenchmarkData.KEYS - 1);
+    }
+
+    @Benchmark
+    public Optional<Movie> findMovieByTitle() {
+        return controller.findMovieByTitle(titles[nextKey()]);
+    }
+
+    @Benchmark
+    public List<Movie> findMovieByDirector() {
+        return controller.findMovieByDirector(directors[nextKey()]);
+    }
+
+    @Benchmark
+    public List<Movie> findMovieByCountry() {
+        return controller.findMovieByCountry(countries[nextKey()]);
+    }
+
+    @Benchmark
+    public List<Movie> findMovieByActor() {
+        return controller.findMovieByActor(actors[nextKey()]);
+    }
+
+    @Benchmark
+    public List<Movie> findMovieByType() {
+        return controller.findMovieByType(types[nextKey()]);
+    }
+}
@@ -0,0 +1,86 @@
+package org.vitaliistf.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import org.vitaliistf.model.Rental;
+import org.vitaliistf.model.movie.Movie;
+import org.vitaliistf.model.movie.MovieType;
+import org.vitaliistf.strategy.*;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks pricing a mix of all movie types at one call site: through the six strategy classes,
+ * through the tabulated strategies of MovieType, and through the ordinal-keyed fast path of MovieType.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class PricingDispatchBenchmark {
+
+    private static final int SIZE = 10_000;
+    private static final MovieType[] TYPES = MovieType.values();
+    private static final PriceStrategy[] STRATEGIES = {
+            new RegularPriceStrategy(),
+            new NewReleasePriceStrategy(),
+            new ChildrensPriceStrategy(),
+            new DramaPriceStrategy(),
+            new ComedyPriceStrategy(),
+            new ThrillerPriceStrategy()
+    };
+
+    private final int[] types = new int[SIZE];
+    private final int[] days = new int[SIZE];
+    private final Rental[] rentals = new Rental[SIZE];
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Random random = new Random(42);
+        List<Movie> movies = BenchmarkData.movies(1000);
+        for (int i = 0; i < SIZE; i++) {
+            rentals[i] = new Rental(movies.get(random.nextInt(movies.size())), 1 + random.nextInt(14));
+            types[i] = rentals[i].movie().getPriceCode().ordinal();
+            days[i] = rentals[i].daysRented();
+        }
+    }
+
+    @Benchmark
+    public long strategyClasses() {
+        long cents = 0;
+        for (int i = 0; i < SIZE; i++) {
+            cents += STRATEGIES[types[i]].calculatePriceCents(days[i]);
+        }
+        return cents;
+    }
+
+    @Benchmark
+    public long movieTypeStrategies() {
+        long cents = 0;
+        for (int i = 0; i < SIZE; i++) {
+            cents += TYPES[types[i]].getPriceStrategy().calculatePriceCents(days[i]);
+        }
+        return cents;
+    }
+
+    @Benchmark
+    public long movieTypeFastPath() {
+        long cents = 0;
+        for (int i = 0; i < SIZE; i++) {
+            cents += TYPES[types[i]].calculatePriceCents(days[i]);
+        }
+        return cents;
+    }
+
+    @Benchmark
+    public long rentals() {
+        long cents = 0;
+        for (Rental rental : rentals) {
+            cents += rental.calculatePriceCents();
+        }
+        return cents;
+    }
+}
@@ -0,0 +1,52 @@
+package org.vitaliistf.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import org.vitaliistf.billing.RepricingReport;
+import org.vitaliistf.billing.RepricingScenario;
+import org.vitaliistf.billing.RepricingSimulator;
+import org.vitaliistf.model.Customer;
+import org.vitaliistf.model.movie.MovieType;
+import org.vitaliistf.strategy.PricingRule;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks replaying all rentals against several repricing scenarios in one pass.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class RepricingSimulatorBenchmark {
+
+    @Param({"100000", "1000000"})
+    private int customers;
+
+    @Param({"1", "8"})
+    private int scenarios;
+
+    private List<Customer> snapshot;
+    private List<RepricingScenario> candidates;
+    private final RepricingSimulator simulator = new RepricingSimulator();
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        snapshot = BenchmarkData.customers(customers, 5, BenchmarkData.movies(1000));
+        candidates = new ArrayList<>();
+        for (int i = 0; i < scenarios; i++) {
+            PricingRule rule = new PricingRule(100 + i * 10L, 1, 150, 1, 1, 2, Integer.MAX_VALUE);
+            candidates.add(new RepricingScenario("scenario " + i, Map.of(MovieType.DRAMA, rule.compile(),
+                    MovieType.COMEDY, rule.compile())));
+        }
+    }
+
+    @Benchmark
+    public RepricingReport replay() {
+        return simulator.run(snapshot, candidates);
+    }
+}
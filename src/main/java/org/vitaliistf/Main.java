@@ -1,19 +1,33 @@
 package org.vitaliistf;
 
+import org.vitaliistf.billing.BillingReport;
+import org.vitaliistf.billing.RepricingReport;
+import org.vitaliistf.billing.RepricingScenario;
+import org.vitaliistf.billing.ScenarioResult;
+import org.vitaliistf.collection.Page;
 import org.vitaliistf.controller.CustomerController;
 import org.vitaliistf.controller.MovieController;
+import org.vitaliistf.controller.StorageController;
 import org.vitaliistf.model.Customer;
 import org.vitaliistf.model.Rental;
 import org.vitaliistf.model.movie.Movie;
 import org.vitaliistf.model.movie.MovieType;
 import org.vitaliistf.serialization.DataManager;
+import org.vitaliistf.strategy.PriceStrategy;
+import org.vitaliistf.strategy.PricingRules;
 import org.vitaliistf.view.HtmlRentalsView;
+import org.vitaliistf.view.MoneyFormat;
 import org.vitaliistf.view.TextRentalsView;
 
+import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.Scanner;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * The main class for the Movie Rental System.
@@ -23,20 +37,29 @@ public class Main {
 
     private static final String CATALOG_FILENAME = "catalog.txt";
     private static final String CUSTOMERS_FILENAME = "customers.txt";
+    private static final String PRICING_FILENAME = "pricing.properties";
+    private static final String STORAGE_NAME = "rentals";
+    private static final int SEARCH_RESULTS_LIMIT = 10;
+    private static final int TITLE_SUGGESTIONS_LIMIT = 5;
+    private static final int PAGE_SIZE = 20;
     private final Scanner scanner;
     private final MovieController movieController;
     private final CustomerController customerController;
+    private final StorageController storageController;
 
     /**
      * Constructs a new instance of the Main class.
      *
      * @param scanner    The Scanner for user input.
      * @param movieController The MovieRentalController for managing movie rentals.
+     * @param storageController The StorageController for keeping data on disk as it changes.
      */
-    public Main(Scanner scanner, MovieController movieController, CustomerController customerController) {
+    public Main(Scanner scanner, MovieController movieController, CustomerController customerController,
+                StorageController storageController) {
         this.scanner = scanner;
         this.customerController = customerController;
         this.movieController = movieController;
+        this.storageController = storageController;
     }
 
     /**
@@ -48,20 +71,26 @@ public class Main {
         TextRentalsView textRentalsView = TextRentalsView.getInstance();
         HtmlRentalsView htmlRentalsView = HtmlRentalsView.getInstance();
         DataManager dataManager = DataManager.getInstance();
+        MovieController movieController = new MovieController(dataManager);
+        CustomerController customerController = new CustomerController(textRentalsView, htmlRentalsView, dataManager);
         Main main = new Main(
                 new Scanner(System.in),
-                new MovieController(dataManager),
-                new CustomerController(textRentalsView, htmlRentalsView, dataManager)
+                movieController,
+                customerController,
+                new StorageController(STORAGE_NAME, movieController, customerController, dataManager)
         );
         main.run();
     }
 
     /**
      * Runs the main loop of the Movie Rental System.
+     * Data is recovered from the journal at start and every change is journaled until exit.
      */
     private void run() {
+        openStorage();
         String choice;
         do {
+            reportCompactionFailure();
             displayMenu();
             System.out.print("Enter your choice: ");
             choice = scanner.next();
@@ -80,10 +109,47 @@ public class Main {
                 case "9" -> generateCustomerRentalsHtml();
                 case "10" -> saveDataToFile();
                 case "11" -> loadDataFromFile();
+                case "12" -> searchMoviesByText();
+                case "13" -> runBilling();
+                case "14" -> reloadPricingRules();
+                case "15" -> simulatePricingRules();
                 case "0" -> System.out.println("Exiting the program. Goodbye!");
                 default -> System.out.println("Invalid choice. Please try again.");
             }
         } while (!choice.equals("0"));
+        closeStorage();
+    }
+
+    /**
+     * Recovers data from the last snapshot and journal and starts journaling changes.
+     * If the data cannot be recovered, the program continues without journaling.
+     */
+    private void openStorage() {
+        try {
+            storageController.open();
+            System.out.println("Data recovered from journal: " + STORAGE_NAME);
+        } catch (IOException | RuntimeException e) {
+            System.out.println("Journal is not available, changes will not be kept: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Writes the remaining journal records to disk and stops journaling.
+     */
+    private void closeStorage() {
+        try {
+            storageController.close();
+        } catch (IOException e) {
+            System.out.println("Journal was not closed: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Warns that the journal is not being compacted while the last background compaction has failed.
+     */
+    private void reportCompactionFailure() {
+        storageController.getCompactionFailure().ifPresent(e ->
+                System.out.println("Journal is not compacted, the snapshot cannot be saved: " + e.getMessage()));
     }
 
     /**
@@ -104,18 +170,26 @@ public class Main {
                 9. Generate Customer Rentals HTML
                 10. Save Data to File
                 11. Load Data from File
+                12. Search Movies by Text
+                13. Run Billing
+                14. Reload Pricing Rules
+                15. Simulate Pricing Rules
                 0. Exit""");
     }
 
     /**
-     * Displays the Movie Catalog.
+     * Displays the Movie Catalog page by page.
      */
     private void displayMovieCatalog() {
-        List<Movie> movieCatalog = movieController.getMovieCatalog();
         System.out.println("Movie Catalog:");
-        for (Movie movie : movieCatalog) {
-            System.out.println(movie + "\n");
-        }
+        String cursor = null;
+        do {
+            Page<Movie> page = movieController.getMovieCatalogPage(cursor, PAGE_SIZE);
+            for (Movie movie : page.items()) {
+                System.out.println(movie + "\n");
+            }
+            cursor = page.nextCursor();
+        } while (cursor != null && askForNextPage());
     }
 
     /**
@@ -187,6 +261,44 @@ public class Main {
         }
     }
 
+    /**
+     * Searches movie titles and descriptions and displays the best matches.
+     */
+    private void searchMoviesByText() {
+        System.out.print("Enter search text: ");
+        String text = scanner.nextLine();
+        List<Movie> movies = movieController.searchMovies(text, SEARCH_RESULTS_LIMIT);
+
+        System.out.println("Movies matching " + text + ":");
+        for (Movie movie : movies) {
+            System.out.println(movie.getTitle());
+        }
+    }
+
+    /**
+     * Bills all customers, reporting progress every ten percent, and displays the totals by movie type.
+     */
+    private void runBilling() {
+        AtomicInteger reportedDecile = new AtomicInteger();
+        BillingReport report = customerController.runBilling((billed, total, elapsed) -> {
+            int decile = billed * 10 / total;
+            int reported = reportedDecile.get();
+            if (decile > reported && reportedDecile.compareAndSet(reported, decile)) {
+                System.out.println("Billed " + billed + " of " + total + " customers in " + elapsed.toMillis() + " ms");
+            }
+        });
+
+        System.out.println("Totals by movie type:");
+        for (MovieType type : MovieType.values()) {
+            System.out.println(type + ": " + MoneyFormat.format(report.amountCentsByType().get(type))
+                    + ", " + report.pointsByType().get(type) + " points");
+        }
+        System.out.println("Total: " + MoneyFormat.format(report.totalAmountCents())
+                + ", " + report.totalPoints() + " points");
+        System.out.printf("Billed %d customers in %d ms (%.0f customers/s)%n",
+                report.bills().size(), report.elapsed().toMillis(), report.customersPerSecond());
+    }
+
     /**
      * Searches and displays movies by a specific director.
      */
@@ -200,18 +312,33 @@ public class Main {
             System.out.println("Movie is deleted successfully.");
         } else {
             System.out.println("Movie not found.");
+            displayTitleSuggestions(title);
         }
     }
 
     /**
-     * Displays the list of customers.
+     * Displays the list of customers page by page.
      */
     private void displayCustomerList() {
-        List<Customer> customers = customerController.getCustomers();
         System.out.println("Customer List:");
-        for (Customer customer : customers) {
-            System.out.println(customer.name());
-        }
+        String cursor = null;
+        do {
+            Page<Customer> page = customerController.getCustomersPage(cursor, PAGE_SIZE);
+            for (Customer customer : page.items()) {
+                System.out.println(customer.name());
+            }
+            cursor = page.nextCursor();
+        } while (cursor != null && askForNextPage());
+    }
+
+    /**
+     * Asks the user whether to display the next page of a listing.
+     *
+     * @return True if the next page should be displayed, false otherwise.
+     */
+    private boolean askForNextPage() {
+        System.out.print("Show next page? (y/n): ");
+        return scanner.nextLine().trim().equalsIgnoreCase("y");
     }
 
     /**
@@ -220,6 +347,10 @@ public class Main {
     private void addCustomer() {
         System.out.print("Enter customer name: ");
         String name = scanner.nextLine();
+        while (customerController.findCustomerByName(name).isPresent()) {
+            System.out.println("This customer already exists. Try another name.");
+            name = scanner.nextLine();
+        }
 
         System.out.print("Enter number of movies rented: ");
         int numMovies = scanner.nextInt();
@@ -237,13 +368,17 @@ public class Main {
                 rentals.add(new Rental(movie.get(), daysRented));
             } else {
                 System.out.println("Movie not found in catalog.");
+                displayTitleSuggestions(movieTitle);
                 i--; // Retry for the same rental
             }
         }
 
         Customer customer = new Customer(name, rentals);
-        customerController.addCustomer(customer);
-        System.out.println("Customer added: " + customer.name());
+        if (customerController.addCustomer(customer)) {
+            System.out.println("Customer added: " + customer.name());
+        } else {
+            System.out.println("Customer already exists: " + customer.name());
+        }
     }
 
     /**
@@ -280,6 +415,9 @@ public class Main {
                 int days = scanner.nextInt();
                 customerController.addRental(customer.get(), movie.get(), days);
                 System.out.println("Rental is added successfully.");
+            } else {
+                System.out.println("Movie not found.");
+                displayTitleSuggestions(title);
             }
         }
     }
@@ -304,18 +442,93 @@ public class Main {
      * Saves data to files.
      */
     private void saveDataToFile() {
-        customerController.saveDataToFile(CUSTOMERS_FILENAME);
-        movieController.saveDataToFile(CATALOG_FILENAME);
-        System.out.println("Data saved to files: " + CATALOG_FILENAME + ", " + CUSTOMERS_FILENAME);
+        try {
+            customerController.saveDataToFile(CUSTOMERS_FILENAME, movieController::getMovieId,
+                    movieController.getCatalogStamp());
+            movieController.saveDataToFile(CATALOG_FILENAME);
+            System.out.println("Data saved to files: " + CATALOG_FILENAME + ", " + CUSTOMERS_FILENAME);
+        } catch (IOException e) {
+            System.out.println("Data was not saved to files: " + e.getMessage());
+        }
     }
 
     /**
      * Loads data from files.
+     * Loaded data replaces the journaled data without going through the journal, so the storage saves it
+     * as a snapshot before any further change.
      */
     private void loadDataFromFile() {
-        customerController.loadDataFromFile(CUSTOMERS_FILENAME);
-        movieController.loadDataFromFile(CATALOG_FILENAME);
-        System.out.println("Data loaded from files: " + CATALOG_FILENAME + ", " + CUSTOMERS_FILENAME);
+        try {
+            int damaged = storageController.loadDataFromFiles(CATALOG_FILENAME, CUSTOMERS_FILENAME);
+            System.out.println("Data loaded from files: " + CATALOG_FILENAME + ", " + CUSTOMERS_FILENAME);
+            if (damaged > 0) {
+                System.out.println("Damaged customer records skipped: " + damaged);
+            }
+        } catch (IOException e) {
+            System.out.println("Loading data from files failed: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Reloads pricing rules from the pricing file, keeping the current pricing if the file is unusable.
+     */
+    private void reloadPricingRules() {
+        try {
+            Set<MovieType> types = movieController.reloadPricingRules(PRICING_FILENAME);
+            System.out.println("Pricing rules reloaded from " + PRICING_FILENAME + " for: " + types);
+        } catch (IOException | IllegalArgumentException e) {
+            System.out.println("Pricing rules were not reloaded: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Replays all rentals against the rules in the pricing file without applying them,
+     * and displays how revenue and points would change compared with current pricing.
+     */
+    private void simulatePricingRules() {
+        Map<MovieType, PriceStrategy> candidate;
+        try {
+            candidate = PricingRules.compile(PricingRules.load(PRICING_FILENAME));
+        } catch (IOException | IllegalArgumentException e) {
+            System.out.println("Pricing rules were not loaded: " + e.getMessage());
+            return;
+        }
+        RepricingReport report = customerController.simulatePricing(List.of(
+                RepricingScenario.current("current"),
+                new RepricingScenario(PRICING_FILENAME, candidate)));
+        ScenarioResult current = report.results().get(0);
+        ScenarioResult change = report.results().get(1).changeFrom(current);
+
+        System.out.println("Revenue by movie type, current and change with " + PRICING_FILENAME + ":");
+        for (MovieType type : MovieType.values()) {
+            System.out.println(type + ": " + MoneyFormat.format(current.amountCentsByType().get(type))
+                    + " (" + MoneyFormat.format(change.amountCentsByType().get(type)) + "), "
+                    + current.pointsByType().get(type) + " points (" + change.pointsByType().get(type) + ")");
+        }
+        System.out.println("Total: " + MoneyFormat.format(current.totalAmountCents())
+                + " (" + MoneyFormat.format(change.totalAmountCents()) + ")");
+        long payMore = Arrays.stream(change.amountCentsByCustomer()).filter(amount -> amount > 0).count();
+        long payLess = Arrays.stream(change.amountCentsByCustomer()).filter(amount -> amount < 0).count();
+        System.out.println("Customers paying more: " + payMore + ", paying less: " + payLess);
+        System.out.printf("Replayed %d rentals in %d ms%n", report.rentals(), report.elapsed().toMillis());
+    }
+
+    /**
+     * Displays catalog titles starting with the entered text, or spelled similarly to it,
+     * to help retry a missed title.
+     *
+     * @param title The title entered by the user.
+     */
+    private void displayTitleSuggestions(String title) {
+        List<String> titles = movieController.suggestTitles(title, TITLE_SUGGESTIONS_LIMIT);
+        if (!titles.isEmpty()) {
+            System.out.println("Titles starting with " + title + ": " + String.join(", ", titles));
+            return;
+        }
+        titles = movieController.suggestSimilarTitles(title, TITLE_SUGGESTIONS_LIMIT);
+        if (!titles.isEmpty()) {
+            System.out.println("Did you mean: " + String.join(", ", titles) + "?");
+        }
     }
 
     /**
@@ -0,0 +1,26 @@
+package org.vitaliistf.billing;
+
+import java.time.Duration;
+
+/**
+ * Receives progress of a billing run.
+ * It is called from the worker threads of the run, so implementations must be thread-safe.
+ */
+@FunctionalInterface
+public interface BillingListener {
+
+    /**
+     * Listener that ignores progress.
+     */
+    BillingListener NONE = (billed, total, elapsed) -> {
+    };
+
+    /**
+     * Called each time a batch of customers has been billed.
+     *
+     * @param billed  The number of customers billed so far.
+     * @param total   The number of customers in the run.
+     * @param elapsed The time since the run started.
+     */
+    void onProgress(int billed, int total, Duration elapsed);
+}
@@ -0,0 +1,35 @@
+package org.vitaliistf.billing;
+
+import org.vitaliistf.model.movie.MovieType;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Represents the result of a billing run across all customers.
+ *
+ * @param bills             The bills of the customers, in the order customers were added.
+ * @param amountCentsByType The amount owed for rentals of each movie type in cents.
+ * @param pointsByType      The frequent renter points earned for rentals of each movie type.
+ * @param totalAmountCents  The amount owed by all customers in cents.
+ * @param totalPoints       The frequent renter points earned by all customers.
+ * @param elapsed           The time the run took.
+ */
+public record BillingReport(List<CustomerBill> bills,
+                            Map<MovieType, Long> amountCentsByType,
+                            Map<MovieType, Long> pointsByType,
+                            long totalAmountCents,
+                            long totalPoints,
+                            Duration elapsed) {
+
+    /**
+     * Gets the throughput of the run.
+     *
+     * @return The number of customers billed per second.
+     */
+    public double customersPerSecond() {
+        long nanos = Math.max(1, elapsed.toNanos());
+        return bills.size() * 1_000_000_000.0 / nanos;
+    }
+}
@@ -0,0 +1,163 @@
+package org.vitaliistf.billing;
+
+import org.vitaliistf.model.Customer;
+import org.vitaliistf.model.RentalTotals;
+import org.vitaliistf.model.movie.MovieType;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Bills all customers in parallel on a fork-join pool.
+ * The customers are split into batches, each batch is billed by one task that keeps its own totals by movie type,
+ * and the totals are merged as the tasks join, so workers share nothing but the progress counter.
+ */
+public class BillingRun {
+
+    private static final MovieType[] TYPES = MovieType.values();
+    private static final int MIN_BATCH_SIZE = 1024;
+    private static final int BATCHES_PER_THREAD = 8;
+
+    private final ForkJoinPool pool;
+
+    /**
+     * Constructs a new instance of the BillingRun using the common fork-join pool.
+     */
+    public BillingRun() {
+        this(ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Constructs a new instance of the BillingRun.
+     *
+     * @param pool The pool to run the billing tasks on.
+     */
+    public BillingRun(ForkJoinPool pool) {
+        this.pool = pool;
+    }
+
+    /**
+     * Bills the customers and totals the bills by movie type.
+     * The bill of each customer is summed from the same per-type amounts that go into the totals, all read
+     * from one snapshot of the customer's totals, so bills and totals agree even if rentals are added during the run.
+     *
+     * @param customers The customers to bill.
+     * @param listener  The listener to report progress to.
+     * @return The report holding the bills and the totals.
+     */
+    public BillingReport run(List<Customer> customers, BillingListener listener) {
+        long start = System.nanoTime();
+        Customer[] snapshot = customers.toArray(new Customer[0]);
+        CustomerBill[] bills = new CustomerBill[snapshot.length];
+        int batchSize = Math.max(MIN_BATCH_SIZE, snapshot.length / (pool.getParallelism() * BATCHES_PER_THREAD) + 1);
+
+        Totals totals = pool.invoke(new BillingTask(snapshot, bills, 0, snapshot.length, batchSize,
+                new AtomicInteger(), listener, start));
+
+        Map<MovieType, Long> amountCentsByType = new EnumMap<>(MovieType.class);
+        Map<MovieType, Long> pointsByType = new EnumMap<>(MovieType.class);
+        long totalAmountCents = 0;
+        long totalPoints = 0;
+        for (MovieType type : TYPES) {
+            amountCentsByType.put(type, totals.cents[type.ordinal()]);
+            pointsByType.put(type, totals.points[type.ordinal()]);
+            totalAmountCents += totals.cents[type.ordinal()];
+            totalPoints += totals.points[type.ordinal()];
+        }
+        return new BillingReport(Collections.unmodifiableList(Arrays.asList(bills)),
+                Collections.unmodifiableMap(amountCentsByType),
+                Collections.unmodifiableMap(pointsByType),
+                totalAmountCents,
+                totalPoints,
+                Duration.ofNanos(System.nanoTime() - start));
+    }
+
+    /**
+     * Running totals of one task, indexed by movie type ordinal.
+     */
+    private static final class Totals {
+        private final long[] cents = new long[TYPES.length];
+        private final long[] points = new long[TYPES.length];
+
+        /**
+         * Adds the totals of another task to these totals.
+         *
+         * @param other The totals to add.
+         * @return These totals.
+         */
+        private Totals merge(Totals other) {
+            for (int type = 0; type < TYPES.length; type++) {
+                cents[type] += other.cents[type];
+                points[type] += other.points[type];
+            }
+            return this;
+        }
+    }
+
+    /**
+     * Task that bills a range of customers, splitting it in halves until it fits in one batch.
+     */
+    private static final class BillingTask extends RecursiveTask<Totals> {
+        private final Customer[] customers;
+        private final CustomerBill[] bills;
+        private final int from;
+        private final int to;
+        private final int batchSize;
+        private final AtomicInteger billed;
+        private final BillingListener listener;
+        private final long start;
+
+        private BillingTask(Customer[] customers, CustomerBill[] bills, int from, int to, int batchSize,
+                            AtomicInteger billed, BillingListener listener, long start) {
+            this.customers = customers;
+            this.bills = bills;
+            this.from = from;
+            this.to = to;
+            this.batchSize = batchSize;
+            this.billed = billed;
+            this.listener = listener;
+            this.start = start;
+        }
+
+        @Override
+        protected Totals compute() {
+            if (to - from > batchSize) {
+                int middle = (from + to) >>> 1;
+                BillingTask left = new BillingTask(customers, bills, from, middle, batchSize, billed, listener, start);
+                BillingTask right = new BillingTask(customers, bills, middle, to, batchSize, billed, listener, start);
+                left.fork();
+                Totals totals = right.compute();
+                return totals.merge(left.join());
+            }
+
+            Totals totals = new Totals();
+            for (int i = from; i < to; i++) {
+                Customer customer = customers[i];
+                RentalTotals customerTotals = customer.getTotals();
+                long amount = 0;
+                int points = 0;
+                for (MovieType type : TYPES) {
+                    long typeAmount = customerTotals.getAmountCents(type);
+                    int typePoints = customerTotals.getPoints(type);
+                    totals.cents[type.ordinal()] += typeAmount;
+                    totals.points[type.ordinal()] += typePoints;
+                    amount += typeAmount;
+                    points += typePoints;
+                }
+                bills[i] = new CustomerBill(customer.name(), amount, points);
+            }
+            if (to > from) {
+                listener.onProgress(billed.addAndGet(to - from), customers.length,
+                        Duration.ofNanos(System.nanoTime() - start));
+            }
+            return totals;
+        }
+    }
+}
@@ -0,0 +1,11 @@
+package org.vitaliistf.billing;
+
+/**
+ * Represents the bill of one customer produced by a billing run.
+ *
+ * @param name        The name of the customer.
+ * @param amountCents The amount owed by the customer in cents.
+ * @param points      The frequent renter points earned by the customer.
+ */
+public record CustomerBill(String name, long amountCents, int points) {
+}
@@ -0,0 +1,58 @@
+package org.vitaliistf.billing;
+
+import org.vitaliistf.model.Customer;
+import org.vitaliistf.model.Rental;
+import org.vitaliistf.model.movie.MovieType;
+
+/**
+ * Columnar copy of the rentals of a range of customers, grouped by movie type.
+ * Each type has a column of rental lengths and a parallel column of owning customers,
+ * so a whole column can be priced by one batch call and the results added back per customer.
+ *
+ * @param days   The rental lengths of each movie type, indexed by ordinal.
+ * @param owners The customer of each rental, relative to the start of the range, indexed by ordinal.
+ * @param size   The number of rentals in all columns.
+ */
+record RentalColumns(int[][] days, int[][] owners, int size) {
+
+    private static final MovieType[] TYPES = MovieType.values();
+
+    /**
+     * Copies the rentals of a range of customers into columns.
+     * Each customer's rentals are read once, so rentals added during the copy are either fully in or out.
+     *
+     * @param customers The customers.
+     * @param from      The first customer of the range, inclusive.
+     * @param to        The last customer of the range, exclusive.
+     * @return The columns.
+     */
+    static RentalColumns of(Customer[] customers, int from, int to) {
+        Rental[][] rentals = new Rental[to - from][];
+        int[] counts = new int[TYPES.length];
+        int size = 0;
+        for (int i = from; i < to; i++) {
+            Rental[] customerRentals = customers[i].rentals().toArray(new Rental[0]);
+            rentals[i - from] = customerRentals;
+            for (Rental rental : customerRentals) {
+                counts[rental.movie().getPriceCode().ordinal()]++;
+            }
+            size += customerRentals.length;
+        }
+
+        int[][] days = new int[TYPES.length][];
+        int[][] owners = new int[TYPES.length][];
+        for (int type = 0; type < TYPES.length; type++) {
+            days[type] = new int[counts[type]];
+            owners[type] = new int[counts[type]];
+            counts[type] = 0;
+        }
+        for (int owner = 0; owner < rentals.length; owner++) {
+            for (Rental rental : rentals[owner]) {
+                int type = rental.movie().getPriceCode().ordinal();
+                days[type][counts[type]] = rental.daysRented();
+                owners[type][counts[type]++] = owner;
+            }
+        }
+        return new RentalColumns(days, owners, size);
+    }
+}
@@ -0,0 +1,25 @@
+package org.vitaliistf.billing;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Represents the result of replaying all rentals against repricing scenarios.
+ *
+ * @param customers The names of the customers, in the order customers were added.
+ * @param results   The result of each scenario, in the order the scenarios were given.
+ * @param rentals   The number of rentals replayed per scenario.
+ * @param elapsed   The time the replay took.
+ */
+public record RepricingReport(List<String> customers, List<ScenarioResult> results, long rentals, Duration elapsed) {
+
+    /**
+     * Gets the throughput of the replay.
+     *
+     * @return The number of rentals priced per second, over all scenarios.
+     */
+    public double rentalsPerSecond() {
+        long nanos = Math.max(1, elapsed.toNanos());
+        return rentals * results.size() * 1_000_000_000.0 / nanos;
+    }
+}
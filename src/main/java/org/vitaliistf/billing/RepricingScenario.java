@@ -0,0 +1,36 @@
+package org.vitaliistf.billing;
+
+import org.vitaliistf.model.movie.MovieType;
+import org.vitaliistf.strategy.PriceStrategy;
+
+import java.util.Map;
+
+/**
+ * Represents a candidate set of price strategies to replay rentals against.
+ * Movie types without a strategy in the scenario are priced by the current strategy of the type.
+ *
+ * @param name       The name of the scenario.
+ * @param strategies The candidate strategies by movie type.
+ */
+public record RepricingScenario(String name, Map<MovieType, PriceStrategy> strategies) {
+
+    /**
+     * Constructs a new instance of the RepricingScenario with its own copy of the strategies.
+     *
+     * @param name       The name of the scenario.
+     * @param strategies The candidate strategies by movie type.
+     */
+    public RepricingScenario {
+        strategies = Map.copyOf(strategies);
+    }
+
+    /**
+     * Creates a scenario that prices every movie type by its current strategy, to use as a baseline.
+     *
+     * @param name The name of the scenario.
+     * @return The scenario.
+     */
+    public static RepricingScenario current(String name) {
+        return new RepricingScenario(name, Map.of());
+    }
+}
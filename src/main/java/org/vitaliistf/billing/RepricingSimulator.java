@@ -0,0 +1,192 @@
+package org.vitaliistf.billing;
+
+import org.vitaliistf.model.Customer;
+import org.vitaliistf.model.movie.MovieType;
+import org.vitaliistf.strategy.PriceStrategy;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Replays the rentals of all customers against candidate price strategies, to compare them before a rate change.
+ * Customers are split into blocks on a fork-join pool. Each block copies its rentals into columns by movie type
+ * once and prices every column for every scenario with one batch call, so adding a scenario costs only the pricing.
+ * Blocks write to disjoint ranges of the per-customer results and keep their own totals, which are merged on join.
+ */
+public class RepricingSimulator {
+
+    private static final MovieType[] TYPES = MovieType.values();
+    private static final int BLOCK_SIZE = 4096;
+
+    private final ForkJoinPool pool;
+
+    /**
+     * Constructs a new instance of the RepricingSimulator using the common fork-join pool.
+     */
+    public RepricingSimulator() {
+        this(ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Constructs a new instance of the RepricingSimulator.
+     *
+     * @param pool The pool to run the replay on.
+     */
+    public RepricingSimulator(ForkJoinPool pool) {
+        this.pool = pool;
+    }
+
+    /**
+     * Replays the rentals of the customers against each scenario.
+     *
+     * @param customers The customers whose rentals are replayed.
+     * @param scenarios The scenarios to replay the rentals against.
+     * @return The report holding the revenue and points of each scenario, by movie type and by customer.
+     */
+    public RepricingReport run(List<Customer> customers, List<RepricingScenario> scenarios) {
+        long start = System.nanoTime();
+        Customer[] snapshot = customers.toArray(new Customer[0]);
+        PriceStrategy[][] strategies = new PriceStrategy[scenarios.size()][TYPES.length];
+        for (int scenario = 0; scenario < strategies.length; scenario++) {
+            Map<MovieType, PriceStrategy> candidates = scenarios.get(scenario).strategies();
+            for (MovieType type : TYPES) {
+                strategies[scenario][type.ordinal()] = candidates.getOrDefault(type, type.getPriceStrategy());
+            }
+        }
+        long[][] amountByCustomer = new long[strategies.length][snapshot.length];
+        long[][] pointsByCustomer = new long[strategies.length][snapshot.length];
+        int blocks = (snapshot.length + BLOCK_SIZE - 1) / BLOCK_SIZE;
+
+        Totals totals = pool.invoke(new ReplayTask(snapshot, strategies, amountByCustomer, pointsByCustomer, 0, blocks));
+
+        List<ScenarioResult> results = new ArrayList<>(strategies.length);
+        for (int scenario = 0; scenario < strategies.length; scenario++) {
+            Map<MovieType, Long> amountByType = new EnumMap<>(MovieType.class);
+            Map<MovieType, Long> pointsByType = new EnumMap<>(MovieType.class);
+            long totalAmount = 0;
+            long totalPoints = 0;
+            for (MovieType type : TYPES) {
+                long amount = totals.cents[scenario][type.ordinal()];
+                long points = totals.points[scenario][type.ordinal()];
+                amountByType.put(type, amount);
+                pointsByType.put(type, points);
+                totalAmount += amount;
+                totalPoints += points;
+            }
+            results.add(new ScenarioResult(scenarios.get(scenario).name(),
+                    Collections.unmodifiableMap(amountByType),
+                    Collections.unmodifiableMap(pointsByType),
+                    totalAmount,
+                    totalPoints,
+                    amountByCustomer[scenario],
+                    pointsByCustomer[scenario]));
+        }
+        List<String> names = Arrays.stream(snapshot).map(Customer::name).toList();
+        return new RepricingReport(names, Collections.unmodifiableList(results), totals.rentals,
+                Duration.ofNanos(System.nanoTime() - start));
+    }
+
+    /**
+     * Running totals of one task, indexed by scenario and movie type ordinal.
+     */
+    private static final class Totals {
+        private final long[][] cents;
+        private final long[][] points;
+        private long rentals;
+
+        private Totals(int scenarios) {
+            this.cents = new long[scenarios][TYPES.length];
+            this.points = new long[scenarios][TYPES.length];
+        }
+
+        /**
+         * Adds the totals of another task to these totals.
+         *
+         * @param other The totals to add.
+         * @return These totals.
+         */
+        private Totals merge(Totals other) {
+            for (int scenario = 0; scenario < cents.length; scenario++) {
+                for (int type = 0; type < TYPES.length; type++) {
+                    cents[scenario][type] += other.cents[scenario][type];
+                    points[scenario][type] += other.points[scenario][type];
+                }
+            }
+            rentals += other.rentals;
+            return this;
+        }
+    }
+
+    /**
+     * Task that replays a range of customer blocks, splitting it in halves down to single blocks.
+     */
+    private static final class ReplayTask extends RecursiveTask<Totals> {
+        private final Customer[] customers;
+        private final PriceStrategy[][] strategies;
+        private final long[][] amountByCustomer;
+        private final long[][] pointsByCustomer;
+        private final int fromBlock;
+        private final int toBlock;
+
+        private ReplayTask(Customer[] customers, PriceStrategy[][] strategies, long[][] amountByCustomer,
+                           long[][] pointsByCustomer, int fromBlock, int toBlock) {
+            this.customers = customers;
+            this.strategies = strategies;
+            this.amountByCustomer = amountByCustomer;
+            this.pointsByCustomer = pointsByCustomer;
+            this.fromBlock = fromBlock;
+            this.toBlock = toBlock;
+        }
+
+        @Override
+        protected Totals compute() {
+            if (toBlock - fromBlock > 1) {
+                int middle = (fromBlock + toBlock) >>> 1;
+                ReplayTask left = new ReplayTask(customers, strategies, amountByCustomer, pointsByCustomer,
+                        fromBlock, middle);
+                ReplayTask right = new ReplayTask(customers, strategies, amountByCustomer, pointsByCustomer,
+                        middle, toBlock);
+                left.fork();
+                Totals totals = right.compute();
+                return totals.merge(left.join());
+            }
+
+            Totals totals = new Totals(strategies.length);
+            if (toBlock == fromBlock) {
+                return totals;
+            }
+            int from = fromBlock * BLOCK_SIZE;
+            RentalColumns columns = RentalColumns.of(customers, from, Math.min(customers.length, from + BLOCK_SIZE));
+            totals.rentals = columns.size();
+            for (int type = 0; type < TYPES.length; type++) {
+                int[] days = columns.days()[type];
+                int[] owners = columns.owners()[type];
+                long[] prices = new long[days.length];
+                int[] points = new int[days.length];
+                for (int scenario = 0; scenario < strategies.length; scenario++) {
+                    strategies[scenario][type].calculateAllCents(days, prices, points);
+                    long[] customerAmounts = amountByCustomer[scenario];
+                    long[] customerPoints = pointsByCustomer[scenario];
+                    long typeAmount = 0;
+                    long typePoints = 0;
+                    for (int i = 0; i < days.length; i++) {
+                        customerAmounts[from + owners[i]] += prices[i];
+                        customerPoints[from + owners[i]] += points[i];
+                        typeAmount += prices[i];
+                        typePoints += points[i];
+                    }
+                    totals.cents[scenario][type] += typeAmount;
+                    totals.points[scenario][type] += typePoints;
+                }
+            }
+            return totals;
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package org.vitaliistf.billing;
+
+import org.vitaliistf.model.movie.MovieType;
+
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Represents the revenue and points of all rentals replayed against one repricing scenario.
+ * Per-customer arrays are indexed like the customers of the report that holds the result.
+ *
+ * @param scenario              The name of the scenario.
+ * @param amountCentsByType     The revenue from rentals of each movie type in cents.
+ * @param pointsByType          The points earned for rentals of each movie type.
+ * @param totalAmountCents      The revenue from all rentals in cents.
+ * @param totalPoints           The points earned for all rentals.
+ * @param amountCentsByCustomer The amount owed by each customer in cents.
+ * @param pointsByCustomer      The points earned by each customer.
+ */
+public record ScenarioResult(String scenario,
+                             Map<MovieType, Long> amountCentsByType,
+                             Map<MovieType, Long> pointsByType,
+                             long totalAmountCents,
+                             long totalPoints,
+                             long[] amountCentsByCustomer,
+                             long[] pointsByCustomer) {
+
+    /**
+     * Compares this result with a baseline replayed over the same customers.
+     *
+     * @param baseline The result to compare with.
+     * @return The result holding the differences from the baseline, named after this scenario.
+     * @throws IllegalArgumentException If the results cover a different number of customers.
+     */
+    public ScenarioResult changeFrom(ScenarioResult baseline) {
+        int customers = amountCentsByCustomer.length;
+        if (baseline.amountCentsByCustomer().length != customers) {
+            throw new IllegalArgumentException("Results cover different customers");
+        }
+        Map<MovieType, Long> amountChange = new EnumMap<>(MovieType.class);
+        Map<MovieType, Long> pointsChange = new EnumMap<>(MovieType.class);
+        for (MovieType type : MovieType.values()) {
+            amountChange.put(type, amountCentsByType.get(type) - baseline.amountCentsByType().get(type));
+            pointsChange.put(type, pointsByType.get(type) - baseline.pointsByType().get(type));
+        }
+        long[] customerAmountChange = new long[customers];
+        long[] customerPointsChange = new long[customers];
+        for (int i = 0; i < customers; i++) {
+            customerAmountChange[i] = amountCentsByCustomer[i] - baseline.amountCentsByCustomer()[i];
+            customerPointsChange[i] = pointsByCustomer[i] - baseline.pointsByCustomer()[i];
+        }
+        return new ScenarioResult(scenario,
+                Collections.unmodifiableMap(amountChange),
+                Collections.unmodifiableMap(pointsChange),
+                totalAmountCents - baseline.totalAmountCents(),
+                totalPoints - baseline.totalPoints(),
+                customerAmountChange,
+                customerPointsChange);
+    }
+}
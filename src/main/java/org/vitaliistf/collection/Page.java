@@ -0,0 +1,22 @@
+package org.vitaliistf.collection;
+
+import java.util.List;
+
+/**
+ * One page of a paginated listing.
+ *
+ * @param items      The items of the page.
+ * @param nextCursor The opaque cursor to pass for the next page, or null if this is the last page.
+ * @param <T>        The type of the items.
+ */
+public record Page<T>(List<T> items, String nextCursor) {
+
+    /**
+     * Checks whether there are more items after this page.
+     *
+     * @return True if there is a next page, false otherwise.
+     */
+    public boolean hasNext() {
+        return nextCursor != null;
+    }
+}
@@ -0,0 +1,390 @@
+package org.vitaliistf.collection;
+
+import java.util.AbstractList;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * Immutable sequence of elements in insertion order, versioned and updated by path copying.
+ * Every element gets a sequence number that never changes, so it can be removed or used as a position later.
+ * Appending or removing an element returns a new version in O(log n) that shares all untouched nodes
+ * with the previous one, so any version can be handed out as a snapshot without copying.
+ *
+ * @param <T> The type of the elements.
+ */
+public final class PersistentSequence<T> extends AbstractList<T> {
+
+    private static final PersistentSequence<?> EMPTY = new PersistentSequence<>(null, 0, 0);
+    private static final int CURSOR_RADIX = Character.MAX_RADIX;
+
+    private final Node<T> root;
+    private final long lastSequence;
+    private final long version;
+
+    /**
+     * Tree node ordered by sequence number and heap-ordered by priority.
+     *
+     * @param sequence The sequence number of the element.
+     * @param value    The element.
+     * @param left     The subtree of earlier elements.
+     * @param right    The subtree of later elements.
+     * @param size     The number of elements in this subtree.
+     */
+    private record Node<T>(long sequence, T value, Node<T> left, Node<T> right, int size) {
+
+        /**
+         * Creates a node with the given children, computing the subtree size.
+         */
+        Node(long sequence, T value, Node<T> left, Node<T> right) {
+            this(sequence, value, left, right, 1 + sizeOf(left) + sizeOf(right));
+        }
+
+        /**
+         * Gets the heap priority of the node, derived from its sequence number.
+         *
+         * @return The priority.
+         */
+        int priority() {
+            return priorityOf(sequence);
+        }
+
+        /**
+         * Copies the node with new children.
+         */
+        Node<T> with(Node<T> left, Node<T> right) {
+            return new Node<>(sequence, value, left, right);
+        }
+    }
+
+    /**
+     * Private constructor to create a version of the sequence.
+     *
+     * @param root         The root of the tree.
+     * @param lastSequence The last sequence number handed out.
+     * @param version      The version number.
+     */
+    private PersistentSequence(Node<T> root, long lastSequence, long version) {
+        this.root = root;
+        this.lastSequence = lastSequence;
+        this.version = version;
+    }
+
+    /**
+     * Gets the empty sequence.
+     *
+     * @param <T> The type of the elements.
+     * @return The empty sequence.
+     */
+    @SuppressWarnings("unchecked")
+    public static <T> PersistentSequence<T> empty() {
+        return (PersistentSequence<T>) EMPTY;
+    }
+
+
+    /**
+     * Gets the version number of this sequence. Every change produces a higher version.
+     *
+     * @return The version number.
+     */
+    public long version() {
+        return version;
+    }
+
+    /**
+     * Gets the sequence number of the most recently appended element.
+     *
+     * @return The last sequence number, or 0 if nothing was appended yet.
+     */
+    public long lastSequence() {
+        return lastSequence;
+    }
+
+    /**
+     * Returns a new version with the element appended at the end.
+     * The element gets the sequence number {@link #lastSequence()} of the returned version.
+     *
+     * @param element The element to be appended.
+     * @return The new version.
+     */
+    public PersistentSequence<T> append(T element) {
+        long sequence = lastSequence + 1;
+        return new PersistentSequence<>(merge(root, new Node<>(sequence, element, null, null)), sequence, version + 1);
+    }
+
+    /**
+     * Returns a new version with the element appended at the end under a given sequence number,
+     * e.g. to restore elements with the numbers they were saved with.
+     *
+     * @param sequence The sequence number of the element, greater than {@link #lastSequence()}.
+     * @param element  The element to be appended.
+     * @return The new version.
+     * @throws IllegalArgumentException If the sequence number is not greater than the last one.
+     */
+    public PersistentSequence<T> append(long sequence, T element) {
+        if (sequence <= lastSequence) {
+            throw new IllegalArgumentException("Sequence " + sequence + " is not after " + lastSequence);
+        }
+        return new PersistentSequence<>(merge(root, new Node<>(sequence, element, null, null)), sequence, version + 1);
+    }
+
+    /**
+     * Returns a new version with the elements appended at the end, in order.
+     *
+     * @param elements The elements to be appended.
+     * @return The new version.
+     */
+    public PersistentSequence<T> appendAll(Iterable<? extends T> elements) {
+        PersistentSequence<T> sequence = this;
+        for (T element : elements) {
+            sequence = sequence.append(element);
+        }
+        return sequence;
+    }
+
+    /**
+     * Returns a new empty version. Sequence numbers keep growing from where this version left off.
+     *
+     * @return The new version.
+     */
+    public PersistentSequence<T> cleared() {
+        return new PersistentSequence<>(null, lastSequence, version + 1);
+    }
+
+    /**
+     * Returns a new empty version whose sequence numbers start from 1 again, e.g. before restoring saved elements.
+     * The version number keeps growing.
+     *
+     * @return The new version.
+     */
+    public PersistentSequence<T> restarted() {
+        return new PersistentSequence<>(null, 0, version + 1);
+    }
+
+    /**
+     * Returns a new version whose next appended element gets a sequence number after the given one,
+     * e.g. so numbers of elements removed before saving are not handed out again after restoring.
+     *
+     * @param sequence The last sequence number handed out, not less than {@link #lastSequence()}.
+     * @return The new version.
+     * @throws IllegalArgumentException If the sequence number is less than the last one.
+     */
+    public PersistentSequence<T> continuedAfter(long sequence) {
+        if (sequence < lastSequence) {
+            throw new IllegalArgumentException("Sequence " + sequence + " is before " + lastSequence);
+        }
+        return new PersistentSequence<>(root, sequence, version + 1);
+    }
+
+    /**
+     * Returns a new version without the element with the given sequence number.
+     *
+     * @param sequence The sequence number of the element.
+     * @return The new version, or this sequence if no element has the sequence number.
+     */
+    public PersistentSequence<T> without(long sequence) {
+        Node<T> updated = remove(root, sequence);
+        return updated == root ? this : new PersistentSequence<>(updated, lastSequence, version + 1);
+    }
+
+    /**
+     * Gets the element with the given sequence number.
+     *
+     * @param sequence The sequence number of the element.
+     * @return The element, or null if no element has the sequence number.
+     */
+    public T find(long sequence) {
+        Node<T> node = root;
+        while (node != null && node.sequence() != sequence) {
+            node = sequence < node.sequence() ? node.left() : node.right();
+        }
+        return node == null ? null : node.value();
+    }
+
+    /**
+     * Iterates over the elements whose sequence numbers are greater than the given one, in order.
+     *
+     * @param sequence The sequence number to start after; 0 starts at the beginning.
+     * @return Iterator over the elements.
+     */
+    public SequenceIterator<T> iteratorAfter(long sequence) {
+        return new SequenceIterator<>(root, sequence);
+    }
+
+    /**
+     * Gets a page of elements in order, starting after a cursor.
+     * Cursors hold sequence numbers, so a cursor from an older version stays valid:
+     * elements removed since then are skipped and elements appended since then are included.
+     * A page costs O(log n + pageSize) regardless of its position.
+     *
+     * @param cursor   The cursor returned with the previous page, or null for the first page.
+     * @param pageSize The maximum number of elements on the page.
+     * @return The page.
+     * @throws IllegalArgumentException If the cursor is malformed or the page size is not positive.
+     */
+    public Page<T> page(String cursor, int pageSize) {
+        if (pageSize <= 0) {
+            throw new IllegalArgumentException("Page size must be positive: " + pageSize);
+        }
+        SequenceIterator<T> iterator = iteratorAfter(decodeCursor(cursor));
+        List<T> items = new ArrayList<>(Math.min(pageSize, size()));
+        while (items.size() < pageSize && iterator.hasNext()) {
+            items.add(iterator.next());
+        }
+        String nextCursor = iterator.hasNext() ? Long.toString(iterator.sequence(), CURSOR_RADIX) : null;
+        return new Page<>(items, nextCursor);
+    }
+
+    @Override
+    public T get(int index) {
+        if (index < 0 || index >= size()) {
+            throw new IndexOutOfBoundsException(index);
+        }
+        Node<T> node = root;
+        while (true) {
+            int leftSize = sizeOf(node.left());
+            if (index < leftSize) {
+                node = node.left();
+            } else if (index == leftSize) {
+                return node.value();
+            } else {
+                index -= leftSize + 1;
+                node = node.right();
+            }
+        }
+    }
+
+    @Override
+    public int size() {
+        return sizeOf(root);
+    }
+
+    @Override
+    public SequenceIterator<T> iterator() {
+        return iteratorAfter(0);
+    }
+
+    /**
+     * In-order iterator that also exposes the sequence number of the last returned element.
+     *
+     * @param <T> The type of the elements.
+     */
+    public static final class SequenceIterator<T> implements Iterator<T> {
+        private final Deque<Node<T>> path;
+        private long sequence;
+
+        /**
+         * Constructs an iterator positioned after the given sequence number.
+         *
+         * @param root     The root of the tree.
+         * @param sequence The sequence number to start after.
+         */
+        private SequenceIterator(Node<T> root, long sequence) {
+            this.path = new ArrayDeque<>();
+            Node<T> node = root;
+            while (node != null) {
+                if (node.sequence() > sequence) {
+                    path.push(node);
+                    node = node.left();
+                } else {
+                    node = node.right();
+                }
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            return !path.isEmpty();
+        }
+
+        @Override
+        public T next() {
+            if (path.isEmpty()) {
+                throw new NoSuchElementException();
+            }
+            Node<T> node = path.pop();
+            for (Node<T> next = node.right(); next != null; next = next.left()) {
+                path.push(next);
+            }
+            sequence = node.sequence();
+            return node.value();
+        }
+
+        /**
+         * Gets the sequence number of the element last returned by {@link #next()}.
+         *
+         * @return The sequence number, or 0 if next was not called yet.
+         */
+        public long sequence() {
+            return sequence;
+        }
+    }
+
+    /**
+     * Decodes a page cursor into the sequence number to continue after.
+     */
+    private static long decodeCursor(String cursor) {
+        if (cursor == null) {
+            return 0;
+        }
+        try {
+            return Long.parseLong(cursor, CURSOR_RADIX);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid page cursor: " + cursor, e);
+        }
+    }
+
+    /**
+     * Joins two trees where every sequence number of the first is lower than those of the second.
+     */
+    private static <T> Node<T> merge(Node<T> left, Node<T> right) {
+        if (left == null) {
+            return right;
+        }
+        if (right == null) {
+            return left;
+        }
+        if (left.priority() >= right.priority()) {
+            return left.with(left.left(), merge(left.right(), right));
+        }
+        return right.with(merge(left, right.left()), right.right());
+    }
+
+    /**
+     * Removes a sequence number from a tree, copying only the path to it.
+     */
+    private static <T> Node<T> remove(Node<T> node, long sequence) {
+        if (node == null) {
+            return null;
+        }
+        if (sequence < node.sequence()) {
+            Node<T> left = remove(node.left(), sequence);
+            return left == node.left() ? node : node.with(left, node.right());
+        }
+        if (sequence > node.sequence()) {
+            Node<T> right = remove(node.right(), sequence);
+            return right == node.right() ? node : node.with(node.left(), right);
+        }
+        return merge(node.left(), node.right());
+    }
+
+    /**
+     * Gets the number of elements in a tree.
+     */
+    private static int sizeOf(Node<?> node) {
+        return node == null ? 0 : node.size();
+    }
+
+    /**
+     * Derives a pseudo-random heap priority from a sequence number, which keeps the tree balanced
+     * on average even though sequence numbers only grow.
+     */
+    private static int priorityOf(long sequence) {
+        long mixed = sequence * 0x9E3779B97F4A7C15L;
+        mixed ^= mixed >>> 32;
+        return (int) mixed;
+    }
+}
@@ -1,64 +1,160 @@
 package org.vitaliistf.controller;
 
+import org.vitaliistf.billing.BillingListener;
+import org.vitaliistf.billing.BillingReport;
+import org.vitaliistf.billing.BillingRun;
+import org.vitaliistf.billing.RepricingReport;
+import org.vitaliistf.billing.RepricingScenario;
+import org.vitaliistf.billing.RepricingSimulator;
+import org.vitaliistf.collection.Page;
+import org.vitaliistf.collection.PersistentSequence;
 import org.vitaliistf.model.Customer;
 import org.vitaliistf.model.movie.Movie;
+import org.vitaliistf.serialization.CatalogMismatchException;
+import org.vitaliistf.serialization.CatalogStamp;
 import org.vitaliistf.serialization.DataManager;
+import org.vitaliistf.serialization.Journal;
 import org.vitaliistf.view.RentalsView;
 
 import java.io.FileNotFoundException;
+import java.io.IOException;
 import java.io.PrintWriter;
+import java.io.UncheckedIOException;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.LongFunction;
+import java.util.function.ToLongFunction;
+import java.util.stream.Stream;
 
 /**
  * Controller class for managing customers in the Movie Rental System.
+ * The controller is safe for concurrent use: changes are serialized by a write lock, while reads never take it.
  */
 public class CustomerController {
 
-    private final List<Customer> customers;
+    private volatile PersistentSequence<Customer> customers;
+    private final Map<String, Customer> nameIndex;
     private final RentalsView textRentalsView;
     private final RentalsView htmlRentalsView;
     private final DataManager dataManager;
+    private final Lock writeLock;
+    private final BillingRun billingRun;
+    private final RepricingSimulator repricingSimulator;
+    private volatile Journal journal;
 
     /**
      * Constructs a new instance of the CustomerController.
      */
     public CustomerController(RentalsView textRentalsView, RentalsView htmlRentalsView, DataManager dataManager) {
-        this.customers = new ArrayList<>();
+        this.customers = PersistentSequence.empty();
+        this.nameIndex = new ConcurrentHashMap<>();
         this.textRentalsView = textRentalsView;
         this.htmlRentalsView = htmlRentalsView;
         this.dataManager = dataManager;
+        this.writeLock = new ReentrantLock();
+        this.billingRun = new BillingRun();
+        this.repricingSimulator = new RepricingSimulator();
     }
 
     /**
-     * Gets a copy of the customer list.
+     * Gets a versioned snapshot of the customer list in O(1).
+     * The snapshot is shared rather than copied and is not affected by later changes to the customer list.
      *
-     * @return The customer list.
+     * @return Unmodifiable customer list.
      */
-    public List<Customer> getCustomers() {
-        return new ArrayList<>(customers);
+    public PersistentSequence<Customer> getCustomers() {
+        return customers;
+    }
+
+    /**
+     * Gets a page of the customer list in the order customers were added.
+     *
+     * @param cursor   The cursor of the previous page, or null for the first page.
+     * @param pageSize The maximum number of customers on the page.
+     * @return The page of customers.
+     * @throws IllegalArgumentException If the cursor is malformed or the page size is not positive.
+     */
+    public Page<Customer> getCustomersPage(String cursor, int pageSize) {
+        return customers.page(cursor, pageSize);
+    }
+
+    /**
+     * Streams the current snapshot of the customer list lazily, without materializing it.
+     *
+     * @return Stream of the customers in the order they were added.
+     */
+    public Stream<Customer> streamCustomers() {
+        return customers.stream();
+    }
+
+    /**
+     * Bills all customers of the current snapshot in parallel.
+     *
+     * @param listener The listener to report progress to.
+     * @return The report holding the bill of each customer and the totals by movie type.
+     */
+    public BillingReport runBilling(BillingListener listener) {
+        return billingRun.run(customers, listener);
+    }
+
+    /**
+     * Replays the rentals of all customers of the current snapshot against candidate price strategies in parallel.
+     * Current pricing is not changed.
+     *
+     * @param scenarios The scenarios to replay the rentals against.
+     * @return The report holding the revenue and points of each scenario, by movie type and by customer.
+     */
+    public RepricingReport simulatePricing(List<RepricingScenario> scenarios) {
+        return repricingSimulator.run(customers, scenarios);
     }
 
     /**
      * Finds a customer by name.
      *
      * @param name The name of the customer to find.
-     * @return The customer object as an Optional if found, or an empty Optional if not found.
+     * @return The customer object as an Optional if found, or an empty Optional if not found or the name is null.
      */
     public Optional<Customer> findCustomerByName(String name) {
-        return customers.stream()
-                .filter(customer -> customer.name().equalsIgnoreCase(name))
-                .findFirst();
+        return name == null ? Optional.empty() : Optional.ofNullable(nameIndex.get(nameKey(name)));
     }
 
     /**
-     * Adds a customer to the system.
+     * Adds a customer to the system. Customer names are unique, ignoring case.
+     * A customer without a name is added but cannot be found by name.
+     * If a journal is attached, the method returns once the change is on disk.
      *
      * @param customer The customer to be added.
+     * @return true if the customer was added, false if a customer with the same name already exists.
+     * @throws UncheckedIOException If the change cannot be written to the journal.
      */
-    public void addCustomer(Customer customer) {
-        customers.add(customer);
+    public boolean addCustomer(Customer customer) {
+        Journal journal;
+        long position = 0;
+        writeLock.lock();
+        try {
+            journal = this.journal;
+            String key = nameKey(customer.name());
+            if (key != null && nameIndex.containsKey(key)) {
+                return false;
+            }
+            if (journal != null) {
+                position = journal.addCustomer(customer);
+            }
+            if (key != null) {
+                nameIndex.put(key, customer);
+            }
+            customers = customers.append(customer);
+        } finally {
+            writeLock.unlock();
+        }
+        sync(journal, position);
+        return true;
     }
 
     /**
@@ -95,28 +191,197 @@ public class CustomerController {
 
     /**
      * Adds a rental to the system.
+     * If a journal is attached, the method returns once the change is on disk.
      *
-     * @param customer The customer to be added.
+     * @param customer The customer renting the movie, as registered in the customer list.
+     * @param movie    The movie to be rented.
+     * @param days     The number of days of the rental.
+     * @throws IllegalArgumentException If the customer is not the one registered under its name.
+     * @throws UncheckedIOException     If the change cannot be written to the journal.
      */
     public void addRental(Customer customer, Movie movie, int days) {
-        customer.rentMovie(movie, days);
+        Journal journal;
+        long position = 0;
+        writeLock.lock();
+        try {
+            if (customer.name() == null || nameIndex.get(nameKey(customer.name())) != customer) {
+                throw new IllegalArgumentException("Customer " + customer.name() + " is not registered");
+            }
+            journal = this.journal;
+            if (journal != null) {
+                position = journal.addRental(customer.name(), customer.rentals().size(), movie, days);
+            }
+            customer.rentMovie(movie, days);
+        } finally {
+            writeLock.unlock();
+        }
+        sync(journal, position);
+    }
+
+    /**
+     * Saves the customer list to a file, storing a full copy of every rented movie.
+     *
+     * @param fileName The name of the file to save the data to.
+     * @throws IOException If the file cannot be written; the previous file is kept.
+     */
+    public void saveDataToFile(String fileName) throws IOException {
+        saveDataToFile(fileName, movie -> 0, CatalogStamp.NONE);
     }
 
     /**
-     * Saves the customer list to a file.
+     * Saves the customer list to a file, storing rented catalog movies by id.
      *
      * @param fileName The name of the file to save the data to.
+     * @param movieIds Gives the catalog id of a movie, or 0 if it is not in the catalog.
+     * @param catalog  The stamp of the catalog the ids belong to.
+     * @throws IOException If the file cannot be written; the previous file is kept.
      */
-    public void saveDataToFile(String fileName) {
-        dataManager.saveCustomersToFile(fileName, customers);
+    public void saveDataToFile(String fileName, ToLongFunction<Movie> movieIds, CatalogStamp catalog)
+            throws IOException {
+        dataManager.saveCustomersToFile(fileName, customers, movieIds, catalog);
     }
 
     /**
-     * Loads the customer list from a file.
+     * Loads the customer list from a file saved without movie ids.
      *
      * @param fileName The name of the file to load the data from.
+     * @return The number of damaged customer records that were skipped.
+     * @throws IOException If the file cannot be read; the current customers are kept.
+     */
+    public int loadDataFromFile(String fileName) throws IOException {
+        return loadDataFromFile(fileName, id -> null, CatalogStamp.NONE);
+    }
+
+    /**
+     * Loads the customer list from a file, resolving rented movies stored by id against the catalog.
+     * A file saved against another catalog, or a later state of it, is not loaded. The loaded customers are not
+     * journaled; while a storage is open, load them with {@link StorageController#loadDataFromFiles}.
+     *
+     * @param fileName The name of the file to load the data from.
+     * @param movies   Gives the catalog movie with an id, or null if there is none.
+     * @param catalog  The stamp of the catalog the movies are resolved against.
+     * @return The number of damaged customer records that were skipped.
+     * @throws CatalogMismatchException If the file was saved against another catalog; the current customers are kept.
+     * @throws IOException              If the file cannot be read; the current customers are kept.
+     */
+    public int loadDataFromFile(String fileName, LongFunction<Movie> movies, CatalogStamp catalog)
+            throws IOException {
+        writeLock.lock();
+        try {
+            List<Customer> loaded = new ArrayList<>(customers);
+            int damaged = dataManager.loadCustomersFromFile(fileName, loaded, movies, catalog);
+            replaceCustomers(loaded);
+            return damaged;
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * Gets the lock that serializes changes to the customer list, so a snapshot can be taken between two changes.
+     *
+     * @return The write lock.
+     */
+    Lock writeLock() {
+        return writeLock;
+    }
+
+    /**
+     * Attaches a journal that records every later change before it is applied.
+     *
+     * @param journal The journal, or null to stop journaling.
+     */
+    void attachJournal(Journal journal) {
+        writeLock.lock();
+        try {
+            this.journal = journal;
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * Replaces the customer list with a restored one.
+     *
+     * @param restored The restored customers.
+     */
+    void restoreCustomers(List<Customer> restored) {
+        writeLock.lock();
+        try {
+            replaceCustomers(restored);
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * Adds a rental replayed from the journal at the position it was added at. The change is not journaled again.
+     * A rental at a position the customer already has, e.g. because the snapshot was written after it was added,
+     * is skipped.
+     *
+     * @param customerName The name of the customer.
+     * @param index        The position of the rental among the rentals of the customer.
+     * @param movie        The rented movie.
+     * @param days         The duration of the rental.
+     * @return true if the rental was added or already present, false if the customer is unknown or misses
+     *         earlier rentals.
+     */
+    boolean restoreRental(String customerName, int index, Movie movie, int days) {
+        writeLock.lock();
+        try {
+            Customer customer = findCustomerByName(customerName).orElse(null);
+            if (customer == null || index > customer.rentals().size()) {
+                return false;
+            }
+            if (index == customer.rentals().size()) {
+                customer.rentMovie(movie, days);
+            }
+            return true;
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * Replaces the customer list and rebuilds the name index. Must be called with the write lock held.
+     *
+     * @param replacement The new customers.
+     */
+    private void replaceCustomers(List<Customer> replacement) {
+        customers = customers.cleared().appendAll(replacement);
+        nameIndex.clear();
+        for (Customer customer : replacement) {
+            if (customer.name() != null) {
+                nameIndex.putIfAbsent(nameKey(customer.name()), customer);
+            }
+        }
+    }
+
+    /**
+     * Waits until a change appended to the journal is on disk.
+     *
+     * @param journal  The journal the change was appended to, or null if none is attached.
+     * @param position The position returned by the journal for the change.
+     * @throws UncheckedIOException If the change cannot be written to the journal.
+     */
+    private static void sync(Journal journal, long position) {
+        if (journal == null) {
+            return;
+        }
+        try {
+            journal.sync(position);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Change was not saved to the journal", e);
+        }
+    }
+
+    /**
+     * Folds a customer name into the key used by the name index, so lookups are case-insensitive.
+     *
+     * @param name The name of the customer.
+     * @return The case-folded name, or null if the name is null.
      */
-    public void loadDataFromFile(String fileName) {
-        dataManager.loadCustomersFromFile(fileName, customers);
+    private static String nameKey(String name) {
+        return name == null ? null : name.toLowerCase(Locale.ROOT);
     }
 }
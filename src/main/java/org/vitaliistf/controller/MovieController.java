@@ -1,57 +1,180 @@
 package org.vitaliistf.controller;
 
+import org.vitaliistf.collection.Page;
+import org.vitaliistf.collection.PersistentSequence;
+import org.vitaliistf.index.FullTextIndex;
+import org.vitaliistf.index.InvertedIndex;
+import org.vitaliistf.index.MovieOrder;
+import org.vitaliistf.index.MovieQuery;
+import org.vitaliistf.index.OrderedIndex;
+import org.vitaliistf.index.PrefixIndex;
+import org.vitaliistf.index.TrigramIndex;
 import org.vitaliistf.model.movie.MovieType;
+import org.vitaliistf.serialization.CatalogFile;
+import org.vitaliistf.serialization.CatalogStamp;
 import org.vitaliistf.serialization.DataManager;
+import org.vitaliistf.serialization.Journal;
+import org.vitaliistf.strategy.PriceStrategy;
+import org.vitaliistf.strategy.PricingRules;
 import org.vitaliistf.model.movie.Movie;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
 
 /**
  * Controller class for managing movies in the Movie Rental System.
+ * The controller is safe for concurrent use: changes are serialized by a write lock, while reads never take it,
+ * except the first query of an index that is built on demand.
+ * <p>
+ * All indexes are keyed by catalog id. Only the title index is kept up to date from the start, since it also
+ * resolves movies to their ids. The other indexes are built from the catalog by the first query that needs them
+ * and kept up to date from then on, so loading a catalog reads no field of its movies but the title.
+ * <p>
+ * The catalog has a random identity, kept when it is saved and loaded, so files referring to its movies by id
+ * are not resolved against another catalog.
  */
 public class MovieController {
 
-    private final List<Movie> movieCatalog;
+    private volatile PersistentSequence<Movie> movieCatalog;
+    private volatile long catalogId;
+    private final InvertedIndex<String, Movie> titleIndex;
+    private final LazyIndex<FieldIndexes> fieldIndexes;
+    private final LazyIndex<TitleSuggestions> titleSuggestions;
+    private final LazyIndex<TextIndex> textIndex;
+    private final Map<MovieOrder, LazyIndex<SortedIndex>> orderedIndexes;
     private final DataManager dataManager;
+    private final Lock writeLock;
+    private volatile Journal journal;
 
     /**
      * Constructs a new instance of the MovieRentalController.
      */
     public MovieController(DataManager dataManager) {
-        this.movieCatalog = new ArrayList<>();
+        this.movieCatalog = PersistentSequence.empty();
+        this.catalogId = newCatalogId();
+        this.titleIndex = new InvertedIndex<>();
+        this.fieldIndexes = new LazyIndex<>(FieldIndexes::new);
+        this.titleSuggestions = new LazyIndex<>(TitleSuggestions::new);
+        this.textIndex = new LazyIndex<>(TextIndex::new);
+        this.orderedIndexes = new EnumMap<>(MovieOrder.class);
+        for (MovieOrder order : MovieOrder.values()) {
+            orderedIndexes.put(order, new LazyIndex<>(() -> new SortedIndex(order)));
+        }
         this.dataManager = dataManager;
+        this.writeLock = new ReentrantLock();
     }
 
     /**
-     * Gets a copy of the movie catalog.
+     * Gets a versioned snapshot of the movie catalog in O(1).
+     * The snapshot is shared rather than copied and is not affected by later changes to the catalog.
      *
-     * @return The movie catalog.
+     * @return Unmodifiable movie catalog.
      */
-    public List<Movie> getMovieCatalog() {
-        return new ArrayList<>(movieCatalog);
+    public PersistentSequence<Movie> getMovieCatalog() {
+        return movieCatalog;
+    }
+
+    /**
+     * Gets a page of the movie catalog in catalog order.
+     *
+     * @param cursor   The cursor of the previous page, or null for the first page.
+     * @param pageSize The maximum number of movies on the page.
+     * @return The page of movies.
+     * @throws IllegalArgumentException If the cursor is malformed or the page size is not positive.
+     */
+    public Page<Movie> getMovieCatalogPage(String cursor, int pageSize) {
+        return movieCatalog.page(cursor, pageSize);
+    }
+
+    /**
+     * Gets a page of the movie catalog sorted by a movie field, ignoring case.
+     * Movies with equal field values keep catalog order.
+     *
+     * @param order    The field to sort by.
+     * @param cursor   The cursor of the previous page, or null for the first page.
+     * @param pageSize The maximum number of movies on the page.
+     * @return The page of movies.
+     * @throws IllegalArgumentException If the cursor is malformed or the page size is not positive.
+     */
+    public Page<Movie> getMovieCatalogPage(MovieOrder order, String cursor, int pageSize) {
+        return orderedIndexes.get(order).get().index.page(cursor, pageSize);
+    }
+
+    /**
+     * Finds movies whose field value falls in a range, ignoring case, sorted by that field.
+     * For example, titles from "m" to "n" are the titles starting with M.
+     *
+     * @param order The field to compare.
+     * @param from  The lowest value, inclusive, or null for no lower bound.
+     * @param to    The highest value, exclusive, or null for no upper bound.
+     * @param limit The maximum number of movies to return.
+     * @return List of the movies in the range, or empty list if none match.
+     */
+    public List<Movie> findMoviesInRange(MovieOrder order, String from, String to, int limit) {
+        return orderedIndexes.get(order).get().index.range(
+                from == null ? null : order.normalize(from),
+                to == null ? null : order.normalize(to),
+                limit);
+    }
+
+    /**
+     * Streams the current snapshot of the movie catalog lazily, without materializing it.
+     *
+     * @return Stream of the movies in catalog order.
+     */
+    public Stream<Movie> streamMovieCatalog() {
+        return movieCatalog.stream();
     }
 
     /**
      * Adds a movie to the movie catalog.
+     * If a journal is attached, the method returns once the change is on disk.
      *
      * @param movie The movie to be added.
+     * @throws UncheckedIOException If the change cannot be written to the journal.
      */
     public void addMovie(Movie movie) {
-        movieCatalog.add(movie);
+        Journal journal;
+        long position = 0;
+        writeLock.lock();
+        try {
+            journal = this.journal;
+            PersistentSequence<Movie> updated = movieCatalog.append(movie);
+            if (journal != null) {
+                position = journal.addMovie(updated.lastSequence(), movie);
+            }
+            movieCatalog = updated;
+            indexMovie(movie, updated.lastSequence());
+        } finally {
+            writeLock.unlock();
+        }
+        sync(journal, position);
     }
 
     /**
-     * Finds a movie in the movie catalog by its title.
+     * Finds a movie in the movie catalog by its title, ignoring case, with one hash lookup.
+     * The lookup is not allocation-free: a title with upper-case letters is folded into a lower-case copy,
+     * and the result is wrapped in an Optional.
      *
      * @param title The title of the movie to find.
      * @return Optional containing the movie, or empty if not found.
      */
     public Optional<Movie> findMovieByTitle(String title) {
-        return movieCatalog.stream()
-                .filter(movie -> title.equalsIgnoreCase(movie.getTitle()))
-                .findFirst();
+        return Optional.ofNullable(titleIndex.first(caseFold(title)));
     }
 
     /**
@@ -61,9 +184,7 @@ public class MovieController {
      * @return List of movies directed by the specified director.
      */
     public List<Movie> findMovieByDirector(String director) {
-        return movieCatalog.stream()
-                .filter(movie -> movie.getDirector().equals(director))
-                .toList();
+        return fieldIndexes.get().director.get(director);
     }
 
     /**
@@ -73,10 +194,7 @@ public class MovieController {
      * @return List of the movies, or empty list if not found.
      */
     public List<Movie> findMovieByType(MovieType movieType) {
-        return movieCatalog.stream()
-                .filter(movie -> movie.getPriceCode().equals(movieType))
-                .toList();
-
+        return fieldIndexes.get().type.get(movieType);
     }
 
     /**
@@ -86,9 +204,7 @@ public class MovieController {
      * @return List of the movies, or empty list if not found.
      */
     public List<Movie> findMovieByCountry(String country) {
-        return movieCatalog.stream()
-                .filter(movie -> movie.getCountryOfOrigin().equalsIgnoreCase(country))
-                .toList();
+        return fieldIndexes.get().country.get(caseFold(country));
     }
 
     /**
@@ -98,36 +214,621 @@ public class MovieController {
      * @return List of the movies, or empty list if not found.
      */
     public List<Movie> findMovieByActor(String actor) {
-        return movieCatalog.stream()
-                .filter(movie -> movie.getActors().contains(actor))
-                .toList();
+        return fieldIndexes.get().actor.get(actor);
+    }
+
+    /**
+     * Finds movies in the movie catalog matching all criteria of a query.
+     * The search starts from the smallest posting list among the criteria that are set and checks
+     * the remaining criteria on each candidate, so its cost follows the most selective criterion.
+     *
+     * @param query The query with the criteria to match.
+     * @return Lazy stream of the matching movies in catalog order.
+     */
+    public Stream<Movie> findMovies(MovieQuery query) {
+        return selectCandidates(query).stream().filter(query);
+    }
+
+    /**
+     * Suggests titles of movies in the catalog that start with the given text, ignoring case.
+     *
+     * @param prefix The beginning of the title.
+     * @param limit  The maximum number of titles to return.
+     * @return List of the titles in alphabetical order, or empty list if none match.
+     */
+    public List<String> suggestTitles(String prefix, int limit) {
+        return titleSuggestions.get().prefixes.startingWith(caseFold(prefix), limit);
+    }
+
+    /**
+     * Suggests titles of movies in the catalog that are spelled similarly to the given text, ignoring case.
+     * The allowed number of typos grows with the length of the text, up to three.
+     *
+     * @param title The misspelled title.
+     * @param limit The maximum number of titles to return.
+     * @return List of the titles, closest spelling first, or empty list if none are close enough.
+     */
+    public List<String> suggestSimilarTitles(String title, int limit) {
+        String titleKey = caseFold(title);
+        int maxDistance = Math.min(3, Math.max(1, titleKey.length() / 4));
+        return titleSuggestions.get().trigrams.search(titleKey, maxDistance, limit);
+    }
+
+    /**
+     * Searches the titles and descriptions of the movies in the catalog.
+     *
+     * @param text  The free-text query.
+     * @param limit The maximum number of movies to return.
+     * @return List of the best matching movies, most relevant first, or empty list if nothing matches.
+     */
+    public List<Movie> searchMovies(String text, int limit) {
+        return textIndex.get().index.search(text, limit);
     }
 
     /**
      * Removes movie from the catalog.
+     * If a journal is attached, the method returns once the change is on disk.
+     * The removal is visible before it is journaled, so a rental journaled concurrently either precedes
+     * the removal in the journal or no longer finds the movie's id and stores the movie in full.
      *
      * @param movie The movie.
      * @return true if movie was deleted, false otherwise.
+     * @throws UncheckedIOException If the change cannot be written to the journal.
      */
     public boolean deleteMovie(Movie movie) {
-        return movieCatalog.remove(movie);
+        Journal journal;
+        long position = 0;
+        writeLock.lock();
+        try {
+            journal = this.journal;
+            long sequence = getMovieId(movie);
+            if (sequence == 0) {
+                return false;
+            }
+            PersistentSequence<Movie> previous = movieCatalog;
+            movieCatalog = previous.without(sequence);
+            unindexMovie(movie, sequence);
+            if (journal != null) {
+                try {
+                    position = journal.deleteMovie(sequence);
+                } catch (RuntimeException e) {
+                    movieCatalog = previous;
+                    rebuildIndexes();
+                    throw e;
+                }
+            }
+        } finally {
+            writeLock.unlock();
+        }
+        sync(journal, position);
+        return true;
     }
 
     /**
      * Saves the movie catalog to a file.
      *
      * @param fileName The name of the file to save the data to.
+     * @throws IOException If the file cannot be written; the previous file is kept.
      */
-    public void saveDataToFile(String fileName) {
-        dataManager.saveMovieCatalogToFile(fileName, movieCatalog);
+    public void saveDataToFile(String fileName) throws IOException {
+        dataManager.saveMovieCatalogToFile(fileName, movieCatalog, catalogId);
     }
 
     /**
-     * Loads the movie catalog from a file.
+     * Loads the movie catalog from a file, taking over the identity it was saved under.
+     * A catalog saved without an identity gets a new one. The loaded catalog is not journaled;
+     * while a storage is open, load it with {@link StorageController#loadDataFromFiles}.
      *
      * @param fileName The name of the file to load the data from.
+     * @throws IOException If the file cannot be read or is malformed; the current catalog is kept.
+     */
+    public void loadDataFromFile(String fileName) throws IOException {
+        writeLock.lock();
+        try {
+            CatalogFile loaded = dataManager.loadMovieCatalog(fileName, movieCatalog);
+            restoreCatalog(loaded.catalogId(), loaded.movieCatalog());
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * Gets the identity of the movie catalog.
+     *
+     * @return The catalog identity, never 0.
      */
-    public void loadDataFromFile(String fileName) {
-        dataManager.loadMovieCatalogFromFile(fileName, movieCatalog);
+    public long getCatalogId() {
+        return catalogId;
+    }
+
+    /**
+     * Gets the stamp of the current state of the movie catalog, to be written into files that refer to
+     * its movies by id and checked when they are loaded.
+     *
+     * @return The catalog identity with the last movie id handed out.
+     */
+    public CatalogStamp getCatalogStamp() {
+        return new CatalogStamp(catalogId, movieCatalog.lastSequence());
+    }
+
+    /**
+     * Gets the id of a movie in the catalog. Ids are sequence numbers, which never change and are kept
+     * when the catalog is saved and loaded, so files can refer to catalog movies by id.
+     * The movie is looked up among the catalog movies with the same title, or in the whole catalog if it has
+     * no title. The catalog instance itself is preferred, so of several equal movies the one passed is found;
+     * otherwise the first equal movie is.
+     *
+     * @param movie The movie.
+     * @return The id of the movie, or of the first catalog movie equal to it, or 0 if it is not in the catalog.
+     */
+    public long getMovieId(Movie movie) {
+        if (movie == null) {
+            return 0;
+        }
+        PersistentSequence<Movie> candidates = movie.getTitle() == null
+                ? movieCatalog
+                : titleIndex.get(caseFold(movie.getTitle()));
+        long equal = 0;
+        PersistentSequence.SequenceIterator<Movie> iterator = candidates.iterator();
+        while (iterator.hasNext()) {
+            Movie candidate = iterator.next();
+            if (candidate == movie) {
+                return iterator.sequence();
+            }
+            if (equal == 0 && candidate.equals(movie)) {
+                equal = iterator.sequence();
+            }
+        }
+        return equal;
+    }
+
+    /**
+     * Finds a catalog movie by id.
+     *
+     * @param id The id of the movie.
+     * @return The movie as an Optional if found, or an empty Optional if not found.
+     */
+    public Optional<Movie> findMovieById(long id) {
+        return Optional.ofNullable(movieCatalog.find(id));
+    }
+
+    /**
+     * Reloads pricing rules of movie types from a file and swaps them in for all movies at once.
+     * If the file cannot be read or is invalid, the current pricing stays in place.
+     *
+     * @param fileName The name of the file to load the rules from.
+     * @return The movie types whose pricing was replaced.
+     * @throws IOException              If the file cannot be read.
+     * @throws IllegalArgumentException If the file contains an invalid rule.
+     */
+    public Set<MovieType> reloadPricingRules(String fileName) throws IOException {
+        Map<MovieType, PriceStrategy> strategies = PricingRules.compile(PricingRules.load(fileName));
+        MovieType.setPriceStrategies(strategies);
+        return strategies.keySet();
+    }
+
+    /**
+     * Gets the lock that serializes changes to the catalog, so a snapshot can be taken between two changes.
+     *
+     * @return The write lock.
+     */
+    Lock writeLock() {
+        return writeLock;
+    }
+
+    /**
+     * Attaches a journal that records every later change before it is applied.
+     *
+     * @param journal The journal, or null to stop journaling.
+     */
+    void attachJournal(Journal journal) {
+        writeLock.lock();
+        try {
+            this.journal = journal;
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * Replaces the movie catalog with a restored one, keeping the sequence numbers of its movies.
+     *
+     * @param catalogId The identity of the restored catalog, or 0 to give it a new one.
+     * @param catalog   The restored catalog.
+     */
+    void restoreCatalog(long catalogId, PersistentSequence<Movie> catalog) {
+        writeLock.lock();
+        try {
+            this.catalogId = catalogId == 0 ? newCatalogId() : catalogId;
+            movieCatalog = catalog;
+            rebuildIndexes();
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * Adds a movie replayed from the journal under the id it was added with. The change is not journaled again.
+     *
+     * @param id    The id of the movie, greater than that of all movies added before.
+     * @param movie The movie.
+     * @throws IllegalArgumentException If the id is not greater than that of all movies added before.
+     */
+    void restoreMovie(long id, Movie movie) {
+        writeLock.lock();
+        try {
+            movieCatalog = movieCatalog.append(id, movie);
+            indexMovie(movie, id);
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * Removes a movie replayed from the journal by id. The change is not journaled again.
+     *
+     * @param id The id of the movie.
+     * @return true if the movie was removed, false if no movie has the id.
+     */
+    boolean removeMovie(long id) {
+        writeLock.lock();
+        try {
+            Movie movie = movieCatalog.find(id);
+            if (movie == null) {
+                return false;
+            }
+            movieCatalog = movieCatalog.without(id);
+            unindexMovie(movie, id);
+            return true;
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * Waits until a change appended to the journal is on disk.
+     *
+     * @param journal  The journal the change was appended to, or null if none is attached.
+     * @param position The position returned by the journal for the change.
+     * @throws UncheckedIOException If the change cannot be written to the journal.
+     */
+    private static void sync(Journal journal, long position) {
+        if (journal == null) {
+            return;
+        }
+        try {
+            journal.sync(position);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Change was not saved to the journal", e);
+        }
+    }
+
+    /**
+     * Creates a random catalog identity.
+     *
+     * @return The identity, never 0.
+     */
+    private static long newCatalogId() {
+        long id;
+        do {
+            id = ThreadLocalRandom.current().nextLong();
+        } while (id == 0);
+        return id;
+    }
+
+    /**
+     * Chooses the smallest posting list among the criteria of a query.
+     *
+     * @param query The query.
+     * @return The candidate movies, or the whole catalog if the query has no criteria.
+     */
+    private List<Movie> selectCandidates(MovieQuery query) {
+        if (query.getDirector() == null && query.getCountry() == null
+                && query.getActor() == null && query.getType() == null) {
+            return getMovieCatalog();
+        }
+        FieldIndexes indexes = fieldIndexes.get();
+        String country = caseFold(query.getCountry());
+        int directorCount = query.getDirector() == null
+                ? Integer.MAX_VALUE : indexes.director.count(query.getDirector());
+        int countryCount = country == null ? Integer.MAX_VALUE : indexes.country.count(country);
+        int actorCount = query.getActor() == null ? Integer.MAX_VALUE : indexes.actor.count(query.getActor());
+        int typeCount = query.getType() == null ? Integer.MAX_VALUE : indexes.type.count(query.getType());
+        int smallest = Math.min(Math.min(directorCount, countryCount), Math.min(actorCount, typeCount));
+
+        if (smallest == directorCount) {
+            return indexes.director.get(query.getDirector());
+        } else if (smallest == countryCount) {
+            return indexes.country.get(country);
+        } else if (smallest == actorCount) {
+            return indexes.actor.get(query.getActor());
+        }
+        return indexes.type.get(query.getType());
+    }
+
+    /**
+     * Rebuilds the title index from the current content of the movie catalog
+     * and drops the other indexes, to be rebuilt by the next query that needs them.
+     */
+    private void rebuildIndexes() {
+        titleIndex.clear();
+        PersistentSequence.SequenceIterator<Movie> iterator = movieCatalog.iterator();
+        while (iterator.hasNext()) {
+            Movie movie = iterator.next();
+            titleIndex.add(caseFold(movie.getTitle()), iterator.sequence(), movie);
+        }
+        fieldIndexes.reset();
+        titleSuggestions.reset();
+        textIndex.reset();
+        orderedIndexes.values().forEach(LazyIndex::reset);
+    }
+
+    /**
+     * Adds a movie to the title index and to the other indexes that are built.
+     *
+     * @param movie    The movie to be indexed.
+     * @param sequence The sequence number of the movie in the catalog.
+     */
+    private void indexMovie(Movie movie, long sequence) {
+        titleIndex.add(caseFold(movie.getTitle()), sequence, movie);
+        fieldIndexes.add(movie, sequence);
+        titleSuggestions.add(movie, sequence);
+        textIndex.add(movie, sequence);
+        orderedIndexes.values().forEach(index -> index.add(movie, sequence));
+    }
+
+    /**
+     * Removes a movie from the title index and from the other indexes that are built.
+     *
+     * @param movie    The movie to be removed from the indexes.
+     * @param sequence The sequence number of the movie in the catalog.
+     */
+    private void unindexMovie(Movie movie, long sequence) {
+        titleIndex.remove(caseFold(movie.getTitle()), sequence);
+        fieldIndexes.remove(movie, sequence);
+        titleSuggestions.remove(movie, sequence);
+        textIndex.remove(movie, sequence);
+        orderedIndexes.values().forEach(index -> index.remove(movie, sequence));
+    }
+
+    /**
+     * Gets the actors of a movie without repetitions, so a movie is indexed once per actor.
+     *
+     * @param movie The movie.
+     * @return The distinct actors, or empty collection if the movie has no actors.
+     */
+    private static Collection<String> distinctActors(Movie movie) {
+        return movie.getActors() == null ? List.of() : new LinkedHashSet<>(movie.getActors());
+    }
+
+    /**
+     * Folds a value into the key used by case-insensitive indexes.
+     * The fold returns the same string instance when the value is already lower case.
+     *
+     * @param value The value to be folded.
+     * @return The case-folded value, or null if the value is null.
+     */
+    private static String caseFold(String value) {
+        return value == null ? null : value.toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Index of the movie catalog that can be updated one movie at a time.
+     */
+    private interface MovieIndex {
+
+        /**
+         * Adds a movie to the index.
+         *
+         * @param movie    The movie.
+         * @param sequence The sequence number of the movie in the catalog.
+         */
+        void add(Movie movie, long sequence);
+
+        /**
+         * Removes a movie from the index.
+         *
+         * @param movie    The movie.
+         * @param sequence The sequence number of the movie in the catalog.
+         */
+        void remove(Movie movie, long sequence);
+    }
+
+    /**
+     * Holder of an index that is built from the catalog when it is first needed.
+     * The index is built under the write lock, so no change is missed while it is built,
+     * and changes only update it once it is built.
+     *
+     * @param <T> The type of the index.
+     */
+    private final class LazyIndex<T extends MovieIndex> {
+
+        private final Supplier<T> factory;
+        private volatile T index;
+
+        /**
+         * Constructs a new instance of the LazyIndex.
+         *
+         * @param factory Creates an empty index.
+         */
+        LazyIndex(Supplier<T> factory) {
+            this.factory = factory;
+        }
+
+        /**
+         * Gets the index, building it from the catalog if it is not built yet.
+         *
+         * @return The index.
+         */
+        T get() {
+            T built = index;
+            if (built == null) {
+                writeLock.lock();
+                try {
+                    built = index;
+                    if (built == null) {
+                        built = factory.get();
+                        PersistentSequence.SequenceIterator<Movie> iterator = movieCatalog.iterator();
+                        while (iterator.hasNext()) {
+                            Movie movie = iterator.next();
+                            built.add(movie, iterator.sequence());
+                        }
+                        index = built;
+                    }
+                } finally {
+                    writeLock.unlock();
+                }
+            }
+            return built;
+        }
+
+        /**
+         * Adds a movie to the index if it is built. Must be called under the write lock.
+         *
+         * @param movie    The movie.
+         * @param sequence The sequence number of the movie in the catalog.
+         */
+        void add(Movie movie, long sequence) {
+            T built = index;
+            if (built != null) {
+                built.add(movie, sequence);
+            }
+        }
+
+        /**
+         * Removes a movie from the index if it is built. Must be called under the write lock.
+         *
+         * @param movie    The movie.
+         * @param sequence The sequence number of the movie in the catalog.
+         */
+        void remove(Movie movie, long sequence) {
+            T built = index;
+            if (built != null) {
+                built.remove(movie, sequence);
+            }
+        }
+
+        /**
+         * Drops the index, to be rebuilt by the next query. Must be called under the write lock.
+         */
+        void reset() {
+            index = null;
+        }
+    }
+
+    /**
+     * Indexes of the movie fields that can be queried by exact value.
+     */
+    private static final class FieldIndexes implements MovieIndex {
+
+        private final InvertedIndex<String, Movie> director = new InvertedIndex<>();
+        private final InvertedIndex<String, Movie> country = new InvertedIndex<>();
+        private final InvertedIndex<String, Movie> actor = new InvertedIndex<>();
+        private final InvertedIndex<MovieType, Movie> type = new InvertedIndex<>();
+
+        @Override
+        public void add(Movie movie, long sequence) {
+            director.add(movie.getDirector(), sequence, movie);
+            country.add(caseFold(movie.getCountryOfOrigin()), sequence, movie);
+            for (String name : distinctActors(movie)) {
+                actor.add(name, sequence, movie);
+            }
+            type.add(movie.getPriceCode(), sequence, movie);
+        }
+
+        @Override
+        public void remove(Movie movie, long sequence) {
+            director.remove(movie.getDirector(), sequence);
+            country.remove(caseFold(movie.getCountryOfOrigin()), sequence);
+            for (String name : distinctActors(movie)) {
+                actor.remove(name, sequence);
+            }
+            type.remove(movie.getPriceCode(), sequence);
+        }
+    }
+
+    /**
+     * Indexes of the distinct titles, each spelled as by the first catalog movie carrying it.
+     * They follow the title index, so it must be updated first.
+     */
+    private final class TitleSuggestions implements MovieIndex {
+
+        private final PrefixIndex<String> prefixes = new PrefixIndex<>();
+        private final TrigramIndex<String> trigrams = new TrigramIndex<>();
+
+        @Override
+        public void add(Movie movie, long sequence) {
+            update(caseFold(movie.getTitle()));
+        }
+
+        @Override
+        public void remove(Movie movie, long sequence) {
+            update(caseFold(movie.getTitle()));
+        }
+
+        /**
+         * Updates the spelling of a title from the title index.
+         *
+         * @param titleKey The case-folded title.
+         */
+        private void update(String titleKey) {
+            if (titleKey == null) {
+                return;
+            }
+            Movie first = titleIndex.first(titleKey);
+            if (first == null) {
+                prefixes.remove(titleKey);
+                trigrams.remove(titleKey);
+            } else {
+                prefixes.put(titleKey, first.getTitle());
+                trigrams.put(titleKey, first.getTitle());
+            }
+        }
+    }
+
+    /**
+     * Full-text index of the titles and descriptions.
+     */
+    private static final class TextIndex implements MovieIndex {
+
+        private final FullTextIndex<Movie> index = new FullTextIndex<>();
+
+        @Override
+        public void add(Movie movie, long sequence) {
+            index.add(sequence, movie, movie.getTitle(), movie.getDescription());
+        }
+
+        @Override
+        public void remove(Movie movie, long sequence) {
+            index.remove(sequence);
+        }
+    }
+
+    /**
+     * Index of the movies sorted by a field.
+     */
+    private static final class SortedIndex implements MovieIndex {
+
+        private final MovieOrder order;
+        private final OrderedIndex<Movie> index = new OrderedIndex<>();
+
+        /**
+         * Constructs a new instance of the SortedIndex.
+         *
+         * @param order The field to sort by.
+         */
+        SortedIndex(MovieOrder order) {
+            this.order = order;
+        }
+
+        @Override
+        public void add(Movie movie, long sequence) {
+            index.put(order.key(movie), sequence, movie);
+        }
+
+        @Override
+        public void remove(Movie movie, long sequence) {
+            index.remove(order.key(movie), sequence);
+        }
     }
 }
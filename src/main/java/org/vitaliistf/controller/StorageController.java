@@ -0,0 +1,319 @@
+package org.vitaliistf.controller;
+
+import org.vitaliistf.collection.PersistentSequence;
+import org.vitaliistf.model.Customer;
+import org.vitaliistf.model.movie.Movie;
+import org.vitaliistf.serialization.DataManager;
+import org.vitaliistf.serialization.Journal;
+import org.vitaliistf.serialization.JournalHandler;
+import org.vitaliistf.serialization.Snapshot;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.StreamCorruptedException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Lock;
+
+/**
+ * Controller class for keeping the movie catalog and the customer list on disk as they change.
+ * Once opened, every change made through the movie and customer controllers is appended to a {@link Journal}
+ * before it is applied, so saving a change costs the size of the change. A background job compacts the journal
+ * into a {@link Snapshot} once it grows, so recovery, which loads the snapshot and replays the journal written
+ * since, stays bounded.
+ * <p>
+ * Data is kept in files next to the base name: the snapshot in {@code <baseName>.snapshot}
+ * and the journal segments in {@code <baseName>.<generation>.journal}.
+ */
+public class StorageController implements Closeable {
+
+    private static final long SEGMENT_SIZE_LIMIT = 4L << 20;
+    private static final int SEGMENT_COUNT_LIMIT = 8;
+    private static final long COMPACTION_CHECK_SECONDS = 1;
+
+    private final String baseName;
+    private final MovieController movieController;
+    private final CustomerController customerController;
+    private final DataManager dataManager;
+    private final ScheduledExecutorService compactor;
+    private volatile Journal journal;
+    private volatile long snapshotGeneration;
+    private volatile Exception compactionFailure;
+
+    /**
+     * Constructs a new instance of the StorageController.
+     *
+     * @param baseName           The base name of the snapshot and journal files.
+     * @param movieController    The controller of the movie catalog.
+     * @param customerController The controller of the customer list.
+     * @param dataManager        The data manager to save and load snapshots with.
+     */
+    public StorageController(String baseName, MovieController movieController,
+                             CustomerController customerController, DataManager dataManager) {
+        this.baseName = baseName;
+        this.movieController = movieController;
+        this.customerController = customerController;
+        this.dataManager = dataManager;
+        this.compactor = Executors.newSingleThreadScheduledExecutor(task -> {
+            Thread thread = new Thread(task, "journal-compactor");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Recovers the data from the last snapshot and the journal written since, then starts journaling changes
+     * in a new journal segment and checks every second whether the journal should be compacted.
+     *
+     * @throws IOException           If the snapshot or the journal cannot be read or are inconsistent.
+     * @throws IllegalStateException If the controller is already open.
+     */
+    public void open() throws IOException {
+        if (journal != null) {
+            throw new IllegalStateException("Storage is already open");
+        }
+        long generation = 0;
+        if (Files.exists(Path.of(snapshotFileName()))) {
+            Snapshot snapshot = dataManager.loadSnapshot(snapshotFileName(), movieController.getMovieCatalog());
+            movieController.restoreCatalog(snapshot.catalogId(), snapshot.movieCatalog());
+            customerController.restoreCustomers(snapshot.customers());
+            generation = snapshot.generation();
+        }
+        Journal.deleteSegmentsBefore(baseName, generation);
+        long next = Journal.replay(baseName, generation, new Replay());
+        snapshotGeneration = generation;
+        journal = Journal.open(baseName, next, movieController::getMovieId);
+        movieController.attachJournal(journal);
+        customerController.attachJournal(journal);
+        compactor.scheduleWithFixedDelay(this::compactIfDue,
+                COMPACTION_CHECK_SECONDS, COMPACTION_CHECK_SECONDS, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Compacts the journal in the background: continues it in a new segment, saves a snapshot of the data
+     * as of that moment and deletes the segments the snapshot covers.
+     * Changes are blocked only while the segment is switched, not while the snapshot is saved.
+     *
+     * @return The future completing once the snapshot is saved, or exceptionally if it cannot be saved.
+     */
+    public CompletableFuture<Void> compact() {
+        return CompletableFuture.runAsync(() -> {
+            try {
+                compactNow();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }, compactor);
+    }
+
+    /**
+     * Replaces the movie catalog and the customer list with the data of a catalog file and a customers file,
+     * and saves a snapshot of the loaded data before any further change is made. Loaded data is not journaled:
+     * the journal is continued in a new segment, and the snapshot covers all segments before it.
+     * Changes are blocked until the snapshot is saved, so after a crash either the previous or the loaded data
+     * is recovered, never changes to one replayed on top of the other.
+     * <p>
+     * If the files cannot be loaded, the previous data and the journal are kept. If the snapshot cannot be saved,
+     * the journal is closed, so the loaded data and later changes to it are no longer kept on disk,
+     * while the previous data is still recovered on the next open. If the controller is not open,
+     * the data is only loaded.
+     *
+     * @param catalogFileName   The name of the catalog file.
+     * @param customersFileName The name of the customers file, saved against the catalog of the catalog file.
+     * @return The number of damaged customer records that were skipped.
+     * @throws IOException If the files cannot be loaded, or the snapshot of the loaded data cannot be saved.
+     */
+    public int loadDataFromFiles(String catalogFileName, String customersFileName) throws IOException {
+        Lock movieLock = movieController.writeLock();
+        Lock customerLock = customerController.writeLock();
+        movieLock.lock();
+        customerLock.lock();
+        try {
+            long previousCatalogId = movieController.getCatalogId();
+            PersistentSequence<Movie> previousCatalog = movieController.getMovieCatalog();
+            int damaged;
+            movieController.loadDataFromFile(catalogFileName);
+            try {
+                damaged = customerController.loadDataFromFile(customersFileName,
+                        id -> movieController.findMovieById(id).orElse(null), movieController.getCatalogStamp());
+            } catch (IOException | RuntimeException e) {
+                movieController.restoreCatalog(previousCatalogId, previousCatalog);
+                throw e;
+            }
+            Journal current = journal;
+            if (current == null) {
+                return damaged;
+            }
+            long generation;
+            try {
+                generation = current.rotate();
+                dataManager.saveSnapshot(snapshotFileName(), new Snapshot(generation, movieController.getCatalogId(),
+                        movieController.getMovieCatalog(), customerController.getCustomers()));
+            } catch (IOException | RuntimeException e) {
+                detachJournal(current, e);
+                throw new IOException("Loaded data could not be saved, changes are no longer kept on disk", e);
+            }
+            snapshotGeneration = generation;
+            Journal.deleteSegmentsBefore(baseName, generation);
+            return damaged;
+        } finally {
+            customerLock.unlock();
+            movieLock.unlock();
+        }
+    }
+
+    /**
+     * Gets the failure of the last background compaction, so callers can tell that the journal keeps growing
+     * because snapshots cannot be saved. Compactions requested with {@link #compact()} report their own failure.
+     *
+     * @return The failure, or empty if the last background compaction succeeded or none ran yet.
+     */
+    public Optional<Exception> getCompactionFailure() {
+        return Optional.ofNullable(compactionFailure);
+    }
+
+    /**
+     * Stops the background compaction and closes the journal. Later changes are no longer journaled.
+     *
+     * @throws IOException If the journal cannot be written.
+     */
+    @Override
+    public void close() throws IOException {
+        compactor.shutdown();
+        try {
+            compactor.awaitTermination(1, TimeUnit.MINUTES);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        Journal current = journal;
+        if (current != null) {
+            movieController.attachJournal(null);
+            customerController.attachJournal(null);
+            journal = null;
+            current.close();
+        }
+    }
+
+    /**
+     * Compacts the journal if its segment grew past the size limit or too many segments piled up since the snapshot.
+     * Runs on the compactor thread, so failures are kept for {@link #getCompactionFailure()} rather than thrown,
+     * which keeps the schedule going, and the compaction is retried at the next check.
+     */
+    private void compactIfDue() {
+        Journal current = journal;
+        if (current == null) {
+            return;
+        }
+        if (current.segmentSize() > SEGMENT_SIZE_LIMIT
+                || current.generation() - snapshotGeneration >= SEGMENT_COUNT_LIMIT) {
+            try {
+                compactNow();
+                compactionFailure = null;
+            } catch (IOException | RuntimeException e) {
+                compactionFailure = e;
+            }
+        }
+    }
+
+    /**
+     * Switches the journal to a new segment while no changes are made, then saves a snapshot of the data
+     * as of the switch and deletes the segments before the new one. Runs on the compactor thread only.
+     *
+     * @throws IOException If the journal cannot be switched or the snapshot cannot be saved.
+     */
+    private void compactNow() throws IOException {
+        Journal current = journal;
+        if (current == null) {
+            throw new IllegalStateException("Storage is not open");
+        }
+        Snapshot snapshot;
+        Lock movieLock = movieController.writeLock();
+        Lock customerLock = customerController.writeLock();
+        movieLock.lock();
+        customerLock.lock();
+        try {
+            long generation = current.rotate();
+            snapshot = new Snapshot(generation, movieController.getCatalogId(), movieController.getMovieCatalog(),
+                    customerController.getCustomers());
+        } finally {
+            customerLock.unlock();
+            movieLock.unlock();
+        }
+        dataManager.saveSnapshot(snapshotFileName(), snapshot);
+        snapshotGeneration = snapshot.generation();
+        Journal.deleteSegmentsBefore(baseName, snapshot.generation());
+    }
+
+    /**
+     * Stops journaling changes after the journal no longer matches the data, and closes it.
+     *
+     * @param current The journal.
+     * @param cause   The failure that made the journal unusable, which a failure to close it is added to.
+     */
+    private void detachJournal(Journal current, Exception cause) {
+        movieController.attachJournal(null);
+        customerController.attachJournal(null);
+        journal = null;
+        try {
+            current.close();
+        } catch (IOException | RuntimeException e) {
+            cause.addSuppressed(e);
+        }
+    }
+
+    /**
+     * Gets the name of the snapshot file.
+     *
+     * @return The file name.
+     */
+    private String snapshotFileName() {
+        return baseName + ".snapshot";
+    }
+
+    /**
+     * Applies changes replayed from the journal to the controllers without journaling them again.
+     */
+    private class Replay implements JournalHandler {
+
+        @Override
+        public Movie findMovie(long id) {
+            return movieController.findMovieById(id).orElse(null);
+        }
+
+        @Override
+        public void addMovie(long id, Movie movie) throws IOException {
+            if (id <= movieController.getMovieCatalog().lastSequence()) {
+                throw new StreamCorruptedException("Journal adds movie id " + id + " twice");
+            }
+            movieController.restoreMovie(id, movie);
+        }
+
+        @Override
+        public void deleteMovie(long id) throws IOException {
+            if (!movieController.removeMovie(id)) {
+                throw new StreamCorruptedException("Journal deletes unknown movie id " + id);
+            }
+        }
+
+        @Override
+        public void addCustomer(Customer customer) throws IOException {
+            if (!customerController.addCustomer(customer)) {
+                throw new StreamCorruptedException("Journal adds customer " + customer.name() + " twice");
+            }
+        }
+
+        @Override
+        public void addRental(String customerName, int index, Movie movie, int days) throws IOException {
+            if (!customerController.restoreRental(customerName, index, movie, days)) {
+                throw new StreamCorruptedException("Journal adds rental " + index + " to unknown customer "
+                        + customerName + " or skips earlier ones");
+            }
+        }
+    }
+}
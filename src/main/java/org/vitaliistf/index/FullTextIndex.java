@@ -0,0 +1,235 @@
+package org.vitaliistf.index;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Full-text inverted index with positional postings and BM25 ranking.
+ * Documents are added and removed one at a time by id, so the index never needs to be rebuilt,
+ * and equal documents under different ids are indexed separately.
+ * Searches are safe while another thread changes the index; changes must not run concurrently with each other.
+ *
+ * @param <V> The type of the indexed documents.
+ */
+public class FullTextIndex<V> {
+
+    private static final double K1 = 1.2;
+    private static final double B = 0.75;
+    private static final double PHRASE_BOOST = 1.5;
+    private static final int FIELD_GAP = 100;
+
+    private final Map<String, Map<Long, int[]>> postings;
+    private final Map<Long, Document<V>> documents;
+    private final AtomicLong totalLength;
+
+    /**
+     * An indexed document with the statistics needed for ranking and removal.
+     *
+     * @param value  The document.
+     * @param length The number of tokens in the document.
+     * @param terms  The distinct terms of the document.
+     */
+    private record Document<V>(V value, int length, Set<String> terms) {
+    }
+
+    /**
+     * Search hit used while ranking documents.
+     *
+     * @param id    The id of the matching document.
+     * @param score The relevance score.
+     */
+    private record Hit(long id, double score) {
+    }
+
+    /**
+     * Constructs a new instance of the FullTextIndex.
+     */
+    public FullTextIndex() {
+        this.postings = new ConcurrentHashMap<>();
+        this.documents = new ConcurrentHashMap<>();
+        this.totalLength = new AtomicLong();
+    }
+
+    /**
+     * Adds a document to the index. Each field is tokenized separately, so phrases do not span fields.
+     * A document with an id that is already indexed is ignored.
+     *
+     * @param id       The unique id of the document.
+     * @param document The document to be added.
+     * @param fields   The text fields of the document; null fields are skipped.
+     */
+    public void add(long id, V document, String... fields) {
+        if (documents.containsKey(id)) {
+            return;
+        }
+        Map<String, List<Integer>> positions = new HashMap<>();
+        int position = 0;
+        int length = 0;
+        for (String field : fields) {
+            List<String> tokens = tokenize(field);
+            for (String token : tokens) {
+                positions.computeIfAbsent(token, t -> new ArrayList<>()).add(position++);
+            }
+            length += tokens.size();
+            position += FIELD_GAP;
+        }
+        for (Map.Entry<String, List<Integer>> entry : positions.entrySet()) {
+            int[] termPositions = entry.getValue().stream().mapToInt(Integer::intValue).toArray();
+            postings.computeIfAbsent(entry.getKey(), t -> new ConcurrentHashMap<>()).put(id, termPositions);
+        }
+        documents.put(id, new Document<>(document, length, positions.keySet()));
+        totalLength.addAndGet(length);
+    }
+
+    /**
+     * Removes a document from the index.
+     *
+     * @param id The id of the document to be removed.
+     */
+    public void remove(long id) {
+        Document<V> removed = documents.remove(id);
+        if (removed == null) {
+            return;
+        }
+        for (String term : removed.terms()) {
+            Map<Long, int[]> termPostings = postings.get(term);
+            termPostings.remove(id);
+            if (termPostings.isEmpty()) {
+                postings.remove(term);
+            }
+        }
+        totalLength.addAndGet(-removed.length());
+    }
+
+    /**
+     * Removes all documents from the index.
+     */
+    public void clear() {
+        postings.clear();
+        documents.clear();
+        totalLength.set(0);
+    }
+
+    /**
+     * Searches the index and returns the best matching documents ranked by BM25.
+     * Documents that contain the query terms as a consecutive phrase get an additional boost.
+     *
+     * @param query The free-text query.
+     * @param limit The maximum number of documents to return.
+     * @return List of the best matching documents, most relevant first.
+     */
+    public List<V> search(String query, int limit) {
+        List<String> queryTokens = tokenize(query);
+        int documentCount = documents.size();
+        if (limit <= 0 || queryTokens.isEmpty() || documentCount == 0) {
+            return List.of();
+        }
+
+        double averageLength = Math.max(1.0, (double) totalLength.get() / documentCount);
+        Map<Long, Double> scores = new HashMap<>();
+        for (String term : new LinkedHashSet<>(queryTokens)) {
+            Map<Long, int[]> termPostings = postings.get(term);
+            if (termPostings == null) {
+                continue;
+            }
+            int frequencyInDocuments = termPostings.size();
+            double idf = Math.log(1 + Math.max(0, documentCount - frequencyInDocuments + 0.5) / (frequencyInDocuments + 0.5));
+            for (Map.Entry<Long, int[]> posting : termPostings.entrySet()) {
+                Document<V> stats = documents.get(posting.getKey());
+                if (stats == null) {
+                    continue;
+                }
+                int frequency = posting.getValue().length;
+                double norm = K1 * (1 - B + B * stats.length() / averageLength);
+                scores.merge(posting.getKey(), idf * frequency * (K1 + 1) / (frequency + norm), Double::sum);
+            }
+        }
+
+        PriorityQueue<Hit> best = new PriorityQueue<>(Comparator.comparingDouble(Hit::score));
+        for (Map.Entry<Long, Double> entry : scores.entrySet()) {
+            double score = entry.getValue();
+            if (queryTokens.size() > 1 && containsPhrase(entry.getKey(), queryTokens)) {
+                score *= PHRASE_BOOST;
+            }
+            if (best.size() < limit) {
+                best.add(new Hit(entry.getKey(), score));
+            } else if (score > best.peek().score()) {
+                best.poll();
+                best.add(new Hit(entry.getKey(), score));
+            }
+        }
+
+        List<Hit> ranked = new ArrayList<>(best);
+        ranked.sort(Comparator.comparingDouble(Hit::score).reversed());
+        List<V> result = new ArrayList<>(ranked.size());
+        for (Hit hit : ranked) {
+            Document<V> document = documents.get(hit.id());
+            if (document != null) {
+                result.add(document.value());
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Checks whether a document contains the given terms at consecutive positions.
+     *
+     * @param id    The id of the document to check.
+     * @param terms The terms of the phrase.
+     * @return True if the phrase occurs in the document, false otherwise.
+     */
+    private boolean containsPhrase(long id, List<String> terms) {
+        int[][] termPositions = new int[terms.size()][];
+        for (int i = 0; i < terms.size(); i++) {
+            Map<Long, int[]> termPostings = postings.get(terms.get(i));
+            termPositions[i] = termPostings == null ? null : termPostings.get(id);
+            if (termPositions[i] == null) {
+                return false;
+            }
+        }
+        for (int start : termPositions[0]) {
+            int i = 1;
+            while (i < terms.size() && Arrays.binarySearch(termPositions[i], start + i) >= 0) {
+                i++;
+            }
+            if (i == terms.size()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Splits text into lower-case tokens of letters and digits.
+     *
+     * @param text The text to tokenize.
+     * @return List of the tokens in order, or empty list if the text is null.
+     */
+    static List<String> tokenize(String text) {
+        List<String> tokens = new ArrayList<>();
+        if (text == null) {
+            return tokens;
+        }
+        int start = -1;
+        for (int i = 0; i <= text.length(); i++) {
+            boolean tokenChar = i < text.length() && Character.isLetterOrDigit(text.charAt(i));
+            if (tokenChar && start < 0) {
+                start = i;
+            } else if (!tokenChar && start >= 0) {
+                tokens.add(text.substring(start, i).toLowerCase(Locale.ROOT));
+                start = -1;
+            }
+        }
+        return tokens;
+    }
+}
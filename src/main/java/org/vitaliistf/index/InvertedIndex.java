@@ -0,0 +1,97 @@
+package org.vitaliistf.index;
+
+import org.vitaliistf.collection.PersistentSequence;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Inverted index mapping a key to the posting list of values that carry it.
+ * Values are added and removed by a unique id, and posting lists keep them in id order.
+ * Posting lists are persistent sequences, so adding or removing a value costs O(log n) however many values share
+ * the key, and a posting list is handed out as an immutable snapshot without copying.
+ * Reads are safe while another thread changes the index; changes must not run concurrently with each other.
+ *
+ * @param <K> The type of the index keys.
+ * @param <V> The type of the indexed values.
+ */
+public class InvertedIndex<K, V> {
+
+    private final Map<K, PersistentSequence<V>> postings;
+
+    /**
+     * Constructs a new instance of the InvertedIndex.
+     */
+    public InvertedIndex() {
+        this.postings = new ConcurrentHashMap<>();
+    }
+
+    /**
+     * Adds a value to the posting list of a key. Null keys are not indexed.
+     *
+     * @param key   The key of the value.
+     * @param id    The unique id of the value, greater than the ids of all values added under the key before.
+     * @param value The value to be added.
+     * @throws IllegalArgumentException If the id is not greater than the ids added under the key before.
+     */
+    public void add(K key, long id, V value) {
+        if (key != null) {
+            postings.compute(key, (k, posting) -> (posting == null ? PersistentSequence.<V>empty() : posting)
+                    .append(id, value));
+        }
+    }
+
+    /**
+     * Removes a value from the posting list of a key.
+     *
+     * @param key The key of the value.
+     * @param id  The id of the value to be removed.
+     */
+    public void remove(K key, long id) {
+        if (key != null) {
+            postings.computeIfPresent(key, (k, posting) -> {
+                PersistentSequence<V> updated = posting.without(id);
+                return updated.isEmpty() ? null : updated;
+            });
+        }
+    }
+
+    /**
+     * Gets the values indexed under a key.
+     *
+     * @param key The key to look up.
+     * @return Immutable snapshot of the posting list in id order, or empty list if there are none.
+     */
+    public PersistentSequence<V> get(K key) {
+        PersistentSequence<V> posting = key == null ? null : postings.get(key);
+        return posting == null ? PersistentSequence.empty() : posting;
+    }
+
+    /**
+     * Gets the first value indexed under a key without copying the posting list.
+     *
+     * @param key The key to look up.
+     * @return The value with the lowest id, or null if there are none.
+     */
+    public V first(K key) {
+        PersistentSequence<V> posting = get(key);
+        return posting.isEmpty() ? null : posting.get(0);
+    }
+
+    /**
+     * Gets the number of values indexed under a key.
+     *
+     * @param key The key to look up.
+     * @return The size of the posting list.
+     */
+    public int count(K key) {
+        return get(key).size();
+    }
+
+    /**
+     * Removes all posting lists from the index.
+     */
+    public void clear() {
+        postings.clear();
+    }
+}
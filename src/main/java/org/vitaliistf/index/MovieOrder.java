@@ -0,0 +1,47 @@
+package org.vitaliistf.index;
+
+import org.vitaliistf.model.movie.Movie;
+
+import java.util.Locale;
+import java.util.function.Function;
+
+/**
+ * Enumeration of the orders in which the movie catalog can be viewed, along with the movie field each one sorts by.
+ * Fields are compared ignoring case.
+ */
+public enum MovieOrder {
+    TITLE(Movie::getTitle),
+    DIRECTOR(Movie::getDirector),
+    COUNTRY(Movie::getCountryOfOrigin);
+
+    private final Function<Movie, String> field;
+
+    /**
+     * Constructor for MovieOrder enum.
+     *
+     * @param field The movie field used for ordering.
+     */
+    MovieOrder(Function<Movie, String> field) {
+        this.field = field;
+    }
+
+    /**
+     * Gets the sort key of a movie in this order.
+     *
+     * @param movie The movie.
+     * @return The case-folded field value, or empty string if the field is not set.
+     */
+    public String key(Movie movie) {
+        return normalize(field.apply(movie));
+    }
+
+    /**
+     * Normalizes a bound of a range query so that it compares like the sort keys.
+     *
+     * @param value The bound.
+     * @return The case-folded bound, or empty string if the bound is null.
+     */
+    public String normalize(String value) {
+        return value == null ? "" : value.toLowerCase(Locale.ROOT);
+    }
+}
@@ -0,0 +1,157 @@
+package org.vitaliistf.index;
+
+import org.vitaliistf.model.movie.Movie;
+import org.vitaliistf.model.movie.MovieType;
+
+import java.util.Locale;
+import java.util.function.Predicate;
+
+/**
+ * Composite catalog query combining several movie criteria with AND.
+ * Criteria that are not set match every movie.
+ */
+public class MovieQuery implements Predicate<Movie> {
+    private final String director;
+    private final String country;
+    private final String countryKey;
+    private final String actor;
+    private final MovieType type;
+
+    /**
+     * Private constructor to create a MovieQuery instance using a Builder.
+     *
+     * @param builder The builder object containing query criteria.
+     */
+    private MovieQuery(Builder builder) {
+        this.director = builder.director;
+        this.country = builder.country;
+        this.countryKey = caseFold(builder.country);
+        this.actor = builder.actor;
+        this.type = builder.type;
+    }
+
+    /**
+     * Get the director criterion.
+     *
+     * @return The director name, or null if not set.
+     */
+    public String getDirector() {
+        return director;
+    }
+
+    /**
+     * Get the country of origin criterion.
+     *
+     * @return The country of origin, or null if not set.
+     */
+    public String getCountry() {
+        return country;
+    }
+
+    /**
+     * Get the actor criterion.
+     *
+     * @return The actor name, or null if not set.
+     */
+    public String getActor() {
+        return actor;
+    }
+
+    /**
+     * Get the movie type criterion.
+     *
+     * @return The movie type, or null if not set.
+     */
+    public MovieType getType() {
+        return type;
+    }
+
+    /**
+     * Checks whether a movie matches all criteria of the query.
+     * Matching follows the single-field searches: director and actor are exact, country ignores case,
+     * folded the same way as the keys of the country index, so the query never disagrees with it.
+     *
+     * @param movie The movie to check.
+     * @return True if the movie matches, false otherwise.
+     */
+    @Override
+    public boolean test(Movie movie) {
+        return (director == null || director.equals(movie.getDirector())) &&
+                (countryKey == null || countryKey.equals(caseFold(movie.getCountryOfOrigin()))) &&
+                (type == null || type == movie.getPriceCode()) &&
+                (actor == null || movie.getActors() != null && movie.getActors().contains(actor));
+    }
+
+    /**
+     * Folds a value into the key used by case-insensitive indexes.
+     *
+     * @param value The value to be folded.
+     * @return The case-folded value, or null if the value is null.
+     */
+    private static String caseFold(String value) {
+        return value == null ? null : value.toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Builder class for constructing a MovieQuery object.
+     */
+    public static class Builder {
+        private String director;
+        private String country;
+        private String actor;
+        private MovieType type;
+
+        /**
+         * Set the director criterion.
+         *
+         * @param director The director name.
+         * @return The Builder instance for method chaining.
+         */
+        public Builder director(String director) {
+            this.director = director;
+            return this;
+        }
+
+        /**
+         * Set the country of origin criterion.
+         *
+         * @param country The country of origin.
+         * @return The Builder instance for method chaining.
+         */
+        public Builder country(String country) {
+            this.country = country;
+            return this;
+        }
+
+        /**
+         * Set the actor criterion.
+         *
+         * @param actor The actor name.
+         * @return The Builder instance for method chaining.
+         */
+        public Builder actor(String actor) {
+            this.actor = actor;
+            return this;
+        }
+
+        /**
+         * Set the movie type criterion.
+         *
+         * @param type The movie type.
+         * @return The Builder instance for method chaining.
+         */
+        public Builder type(MovieType type) {
+            this.type = type;
+            return this;
+        }
+
+        /**
+         * Build and return the MovieQuery object.
+         *
+         * @return The constructed MovieQuery object.
+         */
+        public MovieQuery build() {
+            return new MovieQuery(this);
+        }
+    }
+}
@@ -0,0 +1,143 @@
+package org.vitaliistf.index;
+
+import org.vitaliistf.collection.Page;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/**
+ * Sorted index over string keys supporting range scans and ordered pagination in O(log n + k).
+ * Values with equal keys are kept in the order of their sequence numbers.
+ * Queries are safe while another thread changes the index.
+ *
+ * @param <V> The type of the indexed values.
+ */
+public class OrderedIndex<V> {
+
+    private static final char CURSOR_SEPARATOR = ':';
+
+    private final ConcurrentSkipListMap<Position, V> entries;
+
+    /**
+     * Position of a value in the index.
+     *
+     * @param key      The sort key.
+     * @param sequence The sequence number breaking ties between equal keys.
+     */
+    private record Position(String key, long sequence) {
+
+        private static final Comparator<Position> ORDER = Comparator.comparing(Position::key)
+                .thenComparingLong(Position::sequence);
+    }
+
+    /**
+     * Constructs a new instance of the OrderedIndex.
+     */
+    public OrderedIndex() {
+        this.entries = new ConcurrentSkipListMap<>(Position.ORDER);
+    }
+
+    /**
+     * Adds a value to the index.
+     *
+     * @param key      The sort key of the value.
+     * @param sequence The unique sequence number of the value.
+     * @param value    The value.
+     */
+    public void put(String key, long sequence, V value) {
+        entries.put(new Position(key, sequence), value);
+    }
+
+    /**
+     * Removes a value from the index.
+     *
+     * @param key      The sort key of the value.
+     * @param sequence The unique sequence number of the value.
+     */
+    public void remove(String key, long sequence) {
+        entries.remove(new Position(key, sequence));
+    }
+
+    /**
+     * Removes all values from the index.
+     */
+    public void clear() {
+        entries.clear();
+    }
+
+    /**
+     * Finds the values whose keys fall in a range, in key order.
+     *
+     * @param from  The lowest key, inclusive, or null for no lower bound.
+     * @param to    The highest key, exclusive, or null for no upper bound.
+     * @param limit The maximum number of values to return.
+     * @return List of the values in the range.
+     */
+    public List<V> range(String from, String to, int limit) {
+        NavigableMap<Position, V> range = entries;
+        if (from != null) {
+            range = range.tailMap(new Position(from, Long.MIN_VALUE), true);
+        }
+        if (to != null) {
+            range = range.headMap(new Position(to, Long.MIN_VALUE), false);
+        }
+        List<V> result = new ArrayList<>();
+        for (Iterator<V> iterator = range.values().iterator(); result.size() < limit && iterator.hasNext(); ) {
+            result.add(iterator.next());
+        }
+        return result;
+    }
+
+    /**
+     * Gets a page of values in key order, starting after a cursor.
+     *
+     * @param cursor   The cursor returned with the previous page, or null for the first page.
+     * @param pageSize The maximum number of values on the page.
+     * @return The page.
+     * @throws IllegalArgumentException If the cursor is malformed or the page size is not positive.
+     */
+    public Page<V> page(String cursor, int pageSize) {
+        if (pageSize <= 0) {
+            throw new IllegalArgumentException("Page size must be positive: " + pageSize);
+        }
+        NavigableMap<Position, V> rest = cursor == null ? entries : entries.tailMap(decodeCursor(cursor), false);
+        List<V> items = new ArrayList<>();
+        Position last = null;
+        Iterator<Map.Entry<Position, V>> iterator = rest.entrySet().iterator();
+        while (items.size() < pageSize && iterator.hasNext()) {
+            Map.Entry<Position, V> entry = iterator.next();
+            items.add(entry.getValue());
+            last = entry.getKey();
+        }
+        return new Page<>(items, iterator.hasNext() ? encodeCursor(last) : null);
+    }
+
+    /**
+     * Encodes a position into an opaque cursor.
+     */
+    private static String encodeCursor(Position position) {
+        String raw = Long.toString(position.sequence(), Character.MAX_RADIX) + CURSOR_SEPARATOR + position.key();
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Decodes an opaque cursor into a position.
+     */
+    private static Position decodeCursor(String cursor) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int separator = raw.indexOf(CURSOR_SEPARATOR);
+            long sequence = Long.parseLong(raw.substring(0, separator), Character.MAX_RADIX);
+            return new Position(raw.substring(separator + 1), sequence);
+        } catch (IllegalArgumentException | IndexOutOfBoundsException e) {
+            throw new IllegalArgumentException("Invalid page cursor: " + cursor, e);
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package org.vitaliistf.index;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/**
+ * Sorted index answering "values whose key starts with ..." queries.
+ * Keys are expected to be normalized by the caller, for example case-folded.
+ * Queries are safe while another thread changes the index.
+ *
+ * @param <V> The type of the indexed values.
+ */
+public class PrefixIndex<V> {
+
+    private final NavigableMap<String, V> entries;
+
+    /**
+     * Constructs a new instance of the PrefixIndex.
+     */
+    public PrefixIndex() {
+        this.entries = new ConcurrentSkipListMap<>();
+    }
+
+    /**
+     * Associates a value with a key, replacing the previous value of the key.
+     *
+     * @param key   The key.
+     * @param value The value.
+     */
+    public void put(String key, V value) {
+        entries.put(key, value);
+    }
+
+    /**
+     * Removes a key from the index.
+     *
+     * @param key The key to be removed.
+     */
+    public void remove(String key) {
+        entries.remove(key);
+    }
+
+    /**
+     * Removes all keys from the index.
+     */
+    public void clear() {
+        entries.clear();
+    }
+
+    /**
+     * Finds the values whose keys start with a prefix, in key order.
+     * Only the matching range of the index is visited, and the walk stops after the limit.
+     *
+     * @param prefix The prefix of the keys.
+     * @param limit  The maximum number of values to return.
+     * @return List of the values, or empty list if no key starts with the prefix.
+     */
+    public List<V> startingWith(String prefix, int limit) {
+        List<V> result = new ArrayList<>();
+        for (Map.Entry<String, V> entry : entries.tailMap(prefix, true).entrySet()) {
+            if (result.size() >= limit || !entry.getKey().startsWith(prefix)) {
+                break;
+            }
+            result.add(entry.getValue());
+        }
+        return result;
+    }
+}
@@ -0,0 +1,192 @@
+package org.vitaliistf.index;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Trigram index for approximate key matching.
+ * Trigrams shared with the query select candidate keys, which are then verified with a bounded edit distance,
+ * so only keys that look similar to the query are ever compared in full.
+ * Keys are expected to be normalized by the caller, for example case-folded.
+ * Searches are safe while another thread changes the index; changes must not run concurrently with each other.
+ *
+ * @param <V> The type of the indexed values.
+ */
+public class TrigramIndex<V> {
+
+    private static final int GRAM_LENGTH = 3;
+
+    private final Map<String, Set<String>> postings;
+    private final Map<String, V> entries;
+
+    /**
+     * Candidate key verified against the query.
+     *
+     * @param key      The matching key.
+     * @param distance The edit distance between the key and the query.
+     * @param shared   The number of trigrams shared with the query.
+     */
+    private record Match(String key, int distance, int shared) {
+    }
+
+    /**
+     * Constructs a new instance of the TrigramIndex.
+     */
+    public TrigramIndex() {
+        this.postings = new ConcurrentHashMap<>();
+        this.entries = new ConcurrentHashMap<>();
+    }
+
+    /**
+     * Associates a value with a key, replacing the previous value of the key.
+     *
+     * @param key   The key.
+     * @param value The value.
+     */
+    public void put(String key, V value) {
+        if (entries.put(key, value) == null) {
+            for (String gram : grams(key)) {
+                postings.computeIfAbsent(gram, g -> ConcurrentHashMap.newKeySet()).add(key);
+            }
+        }
+    }
+
+    /**
+     * Removes a key from the index.
+     *
+     * @param key The key to be removed.
+     */
+    public void remove(String key) {
+        if (entries.remove(key) == null) {
+            return;
+        }
+        for (String gram : grams(key)) {
+            Set<String> keys = postings.get(gram);
+            keys.remove(key);
+            if (keys.isEmpty()) {
+                postings.remove(gram);
+            }
+        }
+    }
+
+    /**
+     * Removes all keys from the index.
+     */
+    public void clear() {
+        postings.clear();
+        entries.clear();
+    }
+
+    /**
+     * Finds the values whose keys are within an edit distance of the query.
+     * Each edit changes at most three trigrams, so keys sharing fewer trigrams with the query are skipped
+     * without computing the distance.
+     *
+     * @param query       The query, normalized like the keys.
+     * @param maxDistance The maximum edit distance of a match.
+     * @param limit       The maximum number of values to return.
+     * @return List of the values, closest match first, or empty list if nothing is close enough.
+     */
+    public List<V> search(String query, int maxDistance, int limit) {
+        Set<String> queryGrams = grams(query);
+        Map<String, Integer> shared = new HashMap<>();
+        for (String gram : queryGrams) {
+            Set<String> keys = postings.get(gram);
+            if (keys != null) {
+                for (String key : keys) {
+                    shared.merge(key, 1, Integer::sum);
+                }
+            }
+        }
+
+        int minShared = Math.max(1, queryGrams.size() - GRAM_LENGTH * maxDistance);
+        List<Match> matches = new ArrayList<>();
+        for (Map.Entry<String, Integer> candidate : shared.entrySet()) {
+            if (candidate.getValue() < minShared) {
+                continue;
+            }
+            int distance = boundedEditDistance(query, candidate.getKey(), maxDistance);
+            if (distance <= maxDistance) {
+                matches.add(new Match(candidate.getKey(), distance, candidate.getValue()));
+            }
+        }
+
+        matches.sort(Comparator.comparingInt(Match::distance)
+                .thenComparing(Comparator.comparingInt(Match::shared).reversed())
+                .thenComparing(Match::key));
+        return matches.stream()
+                .limit(Math.max(0, limit))
+                .map(match -> entries.get(match.key()))
+                .filter(Objects::nonNull)
+                .toList();
+    }
+
+    /**
+     * Splits a key into its distinct trigrams. The key is padded so that short keys and
+     * the beginning and end of a key also produce trigrams.
+     *
+     * @param key The key.
+     * @return The distinct trigrams of the key.
+     */
+    private static Set<String> grams(String key) {
+        String padded = "  " + key + " ";
+        Set<String> grams = new LinkedHashSet<>();
+        for (int i = 0; i + GRAM_LENGTH <= padded.length(); i++) {
+            grams.add(padded.substring(i, i + GRAM_LENGTH));
+        }
+        return grams;
+    }
+
+    /**
+     * Computes the Levenshtein distance between two strings, giving up once it exceeds a bound.
+     * Only the diagonal band of width 2 * bound + 1 is evaluated.
+     *
+     * @param a     The first string.
+     * @param b     The second string.
+     * @param bound The largest distance of interest.
+     * @return The edit distance, or bound + 1 if it is larger than the bound.
+     */
+    static int boundedEditDistance(String a, String b, int bound) {
+        if (Math.abs(a.length() - b.length()) > bound) {
+            return bound + 1;
+        }
+        int outside = bound + 1;
+        int[] previous = new int[b.length() + 1];
+        int[] current = new int[b.length() + 1];
+        for (int j = 0; j <= b.length(); j++) {
+            previous[j] = j <= bound ? j : outside;
+        }
+        for (int i = 1; i <= a.length(); i++) {
+            int from = Math.max(1, i - bound);
+            int to = Math.min(b.length(), i + bound);
+            current[0] = i <= bound ? i : outside;
+            if (from > 1) {
+                current[from - 1] = outside;
+            }
+            int rowMin = current[0];
+            for (int j = from; j <= to; j++) {
+                int cost = a.charAt(i - 1) == b.charAt(j - 1) ? 0 : 1;
+                int value = Math.min(previous[j - 1] + cost, Math.min(previous[j], current[j - 1]) + 1);
+                current[j] = Math.min(value, outside);
+                rowMin = Math.min(rowMin, current[j]);
+            }
+            if (to < b.length()) {
+                current[to + 1] = outside;
+            }
+            if (rowMin > bound) {
+                return outside;
+            }
+            int[] swap = previous;
+            previous = current;
+            current = swap;
+        }
+        return previous[b.length()];
+    }
+}
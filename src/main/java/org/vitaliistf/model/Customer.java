@@ -1,6 +1,7 @@
 package org.vitaliistf.model;
 
 import org.vitaliistf.model.movie.Movie;
+import org.vitaliistf.model.movie.MovieType;
 
 import java.io.Serializable;
 import java.util.List;
@@ -8,29 +9,86 @@ import java.util.List;
 /**
  * Represents a customer with rental information.
  * The customer name and a list of rentals are stored.
+ * Rentals are kept in a ledger that maintains running totals, so totals cost O(1)
+ * and rentals can be read while another thread adds a rental.
+ * Each getter reads the latest totals; use {@link #getTotals()} to read several totals that must agree.
  */
 public record Customer(String name, List<Rental> rentals) implements Serializable {
 
     /**
-     * Calculates the total amount owed by the customer for all rentals.
+     * Constructs a new instance of the Customer with its own ledger of the rentals.
+     *
+     * @param name    The name of the customer.
+     * @param rentals The initial rentals of the customer.
+     */
+    public Customer {
+        rentals = new RentalLedger(rentals);
+    }
+
+    /**
+     * Gets a snapshot of all totals of the customer, which agree with each other even if a rental is added meanwhile.
+     *
+     * @return The totals.
+     */
+    public RentalTotals getTotals() {
+        return ledger().totals();
+    }
+
+    /**
+     * Gets the total amount owed by the customer for all rentals.
      *
      * @return The total amount owed.
      */
     public double getTotalAmount() {
-        return rentals.stream()
-                .mapToDouble(Rental::calculatePrice)
-                .sum();
+        return ledger().totalAmount();
+    }
+
+    /**
+     * Gets the exact total amount owed by the customer for all rentals, in cents.
+     *
+     * @return The total amount owed in cents.
+     */
+    public long getTotalAmountCents() {
+        return ledger().totalCents();
     }
 
     /**
-     * Calculates the total frequent renter points earned by the customer for all rentals.
+     * Gets the total frequent renter points earned by the customer for all rentals.
      *
      * @return The total frequent renter points.
      */
     public int getPoints() {
-        return rentals.stream()
-                .mapToInt(Rental::calculatePoints)
-                .sum();
+        return ledger().totalPoints();
+    }
+
+    /**
+     * Gets the amount owed by the customer for rentals of one movie type.
+     *
+     * @param type The movie type.
+     * @return The amount owed for the type.
+     */
+    public double getAmount(MovieType type) {
+        return ledger().amountFor(type);
+    }
+
+    /**
+     * Gets the exact amount owed by the customer for rentals of one movie type, in cents.
+     *
+     * @param type The movie type.
+     * @return The amount owed for the type in cents.
+     */
+    public long getAmountCents(MovieType type) {
+        return ledger().centsFor(type);
+    }
+
+    /**
+     * Gets the frequent renter points earned by the customer for rentals of one movie type.
+     *
+     * @param type The movie type.
+     * @return The frequent renter points for the type.
+     */
+    public int getPoints(MovieType type) {
+        return ledger().pointsFor(type);
     }
 
     /**
@@ -43,4 +101,12 @@ public record Customer(String name, List<Rental> rentals) implements Serializabl
         rentals.add(new Rental(movie, days));
     }
 
+    /**
+     * Gets the rentals as the ledger holding their totals.
+     *
+     * @return The rental ledger.
+     */
+    private RentalLedger ledger() {
+        return (RentalLedger) rentals;
+    }
 }
@@ -15,7 +15,16 @@ public record Rental(Movie movie, int daysRented) implements Serializable {
      * @return The calculated price for the rental.
      */
     public double calculatePrice() {
-        return movie.getPriceCode().getPriceStrategy().calculatePrice(daysRented);
+        return movie.getPriceCode().calculatePrice(daysRented);
+    }
+
+    /**
+     * Calculates the exact price in cents for the rental based on the movie's price strategy and the number of days rented.
+     *
+     * @return The calculated price for the rental in cents.
+     */
+    public long calculatePriceCents() {
+        return movie.getPriceCode().calculatePriceCents(daysRented);
     }
 
     /**
@@ -24,6 +33,6 @@ public record Rental(Movie movie, int daysRented) implements Serializable {
      * @return The calculated frequent renter points.
      */
     public int calculatePoints() {
-        return movie.getPriceCode().getPriceStrategy().calculatePoints(daysRented);
+        return movie.getPriceCode().calculatePoints(daysRented);
     }
 }
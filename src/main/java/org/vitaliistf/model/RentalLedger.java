@@ -0,0 +1,314 @@
+package org.vitaliistf.model;
+
+import org.vitaliistf.model.movie.MovieType;
+
+import java.io.Serial;
+import java.io.Serializable;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Objects;
+import java.util.RandomAccess;
+
+/**
+ * List of a customer's rentals that keeps running totals of price and points, overall and per movie type.
+ * Prices are summed as whole cents, so totals are exact however many rentals are added.
+ * Totals are tagged with the pricing version they were computed under and recomputed on the first read
+ * after the price strategies of movie types are replaced.
+ * Adding a rental updates the totals in O(1), so reading them never iterates the rentals.
+ * Readers see a consistent snapshot of rentals and totals while another thread adds a rental.
+ * Rentals are appended in place to an array that grows by doubling, and a snapshot is the array together with
+ * the number of rentals it holds, so adding a rental costs amortized O(1). Earlier snapshots never read past their
+ * own size, so the slots filled by later rentals are invisible to them. Inserting, replacing or removing a rental
+ * in the middle copies the rentals and recomputes the totals.
+ */
+class RentalLedger extends AbstractList<Rental> implements RandomAccess, Serializable {
+
+    private static final MovieType[] TYPES = MovieType.values();
+    private static final int INITIAL_CAPACITY = 4;
+
+    private final transient Object lock = new Object();
+    private transient volatile State state;
+
+    /**
+     * Immutable content of the ledger.
+     *
+     * @param rentals        The array holding the rentals, possibly followed by slots of later rentals or free slots.
+     * @param size           The number of rentals.
+     * @param centsByType    The total price in cents of the rentals of each movie type, indexed by ordinal.
+     * @param pointsByType   The total points of the rentals of each movie type, indexed by ordinal.
+     * @param cents          The total price in cents of all rentals.
+     * @param points         The total points of all rentals.
+     * @param pricingVersion The pricing version the totals were computed under.
+     */
+    private record State(Rental[] rentals, int size, long[] centsByType, int[] pointsByType, long cents, int points,
+                         long pricingVersion) {
+    }
+
+    /**
+     * Constructs a new instance of the RentalLedger holding the given rentals.
+     * Initial totals are computed with one batch pricing call per movie type.
+     *
+     * @param rentals The initial rentals.
+     */
+    RentalLedger(Collection<Rental> rentals) {
+        Rental[] initial = rentals.toArray(new Rental[0]);
+        this.state = summarize(initial, initial.length);
+    }
+
+    /**
+     * Gets a snapshot of all totals, taken from one state of the ledger.
+     *
+     * @return The totals.
+     */
+    RentalTotals totals() {
+        State current = current();
+        return new RentalTotals(current.centsByType(), current.pointsByType(), current.cents(), current.points());
+    }
+
+    /**
+     * Gets the total price of all rentals.
+     *
+     * @return The total amount.
+     */
+    double totalAmount() {
+        return current().cents() / 100.0;
+    }
+
+    /**
+     * Gets the total price of all rentals in cents.
+     *
+     * @return The total amount in cents.
+     */
+    long totalCents() {
+        return current().cents();
+    }
+
+    /**
+     * Gets the total points of all rentals.
+     *
+     * @return The total points.
+     */
+    int totalPoints() {
+        return current().points();
+    }
+
+    /**
+     * Gets the total price of the rentals of one movie type.
+     *
+     * @param type The movie type.
+     * @return The total amount of the type.
+     */
+    double amountFor(MovieType type) {
+        return current().centsByType()[type.ordinal()] / 100.0;
+    }
+
+    /**
+     * Gets the total price in cents of the rentals of one movie type.
+     *
+     * @param type The movie type.
+     * @return The total amount of the type in cents.
+     */
+    long centsFor(MovieType type) {
+        return current().centsByType()[type.ordinal()];
+    }
+
+    /**
+     * Gets the total points of the rentals of one movie type.
+     *
+     * @param type The movie type.
+     * @return The total points of the type.
+     */
+    int pointsFor(MovieType type) {
+        return current().pointsByType()[type.ordinal()];
+    }
+
+    @Override
+    public Rental get(int index) {
+        State current = state;
+        return current.rentals()[Objects.checkIndex(index, current.size())];
+    }
+
+    @Override
+    public int size() {
+        return state.size();
+    }
+
+    @Override
+    public Iterator<Rental> iterator() {
+        return rentals(state).iterator();
+    }
+
+    @Override
+    public Object[] toArray() {
+        State current = state;
+        return Arrays.copyOf(current.rentals(), current.size(), Object[].class);
+    }
+
+    /**
+     * Appends a rental and adds its price and points to the running totals in amortized O(1).
+     * The rental is written to the first free slot of the shared array, which is doubled when it is full,
+     * and becomes visible when the new snapshot is published.
+     *
+     * @param rental The rental to be added.
+     * @return Always true.
+     */
+    @Override
+    public boolean add(Rental rental) {
+        synchronized (lock) {
+            State current = current();
+            int size = current.size();
+            Rental[] rentals = current.rentals();
+            if (size == rentals.length) {
+                rentals = Arrays.copyOf(rentals, Math.max(INITIAL_CAPACITY, size * 2));
+            }
+            rentals[size] = rental;
+
+            int type = rental.movie().getPriceCode().ordinal();
+            long price = rental.calculatePriceCents();
+            int points = rental.calculatePoints();
+            long[] centsByType = current.centsByType().clone();
+            int[] pointsByType = current.pointsByType().clone();
+            centsByType[type] += price;
+            pointsByType[type] += points;
+
+            state = new State(rentals, size + 1, centsByType, pointsByType, current.cents() + price,
+                    current.points() + points, current.pricingVersion());
+            modCount++;
+            return true;
+        }
+    }
+
+    @Override
+    public void add(int index, Rental rental) {
+        synchronized (lock) {
+            if (index == size()) {
+                add(rental);
+                return;
+            }
+            List<Rental> rentals = new ArrayList<>(rentals(state));
+            rentals.add(index, rental);
+            state = summarize(rentals.toArray(new Rental[0]), rentals.size());
+            modCount++;
+        }
+    }
+
+    @Override
+    public Rental set(int index, Rental rental) {
+        synchronized (lock) {
+            State current = state;
+            Rental[] rentals = Arrays.copyOf(current.rentals(), current.size());
+            Rental previous = rentals[Objects.checkIndex(index, rentals.length)];
+            rentals[index] = rental;
+            state = summarize(rentals, rentals.length);
+            return previous;
+        }
+    }
+
+    @Override
+    public Rental remove(int index) {
+        synchronized (lock) {
+            List<Rental> rentals = new ArrayList<>(rentals(state));
+            Rental removed = rentals.remove(index);
+            state = summarize(rentals.toArray(new Rental[0]), rentals.size());
+            modCount++;
+            return removed;
+        }
+    }
+
+    @Override
+    public void clear() {
+        synchronized (lock) {
+            state = summarize(new Rental[0], 0);
+            modCount++;
+        }
+    }
+
+    /**
+     * Gets the current state, recomputing the totals first if the price strategies were replaced since.
+     *
+     * @return The state with up-to-date totals.
+     */
+    private State current() {
+        State current = state;
+        if (current.pricingVersion() != MovieType.pricingVersion()) {
+            synchronized (lock) {
+                current = state;
+                if (current.pricingVersion() != MovieType.pricingVersion()) {
+                    current = summarize(current.rentals(), current.size());
+                    state = current;
+                }
+            }
+        }
+        return current;
+    }
+
+    /**
+     * Computes the totals of rentals from scratch, grouped by movie type.
+     * Rental lengths of each type are gathered into one array and priced with a single batch call,
+     * so the price strategy is dispatched once per type instead of once per rental.
+     *
+     * @param rentals The array holding the rentals.
+     * @param size    The number of rentals.
+     * @return The state holding the rentals and their totals.
+     */
+    private static State summarize(Rental[] rentals, int size) {
+        long pricingVersion = MovieType.pricingVersion();
+        int[] counts = new int[TYPES.length];
+        for (int i = 0; i < size; i++) {
+            counts[rentals[i].movie().getPriceCode().ordinal()]++;
+        }
+
+        int[][] days = new int[TYPES.length][];
+        for (int type = 0; type < TYPES.length; type++) {
+            days[type] = new int[counts[type]];
+            counts[type] = 0;
+        }
+        for (int i = 0; i < size; i++) {
+            int type = rentals[i].movie().getPriceCode().ordinal();
+            days[type][counts[type]++] = rentals[i].daysRented();
+        }
+
+        long[] centsByType = new long[TYPES.length];
+        int[] pointsByType = new int[TYPES.length];
+        long cents = 0;
+        int points = 0;
+        for (int type = 0; type < TYPES.length; type++) {
+            int typeSize = days[type].length;
+            long[] prices = new long[typeSize];
+            int[] rentalPoints = new int[typeSize];
+            TYPES[type].getPriceStrategy().calculateAllCents(days[type], prices, rentalPoints);
+            for (int i = 0; i < typeSize; i++) {
+                centsByType[type] += prices[i];
+                pointsByType[type] += rentalPoints[i];
+            }
+            cents += centsByType[type];
+            points += pointsByType[type];
+        }
+        return new State(rentals, size, centsByType, pointsByType, cents, points, pricingVersion);
+    }
+
+    /**
+     * Gets the rentals of a snapshot.
+     *
+     * @param state The snapshot.
+     * @return Fixed-size view of the rentals, backed by the shared array.
+     */
+    private static List<Rental> rentals(State state) {
+        return Arrays.asList(state.rentals()).subList(0, state.size());
+    }
+
+    /**
+     * Serializes the ledger as a plain list, so the stored form does not depend on this class.
+     * Totals are recomputed when the owning customer is deserialized.
+     *
+     * @return A serializable copy of the rentals.
+     */
+    @Serial
+    private Object writeReplace() {
+        return new ArrayList<>(rentals(state));
+    }
+}
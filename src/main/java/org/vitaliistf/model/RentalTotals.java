@@ -0,0 +1,69 @@
+package org.vitaliistf.model;
+
+import org.vitaliistf.model.movie.MovieType;
+
+/**
+ * Snapshot of the totals of a customer's rentals, overall and per movie type.
+ * All totals of a snapshot were computed from the same rentals under the same pricing,
+ * so they add up even if a rental is added while they are read.
+ */
+public final class RentalTotals {
+
+    private final long[] centsByType;
+    private final int[] pointsByType;
+    private final long cents;
+    private final int points;
+
+    /**
+     * Constructs a new instance of the RentalTotals. The arrays are shared, not copied, and must never change.
+     *
+     * @param centsByType  The total price in cents of the rentals of each movie type, indexed by ordinal.
+     * @param pointsByType The total points of the rentals of each movie type, indexed by ordinal.
+     * @param cents        The total price in cents of all rentals.
+     * @param points       The total points of all rentals.
+     */
+    RentalTotals(long[] centsByType, int[] pointsByType, long cents, int points) {
+        this.centsByType = centsByType;
+        this.pointsByType = pointsByType;
+        this.cents = cents;
+        this.points = points;
+    }
+
+    /**
+     * Gets the total price of all rentals in cents.
+     *
+     * @return The total amount in cents.
+     */
+    public long getTotalAmountCents() {
+        return cents;
+    }
+
+    /**
+     * Gets the total points of all rentals.
+     *
+     * @return The total points.
+     */
+    public int getPoints() {
+        return points;
+    }
+
+    /**
+     * Gets the total price in cents of the rentals of one movie type.
+     *
+     * @param type The movie type.
+     * @return The total amount of the type in cents.
+     */
+    public long getAmountCents(MovieType type) {
+        return centsByType[type.ordinal()];
+    }
+
+    /**
+     * Gets the total points of the rentals of one movie type.
+     *
+     * @param type The movie type.
+     * @return The total points of the type.
+     */
+    public int getPoints(MovieType type) {
+        return pointsByType[type.ordinal()];
+    }
+}
@@ -6,6 +6,8 @@ import java.util.Objects;
 
 /**
  * Represents a movie with details such as title, price code, country of origin, description, director, and actors.
+ * Subclasses may supply the details on access instead of holding them, e.g. views over a stored catalog;
+ * equality, hashing and the string form go through the getters, so such views behave like any other movie.
  */
 public class Movie implements Serializable {
     private final String title;
@@ -29,6 +31,19 @@ public class Movie implements Serializable {
         this.actors = builder.actors;
     }
 
+    /**
+     * Constructor for subclasses that supply the movie details by overriding all getters.
+     * The fields of this class stay empty.
+     */
+    protected Movie() {
+        this.title = null;
+        this.priceCode = null;
+        this.countryOfOrigin = null;
+        this.description = null;
+        this.director = null;
+        this.actors = null;
+    }
+
     /**
      * Get the price code of the movie.
      *
@@ -90,30 +105,29 @@ public class Movie implements Serializable {
      */
     @Override
     public String toString() {
-        return "\n" + "Title: " + title + "\n" +
-                "Director: " + director + "\n" +
-                "Price Code: " + priceCode + "\n" +
-                "Country of Origin: " + countryOfOrigin + "\n" +
-                "Description: " + description + "\n" +
-                "Actors: " + String.join(", ", actors) + "\n";
+        return "\n" + "Title: " + getTitle() + "\n" +
+                "Director: " + getDirector() + "\n" +
+                "Price Code: " + getPriceCode() + "\n" +
+                "Country of Origin: " + getCountryOfOrigin() + "\n" +
+                "Description: " + getDescription() + "\n" +
+                "Actors: " + String.join(", ", getActors()) + "\n";
     }
 
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
-        if (o == null || getClass() != o.getClass()) return false;
-        Movie movie = (Movie) o;
-        return Objects.equals(title, movie.title) &&
-                priceCode == movie.priceCode &&
-                Objects.equals(countryOfOrigin, movie.countryOfOrigin) &&
-                Objects.equals(description, movie.description) &&
-                Objects.equals(director, movie.director) &&
-                Objects.equals(actors, movie.actors);
+        if (!(o instanceof Movie movie)) return false;
+        return Objects.equals(getTitle(), movie.getTitle()) &&
+                getPriceCode() == movie.getPriceCode() &&
+                Objects.equals(getCountryOfOrigin(), movie.getCountryOfOrigin()) &&
+                Objects.equals(getDescription(), movie.getDescription()) &&
+                Objects.equals(getDirector(), movie.getDirector()) &&
+                Objects.equals(getActors(), movie.getActors());
     }
 
     @Override
     public int hashCode() {
-        return Objects.hash(title, priceCode, countryOfOrigin, description, director, actors);
+        return Objects.hash(getTitle(), getPriceCode(), getCountryOfOrigin(), getDescription(), getDirector(), getActors());
     }
 
     /**
@@ -2,8 +2,15 @@ package org.vitaliistf.model.movie;
 
 import org.vitaliistf.strategy.*;
 
+import java.util.Map;
+import java.util.Objects;
+
 /**
  * Enumeration representing different types of movies along with their corresponding price strategies.
+ * The strategies of all types are published together as one immutable snapshot, so they can be replaced
+ * at runtime while rentals are being priced, without locking the readers.
+ * Each snapshot also holds a {@link PricingTable} of all types, which prices rentals by ordinal without
+ * dispatching through the strategy objects.
  */
 public enum MovieType {
     REGULAR(new RegularPriceStrategy()),
@@ -13,23 +20,124 @@ public enum MovieType {
     COMEDY(new ComedyPriceStrategy()),
     THRILLER(new ThrillerPriceStrategy());
 
-    private final PriceStrategy priceStrategy;
+    private static volatile Pricing pricing = Pricing.of(defaultStrategies(), 0);
+
+    private final PriceStrategy defaultPriceStrategy;
+
+    /**
+     * Immutable snapshot of the strategies of all movie types.
+     *
+     * @param strategies The strategies, indexed by ordinal.
+     * @param table      The precomputed prices and points of the strategies, one row per ordinal.
+     * @param version    The number of times the strategies were replaced.
+     */
+    private record Pricing(PriceStrategy[] strategies, PricingTable table, long version) {
+
+        /**
+         * Creates a snapshot of the strategies with their table.
+         *
+         * @param strategies The strategies, indexed by ordinal.
+         * @param version    The number of times the strategies were replaced.
+         * @return The snapshot.
+         */
+        private static Pricing of(PriceStrategy[] strategies, long version) {
+            return new Pricing(strategies, new PricingTable(strategies), version);
+        }
+    }
 
     /**
      * Constructor for MovieType enum.
+     * Prices and points of typical rental lengths are precomputed once, when the enum is initialized.
      *
      * @param priceStrategy The PriceStrategy associated with the movie type.
      */
     MovieType(PriceStrategy priceStrategy) {
-        this.priceStrategy = priceStrategy;
+        this.defaultPriceStrategy = new TabulatedPriceStrategy(priceStrategy);
     }
 
     /**
      * Get the PriceStrategy associated with the movie type.
+     * The strategy is backed by precomputed tables and gives the same results as the underlying strategy.
      *
      * @return The PriceStrategy instance.
      */
     public PriceStrategy getPriceStrategy() {
-        return priceStrategy;
+        return pricing.strategies()[ordinal()];
+    }
+
+    /**
+     * Calculates the rental price of a movie of this type, giving the same result as its strategy.
+     * This is the fast path used to price rentals: a table lookup by ordinal with no interface call.
+     *
+     * @param daysRented The number of days the movie is rented for.
+     * @return The calculated rental price.
+     */
+    public double calculatePrice(int daysRented) {
+        return pricing.table().price(ordinal(), daysRented);
+    }
+
+    /**
+     * Calculates the exact rental price in cents of a movie of this type, giving the same result as its strategy.
+     *
+     * @param daysRented The number of days the movie is rented for.
+     * @return The calculated rental price in cents.
+     */
+    public long calculatePriceCents(int daysRented) {
+        return pricing.table().priceCents(ordinal(), daysRented);
+    }
+
+    /**
+     * Calculates the rental points of a movie of this type, giving the same result as its strategy.
+     *
+     * @param daysRented The number of days the movie is rented for.
+     * @return The calculated rental points.
+     */
+    public int calculatePoints(int daysRented) {
+        return pricing.table().points(ordinal(), daysRented);
+    }
+
+    /**
+     * Replaces the price strategies of movie types in one step.
+     * Readers see either all old or all new strategies. Types missing from the map keep their current strategy.
+     * The strategies are used as given, so they should be precomputed, e.g. by {@link PricingRule#compile()}.
+     *
+     * @param strategies The new strategies by movie type.
+     */
+    public static synchronized void setPriceStrategies(Map<MovieType, ? extends PriceStrategy> strategies) {
+        Pricing current = pricing;
+        PriceStrategy[] updated = current.strategies().clone();
+        strategies.forEach((type, strategy) -> updated[type.ordinal()] = Objects.requireNonNull(strategy));
+        pricing = Pricing.of(updated, current.version() + 1);
+    }
+
+    /**
+     * Restores the built-in price strategies of all movie types.
+     */
+    public static synchronized void resetPriceStrategies() {
+        pricing = Pricing.of(defaultStrategies(), pricing.version() + 1);
+    }
+
+    /**
+     * Gets the version of the price strategies, which changes every time they are replaced.
+     * Totals computed under an older version are stale.
+     *
+     * @return The pricing version.
+     */
+    public static long pricingVersion() {
+        return pricing.version();
+    }
+
+    /**
+     * Collects the built-in price strategies of all movie types.
+     *
+     * @return The strategies, indexed by ordinal.
+     */
+    private static PriceStrategy[] defaultStrategies() {
+        MovieType[] types = values();
+        PriceStrategy[] strategies = new PriceStrategy[types.length];
+        for (MovieType type : types) {
+            strategies[type.ordinal()] = type.defaultPriceStrategy;
+        }
+        return strategies;
     }
 }
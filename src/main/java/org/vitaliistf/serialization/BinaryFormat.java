@@ -0,0 +1,234 @@
+package org.vitaliistf.serialization;
+
+import org.vitaliistf.model.Customer;
+import org.vitaliistf.model.Rental;
+import org.vitaliistf.model.movie.Movie;
+import org.vitaliistf.model.movie.MovieType;
+
+import java.io.IOException;
+import java.io.StreamCorruptedException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.LongFunction;
+import java.util.function.ToLongFunction;
+
+/**
+ * Layout of the binary storage format.
+ * A file starts with a header of the magic number, the format version and the kind of records,
+ * followed by the number of records and the records themselves.
+ * Strings go through the dictionary of the writer, so repeated directors, countries, actors and types take
+ * one or two bytes each. Movie types are stored by name, so reordering the enum does not break old files.
+ * <p>
+ * Since version 2 every catalog movie is preceded by its id, and a customer's rental holds the id of a catalog
+ * movie instead of a copy of the movie; only rentals of movies outside the catalog, with id 0, embed the movie.
+ * <p>
+ * Since version 3 catalog files and snapshots start with a header area of fixed size, holding the header and,
+ * for snapshots, the generation and the offset of the customer list. The catalog follows in the layout of
+ * {@link MappedCatalog}, which is mapped into memory rather than read, and the customer list of a snapshot after it.
+ * <p>
+ * Since version 4 a customer list, in customers files and snapshots alike, is not preceded by its length but runs to
+ * the end of the file, one record per customer, framed by its length and CRC-32 and encoded with a dictionary
+ * of its own. Customers are thus written and read one at a time, and a damaged record loses only its customer;
+ * see {@link CustomerSpliterator}.
+ * <p>
+ * Since version 5 movie catalogs carry an identity: catalog files and snapshots store it in the header area,
+ * and customers files store after the header the {@link CatalogStamp} of the catalog their movie ids refer to,
+ * as the catalog identity and the last movie id it handed out.
+ * <p>
+ * Since version 6 a customer record opens with a marker, and its length and CRC-32 are covered by a checksum
+ * of their own, so a damaged length is detected rather than trusted, and reading resumes at the next marker.
+ * Files of versions 1 to 5 are still read.
+ * <p>
+ * A snapshot file holds the catalog and the customer list together, so both are replaced at once, and a journal
+ * file holds records of single changes, described in {@link Journal}.
+ */
+final class BinaryFormat {
+
+    /**
+     * Magic number opening every file, "PTDM" in ASCII.
+     */
+    static final int MAGIC = 0x5054444D;
+
+    /**
+     * Current version of the format.
+     */
+    static final int VERSION = 6;
+
+    /**
+     * Size of the header area at the start of files holding a mapped catalog, where the catalog starts.
+     */
+    static final int HEADER_AREA_SIZE = 64;
+
+    /**
+     * Kind of a file holding the movie catalog.
+     */
+    static final int CATALOG = 1;
+
+    /**
+     * Kind of a file holding the customer list.
+     */
+    static final int CUSTOMERS = 2;
+
+    /**
+     * Kind of a file holding a snapshot of the movie catalog and the customer list.
+     */
+    static final int SNAPSHOT = 3;
+
+    /**
+     * Kind of a file holding a segment of the journal of changes.
+     */
+    static final int JOURNAL = 4;
+
+    /**
+     * Private constructor to prevent instantiation of the utility class.
+     */
+    private BinaryFormat() {
+    }
+
+    /**
+     * Writes the file header.
+     *
+     * @param writer The writer.
+     * @param kind   The kind of records in the file.
+     * @throws IOException If the header cannot be written.
+     */
+    static void writeHeader(BinaryWriter writer, int kind) throws IOException {
+        writer.writeInt(MAGIC);
+        writer.writeVarint(VERSION);
+        writer.writeVarint(kind);
+    }
+
+    /**
+     * Reads and checks the file header.
+     *
+     * @param reader The reader.
+     * @param kind   The kind of records expected in the file.
+     * @return The version of the file.
+     * @throws IOException If the header cannot be read, or it is not a supported file of the expected kind.
+     */
+    static int readHeader(BinaryReader reader, int kind) throws IOException {
+        if (reader.readInt() != MAGIC) {
+            throw new StreamCorruptedException("Not a data file");
+        }
+        long version = reader.readVarint();
+        if (version < 1 || version > VERSION) {
+            throw new StreamCorruptedException("Unsupported data file version: " + version);
+        }
+        long actualKind = reader.readVarint();
+        if (actualKind != kind) {
+            throw new StreamCorruptedException("Unexpected data file kind: " + actualKind);
+        }
+        return (int) version;
+    }
+
+    /**
+     * Writes a movie.
+     *
+     * @param writer The writer.
+     * @param movie  The movie.
+     * @throws IOException If the movie cannot be written.
+     */
+    static void writeMovie(BinaryWriter writer, Movie movie) throws IOException {
+        writer.writeString(movie.getTitle());
+        writer.writeString(movie.getPriceCode() == null ? null : movie.getPriceCode().name());
+        writer.writeString(movie.getCountryOfOrigin());
+        writer.writeString(movie.getDescription());
+        writer.writeString(movie.getDirector());
+        List<String> actors = movie.getActors();
+        if (actors == null) {
+            writer.writeVarint(0);
+            return;
+        }
+        writer.writeVarint(actors.size() + 1L);
+        for (String actor : actors) {
+            writer.writeString(actor);
+        }
+    }
+
+    /**
+     * Reads a movie.
+     *
+     * @param reader The reader.
+     * @return The movie.
+     * @throws IOException If the movie cannot be read or names an unknown movie type.
+     */
+    static Movie readMovie(BinaryReader reader) throws IOException {
+        String title = reader.readString();
+        String type = reader.readString();
+        Movie.Builder builder = new Movie.Builder(title, type == null ? null : movieType(type))
+                .countryOfOrigin(reader.readString())
+                .description(reader.readString())
+                .director(reader.readString());
+        int actorCount = reader.readCount();
+        if (actorCount > 0) {
+            List<String> actors = new ArrayList<>(actorCount - 1);
+            for (int i = 1; i < actorCount; i++) {
+                actors.add(reader.readString());
+            }
+            builder.actors(actors);
+        }
+        return builder.build();
+    }
+
+    /**
+     * Writes a customer with the rentals, referring to catalog movies by id.
+     *
+     * @param writer   The writer.
+     * @param customer The customer.
+     * @param movieIds Gives the catalog id of a rented movie, or 0 if it is not in the catalog.
+     * @throws IOException If the customer cannot be written.
+     */
+    static void writeCustomer(BinaryWriter writer, Customer customer, ToLongFunction<Movie> movieIds)
+            throws IOException {
+        writer.writeString(customer.name());
+        Rental[] rentals = customer.rentals().toArray(new Rental[0]);
+        writer.writeVarint(rentals.length);
+        for (Rental rental : rentals) {
+            long id = movieIds.applyAsLong(rental.movie());
+            writer.writeVarint(id);
+            if (id == 0) {
+                writeMovie(writer, rental.movie());
+            }
+            writer.writeSignedVarint(rental.daysRented());
+        }
+    }
+
+    /**
+     * Reads a customer with the rentals, resolving movie ids against the catalog.
+     *
+     * @param reader  The reader.
+     * @param version The version of the file.
+     * @param movies  Gives the catalog movie with an id, or null if there is none.
+     * @return The customer.
+     * @throws IOException If the customer cannot be read or refers to a movie missing from the catalog.
+     */
+    static Customer readCustomer(BinaryReader reader, int version, LongFunction<Movie> movies) throws IOException {
+        String name = reader.readString();
+        int rentalCount = reader.readCount();
+        List<Rental> rentals = new ArrayList<>(Math.min(rentalCount, 1024));
+        for (int i = 0; i < rentalCount; i++) {
+            long id = version < 2 ? 0 : reader.readVarint();
+            Movie movie = id == 0 ? readMovie(reader) : movies.apply(id);
+            if (movie == null) {
+                throw new StreamCorruptedException("Rental of " + name + " refers to unknown movie id " + id);
+            }
+            rentals.add(new Rental(movie, (int) reader.readSignedVarint()));
+        }
+        return new Customer(name, rentals);
+    }
+
+    /**
+     * Resolves a stored movie type name.
+     *
+     * @param name The name.
+     * @return The movie type.
+     * @throws StreamCorruptedException If there is no movie type with the name.
+     */
+    private static MovieType movieType(String name) throws StreamCorruptedException {
+        try {
+            return MovieType.valueOf(name);
+        } catch (IllegalArgumentException e) {
+            throw new StreamCorruptedException("Unknown movie type: " + name);
+        }
+    }
+}
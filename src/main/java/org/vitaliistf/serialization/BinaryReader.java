@@ -0,0 +1,238 @@
+package org.vitaliistf.serialization;
+
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.StreamCorruptedException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Reads primitive values of the binary storage format from a channel through a buffer.
+ * It mirrors {@link BinaryWriter}, including the dictionary of strings read so far.
+ */
+final class BinaryReader implements Closeable {
+
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    private final ReadableByteChannel channel;
+    private final ByteBuffer buffer;
+    private final List<String> dictionary;
+
+    /**
+     * Constructs a new instance of the BinaryReader.
+     *
+     * @param channel The channel to read from; closed with the reader.
+     */
+    BinaryReader(ReadableByteChannel channel) {
+        this(channel, BUFFER_SIZE);
+    }
+
+    /**
+     * Constructs a new instance of the BinaryReader with a buffer of a given size, e.g. a small one for short records.
+     *
+     * @param channel    The channel to read from; closed with the reader.
+     * @param bufferSize The size of the buffer, at least 16 bytes.
+     */
+    BinaryReader(ReadableByteChannel channel, int bufferSize) {
+        this.channel = channel;
+        this.buffer = ByteBuffer.allocate(bufferSize).flip();
+        this.dictionary = new ArrayList<>();
+    }
+
+    /**
+     * Constructs a new instance of the BinaryReader reading data already in memory, e.g. a single record.
+     *
+     * @param data The data, read from its position to its limit; the reader takes it over.
+     */
+    BinaryReader(ByteBuffer data) {
+        this.channel = null;
+        this.buffer = data;
+        this.dictionary = new ArrayList<>();
+    }
+
+    /**
+     * Reads a single byte.
+     *
+     * @return The byte, from 0 to 255.
+     * @throws IOException If the channel cannot be read or ends.
+     */
+    int readByte() throws IOException {
+        require(1);
+        return buffer.get() & 0xFF;
+    }
+
+    /**
+     * Reads a 32-bit integer in big-endian order.
+     *
+     * @return The integer.
+     * @throws IOException If the channel cannot be read or ends.
+     */
+    int readInt() throws IOException {
+        require(Integer.BYTES);
+        return buffer.getInt();
+    }
+
+    /**
+     * Reads an unsigned varint.
+     *
+     * @return The integer.
+     * @throws IOException If the channel cannot be read or ends, or the varint is longer than 64 bits.
+     */
+    long readVarint() throws IOException {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            int b = readByte();
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new StreamCorruptedException("Malformed varint");
+    }
+
+    /**
+     * Reads an unsigned varint that must fit a non-negative int, such as a count or a length.
+     *
+     * @return The integer.
+     * @throws IOException If the channel cannot be read or ends, or the value does not fit.
+     */
+    int readCount() throws IOException {
+        long value = readVarint();
+        if (value < 0 || value > Integer.MAX_VALUE) {
+            throw new StreamCorruptedException("Count out of range: " + value);
+        }
+        return (int) value;
+    }
+
+    /**
+     * Reads a zigzag varint.
+     *
+     * @return The signed integer.
+     * @throws IOException If the channel cannot be read or ends.
+     */
+    long readSignedVarint() throws IOException {
+        long value = readVarint();
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    /**
+     * Reads a string or a reference to a string read before.
+     *
+     * @return The string, or null.
+     * @throws IOException If the channel cannot be read or ends, or the reference is unknown.
+     */
+    String readString() throws IOException {
+        long reference = readVarint();
+        if (reference == 0) {
+            return null;
+        }
+        if (reference > 1) {
+            if (reference - 2 >= dictionary.size()) {
+                throw new StreamCorruptedException("Unknown string reference: " + reference);
+            }
+            return dictionary.get((int) (reference - 2));
+        }
+        int length = readCount();
+        String value;
+        if (length <= buffer.capacity()) {
+            require(length);
+            value = new String(buffer.array(), buffer.arrayOffset() + buffer.position(), length, StandardCharsets.UTF_8);
+            buffer.position(buffer.position() + length);
+        } else {
+            value = new String(readBytes(length), StandardCharsets.UTF_8);
+        }
+        dictionary.add(value);
+        return value;
+    }
+
+    /**
+     * Reads raw bytes.
+     *
+     * @param length The number of bytes.
+     * @return The bytes.
+     * @throws IOException If the channel cannot be read or ends.
+     */
+    byte[] readBytes(int length) throws IOException {
+        byte[] bytes = new byte[length];
+        int offset = 0;
+        while (offset < length) {
+            if (!buffer.hasRemaining()) {
+                fill(1);
+            }
+            int chunk = Math.min(buffer.remaining(), length - offset);
+            buffer.get(bytes, offset, chunk);
+            offset += chunk;
+        }
+        return bytes;
+    }
+
+    /**
+     * Checks whether all data was read, waiting for more data from the channel if none is buffered.
+     *
+     * @return true if the channel ended and no buffered bytes are left.
+     * @throws IOException If the channel cannot be read.
+     */
+    boolean atEnd() throws IOException {
+        if (buffer.hasRemaining()) {
+            return false;
+        }
+        buffer.clear();
+        try {
+            while (buffer.position() == 0) {
+                if (channel == null || channel.read(buffer) < 0) {
+                    return true;
+                }
+            }
+            return false;
+        } finally {
+            buffer.flip();
+        }
+    }
+
+    /**
+     * Closes the channel.
+     *
+     * @throws IOException If the channel cannot be closed.
+     */
+    @Override
+    public void close() throws IOException {
+        if (channel != null) {
+            channel.close();
+        }
+    }
+
+    /**
+     * Makes sure the buffer holds a number of unread bytes.
+     *
+     * @param bytes The number of bytes, at most the buffer size.
+     * @throws IOException If the channel cannot be read or ends.
+     */
+    private void require(int bytes) throws IOException {
+        if (buffer.remaining() < bytes) {
+            fill(bytes);
+        }
+    }
+
+    /**
+     * Moves the unread bytes to the start of the buffer and reads from the channel until enough are buffered.
+     *
+     * @param bytes The number of unread bytes needed.
+     * @throws IOException If the channel cannot be read or ends.
+     */
+    private void fill(int bytes) throws IOException {
+        buffer.compact();
+        try {
+            while (buffer.position() < bytes) {
+                if (channel == null || channel.read(buffer) < 0) {
+                    throw new EOFException("Unexpected end of data");
+                }
+            }
+        } finally {
+            buffer.flip();
+        }
+    }
+}
@@ -0,0 +1,188 @@
+package org.vitaliistf.serialization;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Writes primitive values of the binary storage format to a channel through a buffer.
+ * Integers are written as varints, strings as length-prefixed UTF-8, and a string written before
+ * is replaced by its index in a dictionary the reader builds up in the same order.
+ */
+final class BinaryWriter implements Closeable {
+
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    private final WritableByteChannel channel;
+    private final ByteBuffer buffer;
+    private final Map<String, Integer> dictionary;
+
+    /**
+     * Constructs a new instance of the BinaryWriter.
+     *
+     * @param channel The channel to write to; closed with the writer.
+     */
+    BinaryWriter(WritableByteChannel channel) {
+        this(channel, BUFFER_SIZE);
+    }
+
+    /**
+     * Constructs a new instance of the BinaryWriter with a buffer of a given size, e.g. a small one for short records.
+     *
+     * @param channel    The channel to write to; closed with the writer.
+     * @param bufferSize The size of the buffer, at least 16 bytes.
+     */
+    BinaryWriter(WritableByteChannel channel, int bufferSize) {
+        this.channel = channel;
+        this.buffer = ByteBuffer.allocate(bufferSize);
+        this.dictionary = new HashMap<>();
+    }
+
+    /**
+     * Writes a single byte.
+     *
+     * @param value The byte, in the low 8 bits.
+     * @throws IOException If the channel cannot be written.
+     */
+    void writeByte(int value) throws IOException {
+        ensure(1);
+        buffer.put((byte) value);
+    }
+
+    /**
+     * Writes a 32-bit integer in big-endian order.
+     *
+     * @param value The integer.
+     * @throws IOException If the channel cannot be written.
+     */
+    void writeInt(int value) throws IOException {
+        ensure(Integer.BYTES);
+        buffer.putInt(value);
+    }
+
+    /**
+     * Writes a non-negative integer as an unsigned varint of 7 bits per byte.
+     *
+     * @param value The integer, treated as unsigned.
+     * @throws IOException If the channel cannot be written.
+     */
+    void writeVarint(long value) throws IOException {
+        ensure(10);
+        while ((value & ~0x7FL) != 0) {
+            buffer.put((byte) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        buffer.put((byte) value);
+    }
+
+    /**
+     * Writes a signed integer as a zigzag varint, so small negative values stay short.
+     *
+     * @param value The integer.
+     * @throws IOException If the channel cannot be written.
+     */
+    void writeSignedVarint(long value) throws IOException {
+        writeVarint((value << 1) ^ (value >> 63));
+    }
+
+    /**
+     * Writes a string, or a reference to it if it was written before.
+     * The reference is a varint: 0 for null, 1 for a new string followed by its length-prefixed UTF-8 bytes,
+     * and the dictionary index plus 2 for a repeated string.
+     *
+     * @param value The string, or null.
+     * @throws IOException If the channel cannot be written.
+     */
+    void writeString(String value) throws IOException {
+        if (value == null) {
+            writeVarint(0);
+            return;
+        }
+        Integer index = dictionary.get(value);
+        if (index != null) {
+            writeVarint(index + 2L);
+            return;
+        }
+        dictionary.put(value, dictionary.size());
+        writeVarint(1);
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        writeVarint(bytes.length);
+        writeBytes(bytes);
+    }
+
+    /**
+     * Forgets the strings written so far, so the data written next can be read by a new reader,
+     * e.g. one record at a time.
+     */
+    void clearDictionary() {
+        dictionary.clear();
+    }
+
+    /**
+     * Writes raw bytes.
+     *
+     * @param bytes The bytes.
+     * @throws IOException If the channel cannot be written.
+     */
+    void writeBytes(byte[] bytes) throws IOException {
+        int offset = 0;
+        while (offset < bytes.length) {
+            if (!buffer.hasRemaining()) {
+                drain();
+            }
+            int length = Math.min(buffer.remaining(), bytes.length - offset);
+            buffer.put(bytes, offset, length);
+            offset += length;
+        }
+    }
+
+    /**
+     * Writes the buffered bytes to the channel.
+     *
+     * @throws IOException If the channel cannot be written.
+     */
+    void flush() throws IOException {
+        drain();
+    }
+
+    /**
+     * Flushes the buffered bytes and closes the channel.
+     *
+     * @throws IOException If the channel cannot be written or closed.
+     */
+    @Override
+    public void close() throws IOException {
+        try (channel) {
+            flush();
+        }
+    }
+
+    /**
+     * Makes room in the buffer for a number of bytes.
+     *
+     * @param bytes The number of bytes, at most the buffer size.
+     * @throws IOException If the channel cannot be written.
+     */
+    private void ensure(int bytes) throws IOException {
+        if (buffer.remaining() < bytes) {
+            drain();
+        }
+    }
+
+    /**
+     * Writes the buffered bytes to the channel and empties the buffer.
+     *
+     * @throws IOException If the channel cannot be written.
+     */
+    private void drain() throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+}
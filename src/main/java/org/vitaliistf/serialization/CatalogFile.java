@@ -0,0 +1,13 @@
+package org.vitaliistf.serialization;
+
+import org.vitaliistf.collection.PersistentSequence;
+import org.vitaliistf.model.movie.Movie;
+
+/**
+ * Represents a movie catalog loaded from a catalog file, with the identity it was saved under.
+ *
+ * @param catalogId    The identity of the catalog, or 0 if the file was saved without one.
+ * @param movieCatalog The movie catalog, with the ids of the movies as sequence numbers.
+ */
+public record CatalogFile(long catalogId, PersistentSequence<Movie> movieCatalog) {
+}
@@ -0,0 +1,25 @@
+package org.vitaliistf.serialization;
+
+import java.io.IOException;
+import java.io.Serial;
+
+/**
+ * Thrown when a customers file refers to movies by id of another movie catalog than the one it is loaded against.
+ */
+public class CatalogMismatchException extends IOException {
+
+    @Serial
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * Constructs a new instance of the CatalogMismatchException.
+     *
+     * @param saved    The stamp of the catalog the file was saved against.
+     * @param expected The stamp of the catalog the file is loaded against.
+     */
+    public CatalogMismatchException(CatalogStamp saved, CatalogStamp expected) {
+        super("Customers file was saved against catalog " + Long.toHexString(saved.catalogId())
+                + " up to movie id " + saved.lastId() + ", not against catalog "
+                + Long.toHexString(expected.catalogId()) + " up to movie id " + expected.lastId());
+    }
+}
@@ -0,0 +1,28 @@
+package org.vitaliistf.serialization;
+
+/**
+ * Identifies the movie catalog that the movie ids of a customers file refer to.
+ * A customers file is stamped with the catalog it was saved against, and its ids are only resolved
+ * against the same catalog, holding at least the ids handed out when the file was saved.
+ *
+ * @param catalogId The identity of the catalog, kept when the catalog is saved and loaded, or 0 if it is unknown.
+ * @param lastId    The last movie id handed out by the catalog.
+ */
+public record CatalogStamp(long catalogId, long lastId) {
+
+    /**
+     * Stamp of files that refer to no catalog, storing every rented movie in full.
+     */
+    public static final CatalogStamp NONE = new CatalogStamp(0, 0);
+
+    /**
+     * Checks whether the movie ids of a file stamped with another stamp can be resolved against this catalog.
+     * Files saved before stamps were written, or without a known catalog, are accepted.
+     *
+     * @param saved The stamp of the file.
+     * @return true if the file was saved against this catalog, no later than its current state.
+     */
+    boolean resolves(CatalogStamp saved) {
+        return saved.catalogId() == 0 || saved.catalogId() == catalogId && saved.lastId() <= lastId;
+    }
+}
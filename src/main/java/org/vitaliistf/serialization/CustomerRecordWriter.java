@@ -0,0 +1,90 @@
+package org.vitaliistf.serialization;
+
+import org.vitaliistf.model.Customer;
+import org.vitaliistf.model.movie.Movie;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.util.function.ToLongFunction;
+import java.util.zip.CRC32;
+
+/**
+ * Writes customers as self-contained records, each encoded with a dictionary of its own, so they can be read back
+ * one at a time by a {@link CustomerSpliterator}. Only one record is held in memory at a time.
+ * <p>
+ * A record is framed by a header of the record marker, the length of the payload, the CRC-32 of the payload and
+ * the CRC-32 of the length and the payload checksum. A reader trusts a length only once the header checksum
+ * matches, and after damage it looks for the next marker.
+ */
+final class CustomerRecordWriter {
+
+    /**
+     * Marker opening every record, chosen so it rarely occurs in the encoded customers.
+     */
+    static final int RECORD_MARKER = 0xC5A7F10E;
+
+    /**
+     * Size of the header of a record following its marker: the length, the payload checksum and the header checksum.
+     */
+    static final int HEADER_SIZE = 12;
+
+    private static final int RECORD_BUFFER_SIZE = 256;
+
+    private final BinaryWriter output;
+    private final ToLongFunction<Movie> movieIds;
+    private final ByteArrayOutputStream record;
+    private final BinaryWriter recordWriter;
+    private final CRC32 checksum;
+
+    /**
+     * Constructs a new instance of the CustomerRecordWriter.
+     *
+     * @param output   The writer to write the framed records to.
+     * @param movieIds Gives the catalog id of a rented movie, or 0 if it is not in the catalog.
+     */
+    CustomerRecordWriter(BinaryWriter output, ToLongFunction<Movie> movieIds) {
+        this.output = output;
+        this.movieIds = movieIds;
+        this.record = new ByteArrayOutputStream();
+        this.recordWriter = new BinaryWriter(Channels.newChannel(record), RECORD_BUFFER_SIZE);
+        this.checksum = new CRC32();
+    }
+
+    /**
+     * Writes the record of a customer.
+     *
+     * @param customer The customer.
+     * @throws IOException If the record cannot be written.
+     */
+    void write(Customer customer) throws IOException {
+        record.reset();
+        recordWriter.clearDictionary();
+        BinaryFormat.writeCustomer(recordWriter, customer, movieIds);
+        recordWriter.flush();
+        byte[] payload = record.toByteArray();
+        checksum.reset();
+        checksum.update(payload);
+        int payloadChecksum = (int) checksum.getValue();
+        output.writeInt(RECORD_MARKER);
+        output.writeInt(payload.length);
+        output.writeInt(payloadChecksum);
+        output.writeInt(headerChecksum(checksum, payload.length, payloadChecksum));
+        output.writeBytes(payload);
+    }
+
+    /**
+     * Computes the checksum of a record header.
+     *
+     * @param checksum        The checksum to compute it with; it is reset first.
+     * @param length          The length of the payload.
+     * @param payloadChecksum The CRC-32 of the payload.
+     * @return The CRC-32 of the length and the payload checksum in big-endian order.
+     */
+    static int headerChecksum(CRC32 checksum, int length, int payloadChecksum) {
+        checksum.reset();
+        checksum.update(ByteBuffer.allocate(Integer.BYTES * 2).putInt(length).putInt(payloadChecksum).flip());
+        return (int) checksum.getValue();
+    }
+}
@@ -0,0 +1,256 @@
+package org.vitaliistf.serialization;
+
+import org.vitaliistf.model.Customer;
+import org.vitaliistf.model.movie.Movie;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.StreamCorruptedException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+import java.util.function.LongFunction;
+import java.util.zip.CRC32;
+
+/**
+ * Reads a customer list one customer at a time, so memory use is bounded by the largest customer
+ * rather than by the size of the list.
+ * <p>
+ * Since version 4 customers are read from the records written by a {@link CustomerRecordWriter} until the end of
+ * the data. A record failing its checksum or referring to an unknown movie is damaged; in lenient mode it is
+ * reported to a listener and skipped, and a record cut off by the end of the data is reported and ends the list.
+ * Since version 6 a record whose header fails its checksum is skipped as well, by scanning for the next record
+ * marker, so a damaged length loses only the records it overlaps. In versions 4 and 5 the length is not checked,
+ * and a length beyond the data ends the list.
+ * Earlier versions store the number of customers followed by customers sharing one dictionary,
+ * which are read in order and fail on the first damage.
+ */
+final class CustomerSpliterator implements Spliterator<Customer> {
+
+    private final BinaryReader reader;
+    private final int version;
+    private final long size;
+    private final LongFunction<Movie> movies;
+    private final Consumer<? super IOException> damageListener;
+    private final CRC32 checksum;
+    private final byte[] header;
+    private byte[] pushback;
+    private int pushbackPosition;
+    private boolean recovering;
+    private long remaining;
+    private boolean ended;
+
+    /**
+     * Constructs a new instance of the CustomerSpliterator, reading the number of customers of files
+     * before version 4.
+     *
+     * @param reader  The reader positioned at the start of the customer list, after the file header.
+     * @param version The version of the file.
+     * @param size    The size of the file, bounding the length of a record.
+     * @param movies         Gives the catalog movie with an id, or null if there is none.
+     * @param damageListener Receives the damage of every damaged record that is skipped,
+     *                       or null to fail the read on the first damage.
+     * @throws IOException If the number of customers cannot be read.
+     */
+    CustomerSpliterator(BinaryReader reader, int version, long size, LongFunction<Movie> movies,
+                        Consumer<? super IOException> damageListener) throws IOException {
+        this.reader = reader;
+        this.version = version;
+        this.size = size;
+        this.movies = movies;
+        this.damageListener = damageListener;
+        this.checksum = new CRC32();
+        this.header = new byte[CustomerRecordWriter.HEADER_SIZE];
+        this.pushback = header;
+        this.pushbackPosition = header.length;
+        this.remaining = version < 4 ? reader.readCount() : -1;
+    }
+
+    /**
+     * Reads the next customer.
+     *
+     * @param action The action to pass the customer to.
+     * @return false if there are no more customers.
+     * @throws UncheckedIOException If the data cannot be read, or is damaged and the spliterator is not lenient.
+     */
+    @Override
+    public boolean tryAdvance(Consumer<? super Customer> action) {
+        try {
+            Customer customer = version < 4 ? nextCustomer() : version < 6 ? nextRecord() : nextMarkedRecord();
+            if (customer == null) {
+                return false;
+            }
+            action.accept(customer);
+            return true;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public Spliterator<Customer> trySplit() {
+        return null;
+    }
+
+    @Override
+    public long estimateSize() {
+        return remaining < 0 ? Long.MAX_VALUE : remaining;
+    }
+
+    @Override
+    public int characteristics() {
+        return ORDERED | NONNULL | (remaining < 0 ? 0 : SIZED);
+    }
+
+    /**
+     * Reads the next customer of a file before version 4.
+     *
+     * @return The customer, or null after the last one.
+     * @throws IOException If the customer cannot be read or refers to a movie missing from the catalog.
+     */
+    private Customer nextCustomer() throws IOException {
+        if (remaining == 0) {
+            return null;
+        }
+        remaining--;
+        return BinaryFormat.readCustomer(reader, version, movies);
+    }
+
+    /**
+     * Reads the next customer record of a file before version 6, skipping damaged ones in lenient mode.
+     *
+     * @return The customer, or null at the end of the data or of its intact part.
+     * @throws IOException If the data cannot be read, or is damaged and the spliterator is not lenient.
+     */
+    private Customer nextRecord() throws IOException {
+        while (!ended && !reader.atEnd()) {
+            byte[] payload;
+            try {
+                int length = reader.readInt();
+                int expected = reader.readInt();
+                if (length < 0 || length > size) {
+                    return damaged(new StreamCorruptedException("Malformed customer record length: " + length), true);
+                }
+                payload = reader.readBytes(length);
+                checksum.reset();
+                checksum.update(payload);
+                if ((int) checksum.getValue() != expected) {
+                    damaged(new StreamCorruptedException("Customer record fails its checksum"), false);
+                    continue;
+                }
+            } catch (EOFException e) {
+                return damaged(e, true);
+            }
+            try {
+                return BinaryFormat.readCustomer(new BinaryReader(ByteBuffer.wrap(payload)), version, movies);
+            } catch (IOException e) {
+                damaged(e, false);
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Reads the next marked customer record, skipping damaged ones in lenient mode.
+     * A record is decoded only if both its header and its payload match their checksums.
+     *
+     * @return The customer, or null at the end of the data or of its intact part.
+     * @throws IOException If the data cannot be read, or is damaged and the spliterator is not lenient.
+     */
+    private Customer nextMarkedRecord() throws IOException {
+        while (!ended && findMarker()) {
+            byte[] payload;
+            try {
+                for (int i = 0; i < header.length; i++) {
+                    header[i] = (byte) nextByte();
+                }
+                ByteBuffer fields = ByteBuffer.wrap(header);
+                int length = fields.getInt();
+                int expected = fields.getInt();
+                if (fields.getInt() != CustomerRecordWriter.headerChecksum(checksum, length, expected)
+                        || length < 0 || length > size) {
+                    damaged(new StreamCorruptedException("Customer record header fails its checksum"), false);
+                    // The next record may start within the header, so it is scanned again.
+                    pushback = header.clone();
+                    pushbackPosition = 0;
+                    continue;
+                }
+                recovering = false;
+                payload = reader.readBytes(length);
+                checksum.reset();
+                checksum.update(payload);
+                if ((int) checksum.getValue() != expected) {
+                    damaged(new StreamCorruptedException("Customer record fails its checksum"), false);
+                    continue;
+                }
+            } catch (EOFException e) {
+                return damaged(e, true);
+            }
+            try {
+                return BinaryFormat.readCustomer(new BinaryReader(ByteBuffer.wrap(payload)), version, movies);
+            } catch (IOException e) {
+                damaged(e, false);
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Reads up to and including the next record marker. Bytes skipped before it are damage, unless they follow
+     * damage that was already reported.
+     *
+     * @return true if a marker was read, false at the end of the data.
+     * @throws IOException If the data cannot be read, or is damaged and the spliterator is not lenient.
+     */
+    private boolean findMarker() throws IOException {
+        int window = 0;
+        long skipped = -Integer.BYTES;
+        while (pushbackPosition < pushback.length || !reader.atEnd()) {
+            window = window << 8 | nextByte();
+            if (++skipped >= 0 && window == CustomerRecordWriter.RECORD_MARKER) {
+                if (skipped > 0 && !recovering) {
+                    damaged(new StreamCorruptedException("Skipped " + skipped + " bytes before a customer record"),
+                            false);
+                }
+                return true;
+            }
+        }
+        if (skipped > -Integer.BYTES && !recovering) {
+            damaged(new EOFException("Customer record cut off by the end of the data"), true);
+        }
+        return false;
+    }
+
+    /**
+     * Reads the next byte, from the bytes given back for scanning first.
+     *
+     * @return The byte, from 0 to 255.
+     * @throws IOException If the data cannot be read or ends.
+     */
+    private int nextByte() throws IOException {
+        if (pushbackPosition < pushback.length) {
+            return pushback[pushbackPosition++] & 0xFF;
+        }
+        return reader.readByte();
+    }
+
+    /**
+     * Handles a damaged record: reports it in lenient mode, fails otherwise.
+     * Damage that is not fatal starts a recovery, which lasts until the header of a record matches its checksum.
+     *
+     * @param damage The damage.
+     * @param fatal  Whether the damage ends the intact part of the data.
+     * @return null, ending the data if the damage is fatal.
+     * @throws IOException The damage, if the spliterator is not lenient.
+     */
+    private Customer damaged(IOException damage, boolean fatal) throws IOException {
+        if (damageListener == null) {
+            throw damage;
+        }
+        damageListener.accept(damage);
+        recovering = true;
+        ended = fatal;
+        return null;
+    }
+}
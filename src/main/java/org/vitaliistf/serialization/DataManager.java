@@ -1,13 +1,41 @@
 package org.vitaliistf.serialization;
 
+import org.vitaliistf.collection.PersistentSequence;
 import org.vitaliistf.model.Customer;
 import org.vitaliistf.model.movie.Movie;
 
 import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.function.LongFunction;
+import java.util.function.ToLongFunction;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 /**
  * Manages the storage and retrieval of data for the Movie Rental System.
+ * Data is stored in a compact versioned binary format, described in {@link BinaryFormat}, written and read
+ * through buffered file channels. Files saved by earlier versions with Java serialization are still loaded,
+ * and are converted to the binary format the next time the data is saved.
+ * Snapshots of all data, written to be recovered together with a {@link Journal}, are replaced atomically.
+ * <p>
+ * The movie catalog, in catalog files and snapshots alike, is stored in the read-optimized layout of
+ * {@link MappedCatalog} and loaded by mapping it into memory: loaded movies are views that decode their details
+ * from the file on access, so loading takes time and heap in proportion to the number of movies rather than
+ * to the size of the catalog. Files holding a mapped catalog are therefore never rewritten in place but replaced,
+ * which leaves earlier mappings intact.
  */
 public class DataManager {
 
@@ -35,31 +63,105 @@ public class DataManager {
     }
 
     /**
-     * Saves the customer list to a file.
+     * Saves the customer list to a file, storing a full copy of every rented movie.
      *
      * @param fileName      The name of the file to save the data to.
      * @param customers     The list of customers to be saved.
+     * @throws IOException If the file cannot be written; the previous file is kept.
      */
-    public void saveCustomersToFile(String fileName, List<Customer> customers) {
-        try (ObjectOutputStream objectOutputStream = new ObjectOutputStream(new FileOutputStream(fileName))) {
-            objectOutputStream.writeObject(customers);
-        } catch (IOException e) {
-            e.printStackTrace();
+    public void saveCustomersToFile(String fileName, List<Customer> customers) throws IOException {
+        saveCustomersToFile(fileName, customers, movie -> 0, CatalogStamp.NONE);
+    }
+
+    /**
+     * Saves the customer list to a file, storing rented catalog movies by id.
+     * Movies without an id, e.g. deleted from the catalog since, are stored in full.
+     * The file is stamped with the catalog, so it is only loaded against the same catalog.
+     *
+     * @param fileName      The name of the file to save the data to.
+     * @param customers     The list of customers to be saved.
+     * @param movieIds      Gives the catalog id of a movie, or 0 if it is not in the catalog.
+     * @param catalog       The stamp of the catalog the ids belong to.
+     * @throws IOException If the file cannot be written; the previous file is kept.
+     */
+    public void saveCustomersToFile(String fileName, List<Customer> customers, ToLongFunction<Movie> movieIds,
+                                    CatalogStamp catalog) throws IOException {
+        exportCustomersToFile(fileName, Arrays.asList(customers.toArray(new Customer[0])).iterator(), movieIds,
+                catalog);
+    }
+
+    /**
+     * Exports customers to a file one at a time, storing rented catalog movies by id, so only one customer
+     * needs to be in memory at once, e.g. when customers are streamed from another file and filtered.
+     * The file is replaced only once all customers are written, so customers may be streamed from the same file.
+     *
+     * @param fileName      The name of the file to save the data to.
+     * @param customers     The customers to be saved.
+     * @param movieIds      Gives the catalog id of a movie, or 0 if it is not in the catalog.
+     * @param catalog       The stamp of the catalog the ids belong to.
+     * @return The number of customers saved.
+     * @throws IOException If the file cannot be written; the previous file is kept.
+     */
+    public long exportCustomersToFile(String fileName, Iterator<? extends Customer> customers,
+                                      ToLongFunction<Movie> movieIds, CatalogStamp catalog) throws IOException {
+        long[] count = new long[1];
+        replaceFile(fileName, channel -> {
+            BinaryWriter writer = new BinaryWriter(channel);
+            BinaryFormat.writeHeader(writer, BinaryFormat.CUSTOMERS);
+            writer.writeVarint(catalog.catalogId());
+            writer.writeVarint(catalog.lastId());
+            count[0] = writeCustomers(writer, customers, movieIds);
+            writer.flush();
+        });
+        return count[0];
+    }
+
+    /**
+     * Saves the movie catalog to a file. Movies get their positions, starting from 1, as ids.
+     *
+     * @param fileName      The name of the file to save the data to.
+     * @param movieCatalog  The movie catalog to be saved.
+     * @throws IOException If the file cannot be written; the previous file is kept.
+     */
+    public void saveMovieCatalogToFile(String fileName, List<Movie> movieCatalog) throws IOException {
+        Movie[] movies = movieCatalog.toArray(new Movie[0]);
+        long[] ids = new long[movies.length];
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = i + 1;
         }
+        writeCatalog(fileName, movies, ids, ids.length, 0);
+    }
+
+    /**
+     * Saves the movie catalog to a file without an identity. Movies keep their sequence numbers as ids.
+     *
+     * @param fileName      The name of the file to save the data to.
+     * @param movieCatalog  The movie catalog to be saved.
+     * @throws IOException If the file cannot be written; the previous file is kept.
+     */
+    public void saveMovieCatalogToFile(String fileName, PersistentSequence<Movie> movieCatalog) throws IOException {
+        saveMovieCatalogToFile(fileName, movieCatalog, 0);
     }
 
     /**
-     * Saves the movie catalog to a file.
+     * Saves the movie catalog to a file. Movies keep their sequence numbers as ids,
+     * and the catalog keeps its identity, so customers files saved against it can be loaded against it again.
      *
      * @param fileName      The name of the file to save the data to.
      * @param movieCatalog  The movie catalog to be saved.
+     * @param catalogId     The identity of the catalog, or 0 if it has none.
+     * @throws IOException If the file cannot be written; the previous file is kept.
      */
-    public void saveMovieCatalogToFile(String fileName, List<Movie> movieCatalog) {
-        try (ObjectOutputStream objectOutputStream = new ObjectOutputStream(new FileOutputStream(fileName))) {
-            objectOutputStream.writeObject(movieCatalog);
-        } catch (IOException e) {
-            e.printStackTrace();
+    public void saveMovieCatalogToFile(String fileName, PersistentSequence<Movie> movieCatalog, long catalogId)
+            throws IOException {
+        Movie[] movies = new Movie[movieCatalog.size()];
+        long[] ids = new long[movies.length];
+        PersistentSequence.SequenceIterator<Movie> iterator = movieCatalog.iterator();
+        for (int i = 0; i < movies.length; i++) {
+            movies[i] = iterator.next();
+            ids[i] = iterator.sequence();
         }
+        writeCatalog(fileName, movies, ids, movieCatalog.lastSequence(), catalogId);
     }
 
     /**
@@ -67,36 +169,447 @@ public class DataManager {
      *
      * @param fileName      The name of the file to load the data from.
      * @param movieCatalog  The movie catalog to be loaded.
+     * @throws IOException If the file cannot be read or is malformed; the list is left unchanged.
      */
-    @SuppressWarnings("unchecked")
-    public void loadMovieCatalogFromFile(String fileName, List<Movie> movieCatalog) {
-        try (ObjectInputStream objectInputStream = new ObjectInputStream(new FileInputStream(fileName))) {
-            movieCatalog.clear();
+    public void loadMovieCatalogFromFile(String fileName, List<Movie> movieCatalog) throws IOException {
+        List<Movie> movies = readCatalog(fileName).movies();
+        movieCatalog.clear();
+        movieCatalog.addAll(movies);
+    }
 
-            List<Movie> loadedMovies = (List<Movie>) objectInputStream.readObject();
+    /**
+     * Loads the movie catalog from a file, restoring the ids of the movies as their sequence numbers.
+     *
+     * @param fileName      The name of the file to load the data from.
+     * @param movieCatalog  The current movie catalog.
+     * @return The loaded catalog, in a new version of the current one.
+     * @throws IOException If the file cannot be read or is malformed.
+     */
+    public PersistentSequence<Movie> restoreMovieCatalogFromFile(String fileName, PersistentSequence<Movie> movieCatalog)
+            throws IOException {
+        return loadMovieCatalog(fileName, movieCatalog).movieCatalog();
+    }
 
-            movieCatalog.addAll(loadedMovies);
-        } catch (IOException | ClassNotFoundException e) {
-            e.printStackTrace();
-        }
+    /**
+     * Loads the movie catalog from a file with its identity, restoring the ids of the movies as their sequence numbers.
+     *
+     * @param fileName      The name of the file to load the data from.
+     * @param movieCatalog  The current movie catalog.
+     * @return The loaded catalog in a new version of the current one, with the identity it was saved under.
+     * @throws IOException If the file cannot be read or is malformed.
+     */
+    public CatalogFile loadMovieCatalog(String fileName, PersistentSequence<Movie> movieCatalog) throws IOException {
+        Catalog catalog = readCatalog(fileName);
+        return new CatalogFile(catalog.catalogId(), restore(catalog, movieCatalog));
     }
 
     /**
-     * Loads the customer list from a file.
+     * Loads the customer list from a file saved without movie ids.
      *
      * @param fileName      The name of the file to load the data from.
      * @param customers     The list of customers to be loaded.
+     * @return The number of damaged customer records that were skipped.
+     * @throws IOException If the file cannot be read or is not a customers file; the list is left unchanged.
      */
-    @SuppressWarnings("unchecked")
-    public void loadCustomersFromFile(String fileName, List<Customer> customers) {
-        try (ObjectInputStream objectInputStream = new ObjectInputStream(new FileInputStream(fileName))) {
-            customers.clear();
+    public int loadCustomersFromFile(String fileName, List<Customer> customers) throws IOException {
+        return loadCustomersFromFile(fileName, customers, id -> null, CatalogStamp.NONE);
+    }
+
+    /**
+     * Loads the customer list from a file, resolving rented movies stored by id against the catalog,
+     * so rentals share the catalog's Movie instances.
+     * A file saved against another catalog is not loaded; see {@link #streamCustomersFromFile}.
+     *
+     * @param fileName      The name of the file to load the data from.
+     * @param customers     The list of customers to be loaded.
+     * @param movies        Gives the catalog movie with an id, or null if there is none.
+     * @param catalog       The stamp of the catalog the movies are resolved against.
+     * @return The number of damaged customer records that were skipped.
+     * @throws CatalogMismatchException If the file was saved against another catalog; the list is left unchanged.
+     * @throws IOException              If the file cannot be read or is not a customers file;
+     *                                  the list is left unchanged.
+     */
+    public int loadCustomersFromFile(String fileName, List<Customer> customers, LongFunction<Movie> movies,
+                                     CatalogStamp catalog) throws IOException {
+        List<Customer> loadedCustomers = new ArrayList<>();
+        List<IOException> damage = new ArrayList<>();
+        try (Stream<Customer> stream = streamCustomersFromFile(fileName, movies, catalog, damage::add)) {
+            stream.forEachOrdered(loadedCustomers::add);
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        customers.clear();
+        customers.addAll(loadedCustomers);
+        return damage.size();
+    }
+
+    /**
+     * Streams the customer list of a file, reading one customer at a time as the stream is consumed,
+     * so customers can be loaded, filtered or exported with memory bounded by one customer
+     * rather than by the size of the file. The stream should be closed to close the file.
+     * Damaged customer records are passed to the damage listener and skipped, and a record cut off by the end
+     * of the file ends the stream, so a partly damaged file still yields its intact customers.
+     * Files saved with Java serialization by earlier versions are read into memory as a whole.
+     * <p>
+     * Movie ids are only resolved against the catalog the file was saved against, holding at least the ids
+     * handed out by then, so a file is never read against an unrelated catalog that reuses its ids.
+     * Files saved before catalogs were stamped are not checked.
+     *
+     * @param fileName       The name of the file to load the data from.
+     * @param movies         Gives the catalog movie with an id, or null if there is none.
+     * @param catalog        The stamp of the catalog the movies are resolved against.
+     * @param damageListener Receives the damage of every damaged customer record that is skipped, as it is read.
+     * @return The sequential stream of customers; it throws UncheckedIOException if the file cannot be read.
+     * @throws CatalogMismatchException If the file was saved against another catalog or a later state of it.
+     * @throws IOException              If the file cannot be opened or is not a customers file.
+     */
+    public Stream<Customer> streamCustomersFromFile(String fileName, LongFunction<Movie> movies, CatalogStamp catalog,
+                                                    Consumer<? super IOException> damageListener) throws IOException {
+        if (isSerializedFile(fileName)) {
+            try {
+                return DataManager.<Customer>readSerializedList(fileName).stream();
+            } catch (ClassNotFoundException e) {
+                throw new InvalidClassException(e.getMessage());
+            }
+        }
+        FileChannel channel = FileChannel.open(Path.of(fileName), StandardOpenOption.READ);
+        BinaryReader reader = new BinaryReader(channel);
+        try {
+            int version = BinaryFormat.readHeader(reader, BinaryFormat.CUSTOMERS);
+            if (version >= 5) {
+                CatalogStamp saved = new CatalogStamp(reader.readVarint(), reader.readVarint());
+                if (!catalog.resolves(saved)) {
+                    throw new CatalogMismatchException(saved, catalog);
+                }
+            }
+            CustomerSpliterator spliterator = new CustomerSpliterator(reader, version, channel.size(), movies,
+                    damageListener);
+            return StreamSupport.stream(spliterator, false)
+                    .onClose(() -> {
+                        try {
+                            reader.close();
+                        } catch (IOException e) {
+                            throw new UncheckedIOException(e);
+                        }
+                    });
+        } catch (IOException | RuntimeException e) {
+            reader.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Saves a snapshot of the movie catalog and the customer list to one file. The snapshot is written to
+     * a temporary file and synced first, then moved over the previous one, so a crash leaves either
+     * the previous or the new snapshot intact, and movies still mapped from the previous one stay readable.
+     * Rented catalog movies are stored by id, and rentals of movies not in the catalog of the snapshot in full.
+     *
+     * @param fileName The name of the file to save the snapshot to.
+     * @param snapshot The snapshot.
+     * @throws IOException If the snapshot cannot be written; the previous snapshot is kept.
+     */
+    public void saveSnapshot(String fileName, Snapshot snapshot) throws IOException {
+        PersistentSequence<Movie> catalog = snapshot.movieCatalog();
+        Movie[] movies = new Movie[catalog.size()];
+        long[] ids = new long[movies.length];
+        Map<Movie, Long> movieIds = new HashMap<>(movies.length * 2);
+        PersistentSequence.SequenceIterator<Movie> iterator = catalog.iterator();
+        for (int i = 0; i < movies.length; i++) {
+            movies[i] = iterator.next();
+            ids[i] = iterator.sequence();
+            movieIds.putIfAbsent(movies[i], ids[i]);
+        }
+        Customer[] customers = snapshot.customers().toArray(new Customer[0]);
+        replaceFile(fileName, channel -> {
+            long customersOffset = MappedCatalog.write(channel, BinaryFormat.HEADER_AREA_SIZE,
+                    movies, ids, catalog.lastSequence());
+            channel.position(customersOffset);
+            BinaryWriter writer = new BinaryWriter(channel);
+            writeCustomers(writer, Arrays.asList(customers).iterator(), movie -> movieIds.getOrDefault(movie, 0L));
+            writer.flush();
+            writeHeaderArea(channel, BinaryFormat.SNAPSHOT, snapshot.generation(), customersOffset,
+                    snapshot.catalogId());
+        });
+    }
+
+    /**
+     * Loads a snapshot of the movie catalog and the customer list.
+     * Rentals of catalog movies share the catalog's Movie instances.
+     *
+     * @param fileName     The name of the file to load the snapshot from.
+     * @param movieCatalog The current movie catalog.
+     * @return The snapshot, with the movies restored under their ids in a new version of the current catalog.
+     * @throws IOException If the snapshot cannot be read or is malformed.
+     */
+    public Snapshot loadSnapshot(String fileName, PersistentSequence<Movie> movieCatalog) throws IOException {
+        FileChannel channel = FileChannel.open(Path.of(fileName), StandardOpenOption.READ);
+        try (BinaryReader reader = new BinaryReader(channel)) {
+            int version = BinaryFormat.readHeader(reader, BinaryFormat.SNAPSHOT);
+            long generation = reader.readVarint();
+            if (version < 3) {
+                long lastSequence = reader.readVarint();
+                Catalog catalog = readMovies(reader, version);
+                PersistentSequence<Movie> movies = restore(
+                        new Catalog(catalog.ids(), catalog.movies(), lastSequence, 0), movieCatalog);
+                return new Snapshot(generation, 0, movies,
+                        readCustomers(reader, version, channel.size(), movies::find));
+            }
+            long customersOffset = reader.readVarint();
+            long catalogId = version < 5 ? 0 : reader.readVarint();
+            PersistentSequence<Movie> movies = restore(
+                    mappedCatalog(MappedCatalog.map(channel, BinaryFormat.HEADER_AREA_SIZE), catalogId), movieCatalog);
+            channel.position(customersOffset);
+            return new Snapshot(generation, catalogId, movies,
+                    readCustomers(new BinaryReader(channel), version, channel.size(), movies::find));
+        }
+    }
+
+    /**
+     * Movies read from a catalog file with their ids.
+     *
+     * @param ids          The ids of the movies, in increasing order.
+     * @param movies       The movies.
+     * @param lastSequence The last movie id handed out, not less than the ids.
+     * @param catalogId    The identity of the catalog, or 0 if it was saved without one.
+     */
+    private record Catalog(long[] ids, List<Movie> movies, long lastSequence, long catalogId) {
+    }
+
+    /**
+     * Writes the content of a file replaced as a whole.
+     */
+    @FunctionalInterface
+    private interface FileContent {
+
+        /**
+         * Writes the content.
+         *
+         * @param channel The channel of the new file.
+         * @throws IOException If the content cannot be written.
+         */
+        void write(FileChannel channel) throws IOException;
+    }
+
+    /**
+     * Writes the movie catalog to a file, replacing the previous one.
+     *
+     * @param fileName     The name of the file to save the data to.
+     * @param movies       The movies.
+     * @param ids          The ids of the movies, in increasing order.
+     * @param lastSequence The last movie id handed out, not less than the ids.
+     * @param catalogId    The identity of the catalog, or 0 if it has none.
+     * @throws IOException If the file cannot be written; the previous file is kept.
+     */
+    private static void writeCatalog(String fileName, Movie[] movies, long[] ids, long lastSequence, long catalogId)
+            throws IOException {
+        replaceFile(fileName, channel -> {
+            MappedCatalog.write(channel, BinaryFormat.HEADER_AREA_SIZE, movies, ids, lastSequence);
+            writeHeaderArea(channel, BinaryFormat.CATALOG, catalogId);
+        });
+    }
+
+    /**
+     * Writes a file to a temporary file and syncs it, then moves it over the previous file in one step.
+     *
+     * @param fileName The name of the file.
+     * @param content  Writes the content of the file.
+     * @throws IOException If the file cannot be written; the previous file is kept.
+     */
+    private static void replaceFile(String fileName, FileContent content) throws IOException {
+        Path temporary = Path.of(fileName + ".tmp");
+        try (FileChannel channel = FileChannel.open(temporary,
+                StandardOpenOption.WRITE, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            content.write(channel);
+            channel.force(true);
+        }
+        Files.move(temporary, Path.of(fileName), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
 
-            List<Customer> loadedCustomers = (List<Customer>) objectInputStream.readObject();
+    /**
+     * Writes the file header followed by fields of the file into the header area at the start of the file.
+     *
+     * @param channel The channel of the file.
+     * @param kind    The kind of records in the file.
+     * @param fields  The fields, stored as varints.
+     * @throws IOException If the header area cannot be written.
+     */
+    private static void writeHeaderArea(FileChannel channel, int kind, long... fields) throws IOException {
+        channel.position(0);
+        BinaryWriter writer = new BinaryWriter(channel, BinaryFormat.HEADER_AREA_SIZE);
+        BinaryFormat.writeHeader(writer, kind);
+        for (long field : fields) {
+            writer.writeVarint(field);
+        }
+        writer.flush();
+    }
+
+    /**
+     * Restores movies under their ids in a new version of the current catalog.
+     *
+     * @param catalog      The movies with their ids.
+     * @param movieCatalog The current movie catalog.
+     * @return The restored catalog, handing out ids after the last id of the movies.
+     * @throws StreamCorruptedException If the ids exceed the last id.
+     */
+    private static PersistentSequence<Movie> restore(Catalog catalog, PersistentSequence<Movie> movieCatalog)
+            throws StreamCorruptedException {
+        PersistentSequence<Movie> restored = movieCatalog.restarted();
+        for (int i = 0; i < catalog.ids().length; i++) {
+            restored = restored.append(catalog.ids()[i], catalog.movies().get(i));
+        }
+        if (catalog.lastSequence() < restored.lastSequence()) {
+            throw new StreamCorruptedException("Movie ids exceed the last id " + catalog.lastSequence());
+        }
+        return restored.continuedAfter(catalog.lastSequence());
+    }
+
+    /**
+     * Collects the views of the movies of a mapped catalog with their ids.
+     *
+     * @param mapped    The mapped catalog.
+     * @param catalogId The identity of the catalog, or 0 if it was saved without one.
+     * @return The movie views with their ids.
+     */
+    private static Catalog mappedCatalog(MappedCatalog mapped, long catalogId) {
+        long[] ids = new long[mapped.size()];
+        List<Movie> movies = new ArrayList<>(ids.length);
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = mapped.id(i);
+            movies.add(mapped.movie(i));
+        }
+        return new Catalog(ids, movies, mapped.lastSequence(), catalogId);
+    }
 
-            customers.addAll(loadedCustomers);
-        } catch (IOException | ClassNotFoundException e) {
-            e.printStackTrace();
+    /**
+     * Writes customers with their rentals as one record each.
+     *
+     * @param writer    The writer.
+     * @param customers The customers.
+     * @param movieIds  Gives the catalog id of a movie, or 0 if it is not in the catalog.
+     * @return The number of customers written.
+     * @throws IOException If the customers cannot be written.
+     */
+    private static long writeCustomers(BinaryWriter writer, Iterator<? extends Customer> customers,
+                                       ToLongFunction<Movie> movieIds) throws IOException {
+        CustomerRecordWriter records = new CustomerRecordWriter(writer, movieIds);
+        long count = 0;
+        while (customers.hasNext()) {
+            records.write(customers.next());
+            count++;
+        }
+        return count;
+    }
+
+    /**
+     * Reads all customers with their rentals, failing on any damage.
+     *
+     * @param reader  The reader.
+     * @param version The version of the file.
+     * @param size    The size of the file.
+     * @param movies  Gives the catalog movie with an id, or null if there is none.
+     * @return The customers.
+     * @throws IOException If the customers cannot be read or refer to a movie missing from the catalog.
+     */
+    private static List<Customer> readCustomers(BinaryReader reader, int version, long size,
+                                                LongFunction<Movie> movies) throws IOException {
+        List<Customer> customers = new ArrayList<>();
+        try {
+            new CustomerSpliterator(reader, version, size, movies, null).forEachRemaining(customers::add);
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        return customers;
+    }
+
+    /**
+     * Reads the movie catalog from a file. Movies of files without ids get their positions as ids.
+     *
+     * @param fileName The name of the file to load the data from.
+     * @return The movies with their ids.
+     * @throws IOException If the file cannot be read or is malformed, or a serialized file refers to an unknown class.
+     */
+    private static Catalog readCatalog(String fileName) throws IOException {
+        if (isSerializedFile(fileName)) {
+            List<Movie> movies;
+            try {
+                movies = readSerializedList(fileName);
+            } catch (ClassNotFoundException e) {
+                throw new InvalidClassException(e.getMessage());
+            }
+            long[] ids = new long[movies.size()];
+            for (int i = 0; i < ids.length; i++) {
+                ids[i] = i + 1;
+            }
+            return new Catalog(ids, movies, ids.length, 0);
+        }
+        FileChannel channel = FileChannel.open(Path.of(fileName), StandardOpenOption.READ);
+        try (BinaryReader reader = new BinaryReader(channel)) {
+            int version = BinaryFormat.readHeader(reader, BinaryFormat.CATALOG);
+            if (version < 3) {
+                return readMovies(reader, version);
+            }
+            long catalogId = version < 5 ? 0 : reader.readVarint();
+            return mappedCatalog(MappedCatalog.map(channel, BinaryFormat.HEADER_AREA_SIZE), catalogId);
+        }
+    }
+
+    /**
+     * Reads movies with their ids, stored before version 3. Movies of files without ids get their positions as ids.
+     *
+     * @param reader  The reader.
+     * @param version The version of the file.
+     * @return The movies with their ids, the last of them as the last id handed out.
+     * @throws IOException If the movies cannot be read or their ids are not increasing.
+     */
+    private static Catalog readMovies(BinaryReader reader, int version) throws IOException {
+        int count = reader.readCount();
+        long[] ids = new long[count];
+        List<Movie> movies = new ArrayList<>(count);
+        long previous = 0;
+        for (int i = 0; i < count; i++) {
+            long step = version < 2 ? 1 : reader.readVarint();
+            if (step <= 0) {
+                throw new StreamCorruptedException("Movie ids are not increasing");
+            }
+            ids[i] = previous + step;
+            previous = ids[i];
+            movies.add(BinaryFormat.readMovie(reader));
+        }
+        return new Catalog(ids, movies, previous, 0);
+    }
+
+    /**
+     * Checks whether a file was saved with Java serialization by an earlier version, by its stream magic number.
+     *
+     * @param fileName The name of the file.
+     * @return true if the file holds a Java serialization stream.
+     * @throws IOException If the file cannot be read.
+     */
+    private static boolean isSerializedFile(String fileName) throws IOException {
+        try (FileChannel channel = FileChannel.open(Path.of(fileName), StandardOpenOption.READ)) {
+            ByteBuffer magic = ByteBuffer.allocate(Short.BYTES);
+            int read = 0;
+            while (magic.hasRemaining() && read >= 0) {
+                read = channel.read(magic);
+            }
+            return !magic.hasRemaining() && magic.getShort(0) == ObjectStreamConstants.STREAM_MAGIC;
+        }
+    }
+
+    /**
+     * Reads a list saved with Java serialization by an earlier version.
+     *
+     * @param fileName The name of the file.
+     * @param <T>      The type of the list elements.
+     * @return The list.
+     * @throws IOException            If the file cannot be read.
+     * @throws ClassNotFoundException If the file refers to an unknown class.
+     */
+    @SuppressWarnings("unchecked")
+    private static <T> List<T> readSerializedList(String fileName) throws IOException, ClassNotFoundException {
+        try (ObjectInputStream objectInputStream = new ObjectInputStream(new BufferedInputStream(
+                Channels.newInputStream(FileChannel.open(Path.of(fileName), StandardOpenOption.READ))))) {
+            return (List<T>) objectInputStream.readObject();
         }
     }
 }
@@ -0,0 +1,568 @@
+package org.vitaliistf.serialization;
+
+import org.vitaliistf.model.Customer;
+import org.vitaliistf.model.movie.Movie;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.StreamCorruptedException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.ToLongFunction;
+import java.util.zip.CRC32;
+
+/**
+ * Append-only write-ahead journal of changes to the movie catalog and the customer list.
+ * Every change is appended as a compact record before it is applied, so saving a change costs the size of the change
+ * rather than a rewrite of all data. The data is recovered by loading the last {@link Snapshot} and replaying
+ * the journal written since.
+ * <p>
+ * The journal is split into segments, each in its own file named {@code <baseName>.<generation>.journal}.
+ * A segment starts with the file header of {@link BinaryFormat} and its generation, followed by records framed by
+ * their length and CRC-32, so a record torn by a crash ends the replay of its segment. Records do not share strings,
+ * so each one can be decoded on its own. Movies are referred to by catalog id, as in the customers file.
+ * <p>
+ * Appending a record only buffers it. A caller then waits in {@link #sync(long)} until its record is on disk:
+ * the first caller writes all records buffered so far with one write and one fsync, while callers arriving
+ * meanwhile wait and are covered by the next one, so concurrent changes share the cost of a sync.
+ */
+public final class Journal implements Closeable {
+
+    private static final String SUFFIX = ".journal";
+    private static final int RECORD_BUFFER_SIZE = 256;
+    private static final int FRAME_SIZE = 2 * Integer.BYTES;
+
+    private static final int ADD_MOVIE = 1;
+    private static final int DELETE_MOVIE = 2;
+    private static final int ADD_CUSTOMER = 3;
+    private static final int ADD_RENTAL = 4;
+
+    private final String baseName;
+    private final ToLongFunction<Movie> movieIds;
+    private final Lock lock;
+    private final Condition synced;
+    private final ByteArrayOutputStream record;
+    private final CRC32 checksum;
+    private ByteArrayOutputStream pending;
+    private ByteArrayOutputStream spare;
+    private FileChannel channel;
+    private volatile long generation;
+    private volatile long segmentSize;
+    private long appended;
+    private long durable;
+    private boolean syncing;
+    private boolean closed;
+    private IOException failure;
+
+    /**
+     * Private constructor to make object producible only inside the class.
+     *
+     * @param baseName   The base name of the segment files.
+     * @param movieIds   Gives the catalog id of a movie, or 0 if it is not in the catalog.
+     * @param generation The generation of the first segment.
+     * @param channel    The channel of the first segment, with the header written.
+     * @throws IOException If the size of the segment cannot be read.
+     */
+    private Journal(String baseName, ToLongFunction<Movie> movieIds, long generation, FileChannel channel)
+            throws IOException {
+        this.baseName = baseName;
+        this.movieIds = movieIds;
+        this.lock = new ReentrantLock();
+        this.synced = lock.newCondition();
+        this.record = new ByteArrayOutputStream();
+        this.checksum = new CRC32();
+        this.pending = new ByteArrayOutputStream();
+        this.spare = new ByteArrayOutputStream();
+        this.channel = channel;
+        this.generation = generation;
+        this.segmentSize = channel.size();
+    }
+
+    /**
+     * Starts a journal with a new segment. Existing segments are never appended to, so a record torn by a crash
+     * stays at the end of its segment.
+     *
+     * @param baseName   The base name of the segment files.
+     * @param generation The generation of the new segment, greater than that of all existing segments.
+     * @param movieIds   Gives the catalog id of a movie, or 0 if it is not in the catalog.
+     * @return The journal.
+     * @throws IOException If the segment cannot be created, e.g. because it already exists.
+     */
+    public static Journal open(String baseName, long generation, ToLongFunction<Movie> movieIds) throws IOException {
+        return new Journal(baseName, movieIds, generation, createSegment(baseName, generation));
+    }
+
+    /**
+     * Replays the segments of a journal from a generation on, in order. Each segment is replayed up to its end
+     * or up to its first torn or damaged record.
+     *
+     * @param baseName       The base name of the segment files.
+     * @param fromGeneration The generation of the first segment to replay, usually that of the loaded snapshot.
+     * @param handler        The handler to apply the changes.
+     * @return The generation the next segment should get: after the last replayed one, or the first generation
+     *         if no segment was replayed.
+     * @throws IOException If a segment cannot be read or holds a change the handler rejects.
+     */
+    public static long replay(String baseName, long fromGeneration, JournalHandler handler) throws IOException {
+        long next = fromGeneration;
+        for (Map.Entry<Long, Path> segment : segments(baseName).tailMap(fromGeneration).entrySet()) {
+            replaySegment(segment.getValue(), segment.getKey(), handler);
+            next = segment.getKey() + 1;
+        }
+        return next;
+    }
+
+    /**
+     * Deletes the segments of a journal before a generation, e.g. once a snapshot covering them is saved.
+     *
+     * @param baseName   The base name of the segment files.
+     * @param generation The generation of the first segment to keep.
+     * @throws IOException If a segment cannot be deleted.
+     */
+    public static void deleteSegmentsBefore(String baseName, long generation) throws IOException {
+        for (Path segment : segments(baseName).headMap(generation).values()) {
+            Files.deleteIfExists(segment);
+        }
+    }
+
+    /**
+     * Gets the generation of the segment being written.
+     *
+     * @return The generation.
+     */
+    public long generation() {
+        return generation;
+    }
+
+    /**
+     * Gets the size of the segment being written, including records not synced yet.
+     *
+     * @return The size in bytes.
+     */
+    public long segmentSize() {
+        return segmentSize;
+    }
+
+    /**
+     * Appends a record of a movie added to the catalog.
+     *
+     * @param id    The id of the movie in the catalog.
+     * @param movie The movie.
+     * @return The position to pass to {@link #sync(long)}.
+     * @throws IllegalStateException If the journal is closed or failed.
+     */
+    public long addMovie(long id, Movie movie) {
+        lock.lock();
+        try {
+            BinaryWriter writer = startRecord(ADD_MOVIE);
+            writer.writeVarint(id);
+            BinaryFormat.writeMovie(writer, movie);
+            return endRecord(writer);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Appends a record of a movie removed from the catalog.
+     *
+     * @param id The id of the movie in the catalog.
+     * @return The position to pass to {@link #sync(long)}.
+     * @throws IllegalStateException If the journal is closed or failed.
+     */
+    public long deleteMovie(long id) {
+        lock.lock();
+        try {
+            BinaryWriter writer = startRecord(DELETE_MOVIE);
+            writer.writeVarint(id);
+            return endRecord(writer);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Appends a record of a customer added with their rentals.
+     *
+     * @param customer The customer.
+     * @return The position to pass to {@link #sync(long)}.
+     * @throws IllegalStateException If the journal is closed or failed.
+     */
+    public long addCustomer(Customer customer) {
+        lock.lock();
+        try {
+            BinaryWriter writer = startRecord(ADD_CUSTOMER);
+            BinaryFormat.writeCustomer(writer, customer, movieIds);
+            return endRecord(writer);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Appends a record of a rental added to a customer.
+     *
+     * @param customerName The name of the customer.
+     * @param index        The position of the rental among the rentals of the customer.
+     * @param movie        The rented movie.
+     * @param days         The duration of the rental.
+     * @return The position to pass to {@link #sync(long)}.
+     * @throws IllegalStateException If the journal is closed or failed.
+     */
+    public long addRental(String customerName, int index, Movie movie, int days) {
+        lock.lock();
+        try {
+            BinaryWriter writer = startRecord(ADD_RENTAL);
+            writer.writeString(customerName);
+            writer.writeVarint(index);
+            long id = movieIds.applyAsLong(movie);
+            writer.writeVarint(id);
+            if (id == 0) {
+                BinaryFormat.writeMovie(writer, movie);
+            }
+            writer.writeSignedVarint(days);
+            return endRecord(writer);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Waits until the records up to a position are on disk, writing and syncing all buffered records
+     * unless another caller is already doing so.
+     *
+     * @param position The position returned when the last record of the caller was appended.
+     * @throws IOException If the records cannot be written; the journal then rejects all further records.
+     */
+    public void sync(long position) throws IOException {
+        lock.lock();
+        try {
+            while (durable < position) {
+                checkFailure();
+                if (syncing) {
+                    synced.awaitUninterruptibly();
+                    continue;
+                }
+                syncing = true;
+                ByteArrayOutputStream batch = pending;
+                pending = spare;
+                long target = appended;
+                FileChannel segment = channel;
+                IOException error = null;
+                lock.unlock();
+                try {
+                    write(segment, batch);
+                    segment.force(false);
+                } catch (IOException e) {
+                    error = e;
+                } finally {
+                    lock.lock();
+                    batch.reset();
+                    spare = batch;
+                    syncing = false;
+                    if (error != null) {
+                        failure = error;
+                    }
+                    synced.signalAll();
+                }
+                if (error != null) {
+                    throw error;
+                }
+                durable = target;
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Writes and syncs all buffered records, then continues the journal in a new segment of the next generation.
+     * A snapshot taken right after, while no changes are made, covers all segments before the new one.
+     *
+     * @return The generation of the new segment.
+     * @throws IOException If the records cannot be written or the new segment cannot be created.
+     */
+    public long rotate() throws IOException {
+        lock.lock();
+        try {
+            flushPending();
+            channel.close();
+            long next = generation + 1;
+            channel = createSegment(baseName, next);
+            generation = next;
+            segmentSize = channel.size();
+            return next;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Writes and syncs all buffered records and closes the segment being written.
+     *
+     * @throws IOException If the records cannot be written.
+     */
+    @Override
+    public void close() throws IOException {
+        lock.lock();
+        try {
+            if (closed) {
+                return;
+            }
+            try {
+                flushPending();
+            } finally {
+                closed = true;
+                channel.close();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Starts encoding a record. Must be called with the lock held.
+     *
+     * @param type The type of the record.
+     * @return The writer to encode the record with.
+     * @throws IOException If the record cannot be encoded.
+     */
+    private BinaryWriter startRecord(int type) throws IOException {
+        if (closed) {
+            throw new IllegalStateException("Journal is closed");
+        }
+        if (failure != null) {
+            throw new IllegalStateException("Journal failed", failure);
+        }
+        record.reset();
+        BinaryWriter writer = new BinaryWriter(Channels.newChannel(record), RECORD_BUFFER_SIZE);
+        writer.writeVarint(type);
+        return writer;
+    }
+
+    /**
+     * Frames an encoded record with its length and checksum and buffers it. Must be called with the lock held.
+     *
+     * @param writer The writer the record was encoded with.
+     * @return The position after the record.
+     * @throws IOException If the record cannot be encoded.
+     */
+    private long endRecord(BinaryWriter writer) throws IOException {
+        writer.flush();
+        byte[] payload = record.toByteArray();
+        checksum.reset();
+        checksum.update(payload);
+        pending.write(ByteBuffer.allocate(FRAME_SIZE).putInt(payload.length).putInt((int) checksum.getValue()).array());
+        pending.write(payload);
+        appended += FRAME_SIZE + payload.length;
+        segmentSize += FRAME_SIZE + payload.length;
+        return appended;
+    }
+
+    /**
+     * Waits for a running sync, then writes and syncs all buffered records. Must be called with the lock held.
+     *
+     * @throws IOException If the journal failed or the records cannot be written.
+     */
+    private void flushPending() throws IOException {
+        while (syncing) {
+            synced.awaitUninterruptibly();
+        }
+        checkFailure();
+        if (closed) {
+            throw new IllegalStateException("Journal is closed");
+        }
+        try {
+            write(channel, pending);
+            channel.force(false);
+        } catch (IOException e) {
+            failure = e;
+            throw e;
+        }
+        pending.reset();
+        durable = appended;
+        synced.signalAll();
+    }
+
+    /**
+     * Throws the failure of an earlier write, so records are never reported durable after a lost batch.
+     *
+     * @throws IOException If an earlier write failed.
+     */
+    private void checkFailure() throws IOException {
+        if (failure != null) {
+            throw new IOException("Journal failed", failure);
+        }
+    }
+
+    /**
+     * Creates a segment file and writes its header to disk.
+     *
+     * @param baseName   The base name of the segment files.
+     * @param generation The generation of the segment.
+     * @return The channel of the segment, positioned after the header.
+     * @throws IOException If the segment cannot be created, e.g. because it already exists.
+     */
+    private static FileChannel createSegment(String baseName, long generation) throws IOException {
+        FileChannel channel = FileChannel.open(segmentPath(baseName, generation),
+                StandardOpenOption.WRITE, StandardOpenOption.CREATE_NEW);
+        try {
+            ByteArrayOutputStream header = new ByteArrayOutputStream();
+            BinaryWriter writer = new BinaryWriter(Channels.newChannel(header), RECORD_BUFFER_SIZE);
+            BinaryFormat.writeHeader(writer, BinaryFormat.JOURNAL);
+            writer.writeVarint(generation);
+            writer.flush();
+            write(channel, header);
+            channel.force(true);
+            return channel;
+        } catch (IOException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Writes buffered bytes to a segment.
+     *
+     * @param channel The channel of the segment.
+     * @param bytes   The bytes.
+     * @throws IOException If the segment cannot be written.
+     */
+    private static void write(FileChannel channel, ByteArrayOutputStream bytes) throws IOException {
+        ByteBuffer buffer = ByteBuffer.wrap(bytes.toByteArray());
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+
+    /**
+     * Replays the records of a segment up to its end or its first torn or damaged record.
+     *
+     * @param segment    The segment file.
+     * @param generation The generation of the segment.
+     * @param handler    The handler to apply the changes.
+     * @throws IOException If the segment cannot be read or holds a change the handler rejects.
+     */
+    private static void replaySegment(Path segment, long generation, JournalHandler handler) throws IOException {
+        long size = Files.size(segment);
+        try (BinaryReader reader = new BinaryReader(FileChannel.open(segment, StandardOpenOption.READ))) {
+            try {
+                BinaryFormat.readHeader(reader, BinaryFormat.JOURNAL);
+                if (reader.readVarint() != generation) {
+                    throw new StreamCorruptedException("Journal segment " + segment + " has a wrong generation");
+                }
+            } catch (EOFException e) {
+                return;
+            }
+            CRC32 crc = new CRC32();
+            while (true) {
+                byte[] payload;
+                try {
+                    int length = reader.readInt();
+                    int expected = reader.readInt();
+                    if (length <= 0 || length > size) {
+                        return;
+                    }
+                    payload = reader.readBytes(length);
+                    crc.reset();
+                    crc.update(payload);
+                    if ((int) crc.getValue() != expected) {
+                        return;
+                    }
+                } catch (EOFException e) {
+                    return;
+                }
+                applyRecord(payload, handler);
+            }
+        }
+    }
+
+    /**
+     * Decodes a record and applies it.
+     *
+     * @param payload The encoded record.
+     * @param handler The handler to apply the change.
+     * @throws IOException If the record is malformed or the handler rejects the change.
+     */
+    private static void applyRecord(byte[] payload, JournalHandler handler) throws IOException {
+        BinaryReader reader = new BinaryReader(Channels.newChannel(new ByteArrayInputStream(payload)), RECORD_BUFFER_SIZE);
+        int type = reader.readCount();
+        switch (type) {
+            case ADD_MOVIE -> {
+                long id = reader.readVarint();
+                handler.addMovie(id, BinaryFormat.readMovie(reader));
+            }
+            case DELETE_MOVIE -> handler.deleteMovie(reader.readVarint());
+            case ADD_CUSTOMER -> handler.addCustomer(BinaryFormat.readCustomer(reader, BinaryFormat.VERSION, handler::findMovie));
+            case ADD_RENTAL -> {
+                String customerName = reader.readString();
+                int index = reader.readCount();
+                long id = reader.readVarint();
+                Movie movie = id == 0 ? BinaryFormat.readMovie(reader) : handler.findMovie(id);
+                if (movie == null) {
+                    throw new StreamCorruptedException("Rental of " + customerName + " refers to unknown movie id " + id);
+                }
+                handler.addRental(customerName, index, movie, (int) reader.readSignedVarint());
+            }
+            default -> throw new StreamCorruptedException("Unknown journal record type: " + type);
+        }
+    }
+
+    /**
+     * Gets the path of a segment file.
+     *
+     * @param baseName   The base name of the segment files.
+     * @param generation The generation of the segment.
+     * @return The path.
+     */
+    private static Path segmentPath(String baseName, long generation) {
+        return Path.of(baseName + "." + generation + SUFFIX);
+    }
+
+    /**
+     * Finds the segment files of a journal.
+     *
+     * @param baseName The base name of the segment files.
+     * @return The segment files by generation.
+     * @throws IOException If the directory cannot be listed.
+     */
+    private static TreeMap<Long, Path> segments(String baseName) throws IOException {
+        Path base = Path.of(baseName).toAbsolutePath();
+        String prefix = base.getFileName() + ".";
+        TreeMap<Long, Path> segments = new TreeMap<>();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(base.getParent())) {
+            for (Path file : files) {
+                String name = file.getFileName().toString();
+                if (name.startsWith(prefix) && name.endsWith(SUFFIX)) {
+                    String number = name.substring(prefix.length(), name.length() - SUFFIX.length());
+                    if (!number.isEmpty() && number.length() < 19 && number.chars().allMatch(Character::isDigit)) {
+                        segments.put(Long.parseLong(number), file);
+                    }
+                }
+            }
+        }
+        return segments;
+    }
+}
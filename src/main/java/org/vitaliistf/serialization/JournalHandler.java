@@ -0,0 +1,58 @@
+package org.vitaliistf.serialization;
+
+import org.vitaliistf.model.Customer;
+import org.vitaliistf.model.movie.Movie;
+
+import java.io.IOException;
+
+/**
+ * Applies the changes replayed from a {@link Journal}, in the order they were made.
+ */
+public interface JournalHandler {
+
+    /**
+     * Finds a catalog movie by id, to resolve rentals recorded by movie id.
+     *
+     * @param id The id of the movie.
+     * @return The movie, or null if there is none.
+     */
+    Movie findMovie(long id);
+
+    /**
+     * Adds a movie to the catalog.
+     *
+     * @param id    The id the movie was added with.
+     * @param movie The movie.
+     * @throws IOException If the change does not fit the data replayed so far.
+     */
+    void addMovie(long id, Movie movie) throws IOException;
+
+    /**
+     * Removes a movie from the catalog.
+     *
+     * @param id The id of the movie.
+     * @throws IOException If the change does not fit the data replayed so far.
+     */
+    void deleteMovie(long id) throws IOException;
+
+    /**
+     * Adds a customer.
+     *
+     * @param customer The customer with the rentals they were added with.
+     * @throws IOException If the change does not fit the data replayed so far.
+     */
+    void addCustomer(Customer customer) throws IOException;
+
+    /**
+     * Adds a rental to a customer.
+     * A snapshot may already hold rentals added after it was taken, so a rental at a position the customer
+     * already has is skipped.
+     *
+     * @param customerName The name of the customer.
+     * @param index        The position of the rental among the rentals of the customer.
+     * @param movie        The rented movie.
+     * @param days         The duration of the rental.
+     * @throws IOException If the change does not fit the data replayed so far.
+     */
+    void addRental(String customerName, int index, Movie movie, int days) throws IOException;
+}
@@ -0,0 +1,566 @@
+package org.vitaliistf.serialization;
+
+import org.vitaliistf.model.movie.Movie;
+import org.vitaliistf.model.movie.MovieType;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.StreamCorruptedException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Read-optimized layout of the movie catalog, read through memory mapping.
+ * <p>
+ * The section starts with a header of the number of movies, the last movie id handed out, the offset of the index
+ * and the chunk size. It is followed by one record per movie and the index. A record starts with a table of
+ * the offsets of its fields, so any field is found without decoding the others. Strings are stored as their byte
+ * length, or -1 for null, followed by UTF-8 bytes, the actors as their count, or -1 for null, followed by
+ * the strings, and the movie type by name. The index holds the id and the record offset of every movie,
+ * in catalog order.
+ * <p>
+ * The section is mapped in chunks of 1 GiB, since one mapping is limited to 2 GiB, and no record crosses
+ * a chunk boundary, so catalogs larger than the heap can be mapped. Movies are exposed as {@link MappedMovie}
+ * views that decode a field each time it is accessed, so the page cache rather than the heap holds the catalog.
+ * The header, the index and the bounds of every field are checked when the section is mapped, so a damaged catalog
+ * is rejected up front rather than by a getter later on; the strings themselves are decoded only on access.
+ */
+final class MappedCatalog {
+
+    static final int TITLE = 0;
+    static final int TYPE = 1;
+    static final int COUNTRY = 2;
+    static final int DESCRIPTION = 3;
+    static final int DIRECTOR = 4;
+    static final int ACTORS = 5;
+
+    private static final int FIELD_COUNT = 6;
+    private static final int CHUNK_SHIFT = 30;
+    private static final int MIN_CHUNK_SHIFT = 8;
+    private static final int HEADER_SIZE = 32;
+    private static final int INDEX_ENTRY_SIZE = 16;
+    private static final int WRITE_BUFFER_SIZE = 1 << 16;
+
+    private final ByteBuffer[] chunks;
+    private final int chunkShift;
+    private final int size;
+    private final long lastSequence;
+    private final long indexOffset;
+
+    /**
+     * Private constructor to make object producible only inside the class.
+     *
+     * @param chunks       The mapped chunks of the section.
+     * @param chunkShift   The binary logarithm of the chunk size.
+     * @param size         The number of movies.
+     * @param lastSequence The last movie id handed out.
+     * @param indexOffset  The offset of the index in the section.
+     */
+    private MappedCatalog(ByteBuffer[] chunks, int chunkShift, int size, long lastSequence, long indexOffset) {
+        this.chunks = chunks;
+        this.chunkShift = chunkShift;
+        this.size = size;
+        this.lastSequence = lastSequence;
+        this.indexOffset = indexOffset;
+    }
+
+    /**
+     * Writes movies with their ids as a section starting at a position of a file, in chunks of 1 GiB.
+     *
+     * @param channel      The channel of the file; its position is not used or changed.
+     * @param start        The position of the section in the file.
+     * @param movies       The movies.
+     * @param ids          The ids of the movies, in increasing order.
+     * @param lastSequence The last movie id handed out, not less than the ids.
+     * @return The position after the section.
+     * @throws IOException If the file cannot be written or a movie does not fit in a chunk.
+     */
+    static long write(FileChannel channel, long start, Movie[] movies, long[] ids, long lastSequence)
+            throws IOException {
+        return write(channel, start, movies, ids, lastSequence, CHUNK_SHIFT);
+    }
+
+    /**
+     * Writes movies with their ids as a section starting at a position of a file, in chunks of a given size.
+     *
+     * @param channel      The channel of the file; its position is not used or changed.
+     * @param start        The position of the section in the file.
+     * @param movies       The movies.
+     * @param ids          The ids of the movies, in increasing order.
+     * @param lastSequence The last movie id handed out, not less than the ids.
+     * @param chunkShift   The binary logarithm of the chunk size, from 8 to 30.
+     * @return The position after the section.
+     * @throws IOException If the file cannot be written or a movie does not fit in a chunk.
+     */
+    static long write(FileChannel channel, long start, Movie[] movies, long[] ids, long lastSequence, int chunkShift)
+            throws IOException {
+        long chunkSize = 1L << chunkShift;
+        long[] offsets = new long[movies.length];
+        ByteArrayOutputStream record = new ByteArrayOutputStream();
+        SectionOutput output = new SectionOutput(channel, start);
+        output.pad(HEADER_SIZE);
+        for (int i = 0; i < movies.length; i++) {
+            byte[] bytes = encode(movies[i], record);
+            if (bytes.length > chunkSize) {
+                throw new IOException("Movie is too large to be mapped: " + movies[i].getTitle());
+            }
+            long used = output.position() & (chunkSize - 1);
+            if (used + bytes.length > chunkSize) {
+                output.pad(chunkSize - used);
+            }
+            offsets[i] = output.position();
+            output.write(bytes);
+        }
+        long misalignment = output.position() % INDEX_ENTRY_SIZE;
+        if (misalignment != 0) {
+            output.pad(INDEX_ENTRY_SIZE - misalignment);
+        }
+        long indexOffset = output.position();
+        for (int i = 0; i < movies.length; i++) {
+            output.writeLong(ids[i]);
+            output.writeLong(offsets[i]);
+        }
+        output.flush();
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE)
+                .putLong(movies.length)
+                .putLong(lastSequence)
+                .putLong(indexOffset)
+                .putInt(chunkShift)
+                .flip();
+        while (header.hasRemaining()) {
+            channel.write(header, start + header.position());
+        }
+        return start + output.position();
+    }
+
+    /**
+     * Maps a section of a file. The mapping stays valid after the channel is closed,
+     * and after the file is replaced by moving another file over it.
+     *
+     * @param channel The channel of the file.
+     * @param start   The position of the section in the file.
+     * @return The mapped catalog.
+     * @throws IOException If the file cannot be mapped, or the header, the index or a record is malformed.
+     */
+    static MappedCatalog map(FileChannel channel, long start) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+        while (header.hasRemaining()) {
+            if (channel.read(header, start + header.position()) < 0) {
+                throw new EOFException("Unexpected end of data");
+            }
+        }
+        long count = header.getLong(0);
+        long lastSequence = header.getLong(8);
+        long indexOffset = header.getLong(16);
+        int chunkShift = header.getInt(24);
+        if (chunkShift < MIN_CHUNK_SHIFT || chunkShift > CHUNK_SHIFT || count < 0 || count > Integer.MAX_VALUE
+                || indexOffset < HEADER_SIZE || indexOffset % INDEX_ENTRY_SIZE != 0
+                || indexOffset + count * INDEX_ENTRY_SIZE > channel.size() - start) {
+            throw new StreamCorruptedException("Malformed catalog header");
+        }
+        long end = indexOffset + count * INDEX_ENTRY_SIZE;
+        ByteBuffer[] chunks = new ByteBuffer[(int) ((end + (1L << chunkShift) - 1) >>> chunkShift)];
+        for (int i = 0; i < chunks.length; i++) {
+            long offset = (long) i << chunkShift;
+            chunks[i] = channel.map(FileChannel.MapMode.READ_ONLY, start + offset,
+                    Math.min(1L << chunkShift, end - offset));
+        }
+        MappedCatalog catalog = new MappedCatalog(chunks, chunkShift, (int) count, lastSequence, indexOffset);
+        catalog.checkRecords();
+        return catalog;
+    }
+
+    /**
+     * Gets the number of movies.
+     *
+     * @return The number of movies.
+     */
+    int size() {
+        return size;
+    }
+
+    /**
+     * Gets the last movie id handed out, which may belong to a movie removed before the catalog was saved.
+     *
+     * @return The last movie id.
+     */
+    long lastSequence() {
+        return lastSequence;
+    }
+
+    /**
+     * Gets the id of a movie.
+     *
+     * @param position The position of the movie in the catalog.
+     * @return The id.
+     */
+    long id(int position) {
+        long entry = indexOffset + (long) position * INDEX_ENTRY_SIZE;
+        return chunk(entry).getLong(local(entry));
+    }
+
+    /**
+     * Gets a view of a movie, which decodes its fields on access.
+     *
+     * @param position The position of the movie in the catalog.
+     * @return The view.
+     */
+    Movie movie(int position) {
+        long entry = indexOffset + (long) position * INDEX_ENTRY_SIZE + Long.BYTES;
+        return new MappedMovie(this, chunk(entry).getLong(local(entry)));
+    }
+
+    /**
+     * Decodes a string field of a record.
+     *
+     * @param record The offset of the record.
+     * @param field  The field.
+     * @return The string, or null.
+     */
+    String string(long record, int field) {
+        ByteBuffer chunk = chunk(record);
+        return string(chunk, fieldPosition(chunk, record, field));
+    }
+
+    /**
+     * Decodes the movie type of a record.
+     *
+     * @param record The offset of the record.
+     * @return The movie type, or null.
+     */
+    MovieType type(long record) {
+        String name = string(record, TYPE);
+        return name == null ? null : MovieType.valueOf(name);
+    }
+
+    /**
+     * Decodes the actors of a record.
+     *
+     * @param record The offset of the record.
+     * @return The actors, or null.
+     */
+    List<String> actors(long record) {
+        ByteBuffer chunk = chunk(record);
+        int position = fieldPosition(chunk, record, ACTORS);
+        int count = chunk.getInt(position);
+        if (count < 0) {
+            return null;
+        }
+        position += Integer.BYTES;
+        List<String> actors = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            int length = chunk.getInt(position);
+            actors.add(string(chunk, position));
+            position += Integer.BYTES + Math.max(length, 0);
+        }
+        return actors;
+    }
+
+    /**
+     * Checks that the ids in the index are increasing and up to the last id, that every record offset points
+     * inside the records area, and that every field of a record lies within the records area and the chunk
+     * of the record. Takes one pass over the records, reading the lengths of the fields but not their content.
+     *
+     * @throws StreamCorruptedException If the index or a record is malformed.
+     */
+    private void checkRecords() throws StreamCorruptedException {
+        long previous = 0;
+        long chunkSize = 1L << chunkShift;
+        for (int i = 0; i < size; i++) {
+            long id = id(i);
+            long entry = indexOffset + (long) i * INDEX_ENTRY_SIZE + Long.BYTES;
+            long record = chunk(entry).getLong(local(entry));
+            if (id <= previous || id > lastSequence || record < HEADER_SIZE || record >= indexOffset) {
+                throw new StreamCorruptedException("Malformed catalog index at movie " + i);
+            }
+            long limit = Math.min(indexOffset, (record | (chunkSize - 1)) + 1);
+            if (!isValidRecord(chunk(record), local(record), (int) (limit - record))) {
+                throw new StreamCorruptedException("Malformed catalog record at movie " + i);
+            }
+            previous = id;
+        }
+    }
+
+    /**
+     * Checks that the field table of a record points at fields within the bytes available to the record,
+     * that every length fits in them, and that the movie type is known.
+     *
+     * @param chunk     The chunk holding the record.
+     * @param start     The position of the record in the chunk.
+     * @param available The number of bytes from the record to the end of its chunk or of the records area.
+     * @return true if the record is well-formed.
+     */
+    private static boolean isValidRecord(ByteBuffer chunk, int start, int available) {
+        int table = FIELD_COUNT * Integer.BYTES;
+        int limit = start + available;
+        if (available < table) {
+            return false;
+        }
+        for (int field = 0; field < FIELD_COUNT; field++) {
+            int offset = chunk.getInt(start + field * Integer.BYTES);
+            if (offset < table || offset > available - Integer.BYTES) {
+                return false;
+            }
+            int position = start + offset;
+            int end = field == ACTORS ? actorsEnd(chunk, position, limit) : stringEnd(chunk, position, limit);
+            if (end < 0) {
+                return false;
+            }
+        }
+        String type = string(chunk, start + chunk.getInt(start + TYPE * Integer.BYTES));
+        if (type != null) {
+            try {
+                MovieType.valueOf(type);
+            } catch (IllegalArgumentException e) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Finds the end of the actors at a position, checking the count and every string against a limit.
+     *
+     * @param chunk    The chunk.
+     * @param position The position of the count.
+     * @param limit    The position the actors must end by.
+     * @return The position after the actors, or -1 if they are malformed or overrun the limit.
+     */
+    private static int actorsEnd(ByteBuffer chunk, int position, int limit) {
+        if (limit - position < Integer.BYTES) {
+            return -1;
+        }
+        int count = chunk.getInt(position);
+        position += Integer.BYTES;
+        if (count < -1) {
+            return -1;
+        }
+        for (int i = 0; i < count && position >= 0; i++) {
+            position = stringEnd(chunk, position, limit);
+        }
+        return position;
+    }
+
+    /**
+     * Finds the end of a length-prefixed string at a position, checking its length against a limit.
+     *
+     * @param chunk    The chunk.
+     * @param position The position of the length.
+     * @param limit    The position the string must end by.
+     * @return The position after the string, or -1 if it is malformed or overruns the limit.
+     */
+    private static int stringEnd(ByteBuffer chunk, int position, int limit) {
+        if (limit - position < Integer.BYTES) {
+            return -1;
+        }
+        int length = chunk.getInt(position);
+        position += Integer.BYTES;
+        if (length < 0) {
+            return length == -1 ? position : -1;
+        }
+        return length <= limit - position ? position + length : -1;
+    }
+
+    /**
+     * Finds the position of a field in its chunk through the offset table of the record.
+     *
+     * @param chunk  The chunk holding the record.
+     * @param record The offset of the record.
+     * @param field  The field.
+     * @return The position of the field in the chunk.
+     */
+    private int fieldPosition(ByteBuffer chunk, long record, int field) {
+        int position = local(record);
+        return position + chunk.getInt(position + field * Integer.BYTES);
+    }
+
+    /**
+     * Gets the chunk holding an offset of the section.
+     *
+     * @param offset The offset.
+     * @return The chunk.
+     */
+    private ByteBuffer chunk(long offset) {
+        return chunks[(int) (offset >>> chunkShift)];
+    }
+
+    /**
+     * Gets the position of an offset of the section in its chunk.
+     *
+     * @param offset The offset.
+     * @return The position in the chunk.
+     */
+    private int local(long offset) {
+        return (int) (offset & ((1L << chunkShift) - 1));
+    }
+
+    /**
+     * Decodes a length-prefixed string at a position of a chunk, without changing the position of the chunk.
+     * The length must have been checked against the records area, as {@link #checkRecords()} does.
+     *
+     * @param chunk    The chunk.
+     * @param position The position of the length.
+     * @return The string, or null.
+     */
+    private static String string(ByteBuffer chunk, int position) {
+        int length = chunk.getInt(position);
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        chunk.get(position + Integer.BYTES, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Encodes the record of a movie.
+     *
+     * @param movie  The movie.
+     * @param buffer The buffer to encode into, reused between records.
+     * @return The record.
+     * @throws IOException If the record cannot be encoded.
+     */
+    private static byte[] encode(Movie movie, ByteArrayOutputStream buffer) throws IOException {
+        buffer.reset();
+        DataOutputStream output = new DataOutputStream(buffer);
+        int[] fields = new int[FIELD_COUNT];
+        output.write(new byte[FIELD_COUNT * Integer.BYTES]);
+        fields[TITLE] = buffer.size();
+        writeString(output, movie.getTitle());
+        fields[TYPE] = buffer.size();
+        writeString(output, movie.getPriceCode() == null ? null : movie.getPriceCode().name());
+        fields[COUNTRY] = buffer.size();
+        writeString(output, movie.getCountryOfOrigin());
+        fields[DESCRIPTION] = buffer.size();
+        writeString(output, movie.getDescription());
+        fields[DIRECTOR] = buffer.size();
+        writeString(output, movie.getDirector());
+        fields[ACTORS] = buffer.size();
+        List<String> actors = movie.getActors();
+        output.writeInt(actors == null ? -1 : actors.size());
+        if (actors != null) {
+            for (String actor : actors) {
+                writeString(output, actor);
+            }
+        }
+        ByteBuffer record = ByteBuffer.wrap(buffer.toByteArray());
+        for (int field = 0; field < FIELD_COUNT; field++) {
+            record.putInt(field * Integer.BYTES, fields[field]);
+        }
+        return record.array();
+    }
+
+    /**
+     * Encodes a length-prefixed string.
+     *
+     * @param output The output.
+     * @param value  The string, or null.
+     * @throws IOException If the string cannot be encoded.
+     */
+    private static void writeString(DataOutputStream output, String value) throws IOException {
+        if (value == null) {
+            output.writeInt(-1);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        output.writeInt(bytes.length);
+        output.write(bytes);
+    }
+
+    /**
+     * Buffered output of a section at a position of a file, keeping track of the offset in the section.
+     */
+    private static final class SectionOutput {
+
+        private final FileChannel channel;
+        private final long start;
+        private final ByteBuffer buffer;
+        private long flushed;
+
+        /**
+         * Constructs a new instance of the SectionOutput.
+         *
+         * @param channel The channel of the file.
+         * @param start   The position of the section in the file.
+         */
+        SectionOutput(FileChannel channel, long start) {
+            this.channel = channel;
+            this.start = start;
+            this.buffer = ByteBuffer.allocate(WRITE_BUFFER_SIZE);
+        }
+
+        /**
+         * Gets the offset in the section of the next byte written.
+         *
+         * @return The offset.
+         */
+        long position() {
+            return flushed + buffer.position();
+        }
+
+        /**
+         * Writes bytes.
+         *
+         * @param bytes The bytes.
+         * @throws IOException If the file cannot be written.
+         */
+        void write(byte[] bytes) throws IOException {
+            int offset = 0;
+            while (offset < bytes.length) {
+                if (!buffer.hasRemaining()) {
+                    flush();
+                }
+                int length = Math.min(buffer.remaining(), bytes.length - offset);
+                buffer.put(bytes, offset, length);
+                offset += length;
+            }
+        }
+
+        /**
+         * Writes a 64-bit integer in big-endian order.
+         *
+         * @param value The integer.
+         * @throws IOException If the file cannot be written.
+         */
+        void writeLong(long value) throws IOException {
+            if (buffer.remaining() < Long.BYTES) {
+                flush();
+            }
+            buffer.putLong(value);
+        }
+
+        /**
+         * Writes zero bytes.
+         *
+         * @param count The number of bytes.
+         * @throws IOException If the file cannot be written.
+         */
+        void pad(long count) throws IOException {
+            for (long i = 0; i < count; i++) {
+                if (!buffer.hasRemaining()) {
+                    flush();
+                }
+                buffer.put((byte) 0);
+            }
+        }
+
+        /**
+         * Writes the buffered bytes to the file.
+         *
+         * @throws IOException If the file cannot be written.
+         */
+        void flush() throws IOException {
+            buffer.flip();
+            while (buffer.hasRemaining()) {
+                channel.write(buffer, start + flushed + buffer.position());
+            }
+            flushed += buffer.limit();
+            buffer.clear();
+        }
+    }
+}
@@ -0,0 +1,101 @@
+package org.vitaliistf.serialization;
+
+import org.vitaliistf.model.movie.Movie;
+import org.vitaliistf.model.movie.MovieType;
+
+import java.io.Serial;
+import java.util.List;
+
+/**
+ * View of a movie in a {@link MappedCatalog}. Only the position of the record is held on the heap;
+ * every getter decodes its field from the mapped file when called, except the price code, which is
+ * used to price every rental and is kept once decoded.
+ * <p>
+ * The view is serialized as a plain {@link Movie}, since the mapping cannot be.
+ */
+final class MappedMovie extends Movie {
+
+    @Serial
+    private static final long serialVersionUID = 1L;
+
+    private final transient MappedCatalog catalog;
+    private final long record;
+    private transient MovieType priceCode;
+    private transient int hash;
+
+    /**
+     * Constructs a new instance of the MappedMovie.
+     *
+     * @param catalog The catalog holding the movie.
+     * @param record  The offset of the record of the movie.
+     */
+    MappedMovie(MappedCatalog catalog, long record) {
+        this.catalog = catalog;
+        this.record = record;
+    }
+
+    @Override
+    public MovieType getPriceCode() {
+        MovieType type = priceCode;
+        if (type == null) {
+            type = catalog.type(record);
+            priceCode = type;
+        }
+        return type;
+    }
+
+    @Override
+    public String getTitle() {
+        return catalog.string(record, MappedCatalog.TITLE);
+    }
+
+    @Override
+    public String getCountryOfOrigin() {
+        return catalog.string(record, MappedCatalog.COUNTRY);
+    }
+
+    @Override
+    public String getDescription() {
+        return catalog.string(record, MappedCatalog.DESCRIPTION);
+    }
+
+    @Override
+    public String getDirector() {
+        return catalog.string(record, MappedCatalog.DIRECTOR);
+    }
+
+    @Override
+    public List<String> getActors() {
+        return catalog.actors(record);
+    }
+
+    /**
+     * Computes the hash code from the decoded fields once and keeps it, since the record never changes.
+     *
+     * @return The hash code.
+     */
+    @Override
+    public int hashCode() {
+        int h = hash;
+        if (h == 0) {
+            h = super.hashCode();
+            hash = h;
+        }
+        return h;
+    }
+
+    /**
+     * Replaces the view with a plain movie holding the decoded fields when serialized.
+     *
+     * @return The plain movie.
+     */
+    @Serial
+    private Object writeReplace() {
+        return new Movie.Builder(getTitle(), getPriceCode())
+                .countryOfOrigin(getCountryOfOrigin())
+                .description(getDescription())
+                .director(getDirector())
+                .actors(getActors())
+                .build();
+    }
+}
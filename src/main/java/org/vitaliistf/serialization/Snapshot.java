@@ -0,0 +1,18 @@
+package org.vitaliistf.serialization;
+
+import org.vitaliistf.collection.PersistentSequence;
+import org.vitaliistf.model.Customer;
+import org.vitaliistf.model.movie.Movie;
+
+import java.util.List;
+
+/**
+ * Represents the movie catalog and the customer list saved together at one point of the journal.
+ *
+ * @param generation   The generation of the first journal segment written after the snapshot was taken.
+ * @param catalogId    The identity of the movie catalog, or 0 if it was saved without one.
+ * @param movieCatalog The movie catalog, with the ids of the movies as sequence numbers.
+ * @param customers    The customer list.
+ */
+public record Snapshot(long generation, long catalogId, PersistentSequence<Movie> movieCatalog, List<Customer> customers) {
+}
@@ -19,6 +19,17 @@ public class ChildrensPriceStrategy implements PriceStrategy {
         return amount;
     }
 
+    /**
+     * Calculates the exact rental price in cents for a children's movie based on the number of days rented.
+     *
+     * @param daysRented The number of days the movie is rented for.
+     * @return The calculated rental price in cents.
+     */
+    @Override
+    public long calculatePriceCents(int daysRented) {
+        return 150 + (daysRented > 3 ? (daysRented - 3) * 150L : 0);
+    }
+
     /**
      * Calculates the rental points for a children's movie based on the number of days rented.
      *
@@ -29,4 +40,36 @@ public class ChildrensPriceStrategy implements PriceStrategy {
     public int calculatePoints(int daysRented) {
         return 1;
     }
+
+    /**
+     * Calculates rental prices and points for a batch of children's movies.
+     *
+     * @param daysRented The numbers of days each movie is rented for.
+     * @param prices     The array to fill with the calculated prices.
+     * @param points     The array to fill with the calculated points.
+     */
+    @Override
+    public void calculateAll(int[] daysRented, double[] prices, int[] points) {
+        for (int i = 0; i < daysRented.length; i++) {
+            int days = daysRented[i];
+            prices[i] = 1.5 + (days > 3 ? (days - 3) * 1.5 : 0);
+            points[i] = 1;
+        }
+    }
+
+    /**
+     * Calculates exact rental prices in cents and points for a batch of children's movies.
+     *
+     * @param daysRented The numbers of days each movie is rented for.
+     * @param prices     The array to fill with the calculated prices in cents.
+     * @param points     The array to fill with the calculated points.
+     */
+    @Override
+    public void calculateAllCents(int[] daysRented, long[] prices, int[] points) {
+        for (int i = 0; i < daysRented.length; i++) {
+            int days = daysRented[i];
+            prices[i] = 150 + (days > 3 ? (days - 3) * 150L : 0);
+            points[i] = 1;
+        }
+    }
 }
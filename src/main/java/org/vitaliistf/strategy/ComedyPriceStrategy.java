@@ -16,6 +16,17 @@ public class ComedyPriceStrategy implements PriceStrategy {
         return 2 + daysRented * 2;
     }
 
+    /**
+     * Calculates the exact rental price in cents for a comedy movie based on the number of days rented.
+     *
+     * @param daysRented The number of days the movie is rented for.
+     * @return The calculated rental price in cents.
+     */
+    @Override
+    public long calculatePriceCents(int daysRented) {
+        return 200 + daysRented * 200L;
+    }
+
     /**
      * Calculates the rental points for a comedy movie based on the number of days rented.
      *
@@ -26,4 +37,36 @@ public class ComedyPriceStrategy implements PriceStrategy {
     public int calculatePoints(int daysRented) {
         return 1;
     }
+
+    /**
+     * Calculates rental prices and points for a batch of comedy movies.
+     *
+     * @param daysRented The numbers of days each movie is rented for.
+     * @param prices     The array to fill with the calculated prices.
+     * @param points     The array to fill with the calculated points.
+     */
+    @Override
+    public void calculateAll(int[] daysRented, double[] prices, int[] points) {
+        for (int i = 0; i < daysRented.length; i++) {
+            int days = daysRented[i];
+            prices[i] = 2 + days * 2;
+            points[i] = 1;
+        }
+    }
+
+    /**
+     * Calculates exact rental prices in cents and points for a batch of comedy movies.
+     *
+     * @param daysRented The numbers of days each movie is rented for.
+     * @param prices     The array to fill with the calculated prices in cents.
+     * @param points     The array to fill with the calculated points.
+     */
+    @Override
+    public void calculateAllCents(int[] daysRented, long[] prices, int[] points) {
+        for (int i = 0; i < daysRented.length; i++) {
+            int days = daysRented[i];
+            prices[i] = 200 + days * 200L;
+            points[i] = 1;
+        }
+    }
 }
@@ -16,6 +16,17 @@ public class NewReleasePriceStrategy implements PriceStrategy {
         return daysRented * 3;
     }
 
+    /**
+     * Calculates the exact rental price in cents for a new release movie based on the number of days rented.
+     *
+     * @param daysRented The number of days the movie is rented for.
+     * @return The calculated rental price in cents.
+     */
+    @Override
+    public long calculatePriceCents(int daysRented) {
+        return daysRented * 300L;
+    }
+
     /**
      * Calculates the rental points for a new release movie based on the number of days rented.
      *
@@ -26,4 +37,36 @@ public class NewReleasePriceStrategy implements PriceStrategy {
     public int calculatePoints(int daysRented) {
         return 1 + (daysRented > 1 ? 1 : 0);
     }
+
+    /**
+     * Calculates rental prices and points for a batch of new release movies.
+     *
+     * @param daysRented The numbers of days each movie is rented for.
+     * @param prices     The array to fill with the calculated prices.
+     * @param points     The array to fill with the calculated points.
+     */
+    @Override
+    public void calculateAll(int[] daysRented, double[] prices, int[] points) {
+        for (int i = 0; i < daysRented.length; i++) {
+            int days = daysRented[i];
+            prices[i] = days * 3;
+            points[i] = days > 1 ? 2 : 1;
+        }
+    }
+
+    /**
+     * Calculates exact rental prices in cents and points for a batch of new release movies.
+     *
+     * @param daysRented The numbers of days each movie is rented for.
+     * @param prices     The array to fill with the calculated prices in cents.
+     * @param points     The array to fill with the calculated points.
+     */
+    @Override
+    public void calculateAllCents(int[] daysRented, long[] prices, int[] points) {
+        for (int i = 0; i < daysRented.length; i++) {
+            int days = daysRented[i];
+            prices[i] = days * 300L;
+            points[i] = days > 1 ? 2 : 1;
+        }
+    }
 }
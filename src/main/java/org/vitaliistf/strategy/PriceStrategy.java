@@ -13,6 +13,17 @@ public interface PriceStrategy {
      */
     double calculatePrice(int daysRented);
 
+    /**
+     * Calculates the exact rental price in cents based on the number of days rented.
+     * The default rounds {@link #calculatePrice(int)}; implementations override it with integer arithmetic.
+     *
+     * @param daysRented The number of days the movie is rented for.
+     * @return The calculated rental price in cents.
+     */
+    default long calculatePriceCents(int daysRented) {
+        return Math.round(calculatePrice(daysRented) * 100);
+    }
+
     /**
      * Calculates the rental points based on the number of days rented.
      *
@@ -20,4 +31,34 @@ public interface PriceStrategy {
      * @return The calculated rental points.
      */
     int calculatePoints(int daysRented);
+
+    /**
+     * Calculates rental prices and points for a batch of rentals.
+     * Implementations override this with a tight loop the JIT can unroll and vectorize.
+     *
+     * @param daysRented The numbers of days each movie is rented for.
+     * @param prices     The array to fill with the calculated prices; at least as long as daysRented.
+     * @param points     The array to fill with the calculated points; at least as long as daysRented.
+     */
+    default void calculateAll(int[] daysRented, double[] prices, int[] points) {
+        for (int i = 0; i < daysRented.length; i++) {
+            prices[i] = calculatePrice(daysRented[i]);
+            points[i] = calculatePoints(daysRented[i]);
+        }
+    }
+
+    /**
+     * Calculates exact rental prices in cents and points for a batch of rentals.
+     * Implementations override this with a tight loop the JIT can unroll and vectorize.
+     *
+     * @param daysRented The numbers of days each movie is rented for.
+     * @param prices     The array to fill with the calculated prices in cents; at least as long as daysRented.
+     * @param points     The array to fill with the calculated points; at least as long as daysRented.
+     */
+    default void calculateAllCents(int[] daysRented, long[] prices, int[] points) {
+        for (int i = 0; i < daysRented.length; i++) {
+            prices[i] = calculatePriceCents(daysRented[i]);
+            points[i] = calculatePoints(daysRented[i]);
+        }
+    }
 }
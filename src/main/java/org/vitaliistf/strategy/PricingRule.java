@@ -0,0 +1,44 @@
+package org.vitaliistf.strategy;
+
+/**
+ * Represents a pricing rule of a movie type, as loaded from a pricing rules file.
+ * The price is the base amount plus the day rate for every day past the included days.
+ * The points are the base points plus the bonus points when the rental length is within the bonus range.
+ *
+ * @param baseCents     The base amount in cents.
+ * @param includedDays  The number of days covered by the base amount.
+ * @param dayRateCents  The amount in cents for every day past the included days.
+ * @param points        The base frequent renter points.
+ * @param bonusPoints   The extra points for rentals within the bonus range.
+ * @param bonusFromDays The shortest rental, in days, earning the bonus.
+ * @param bonusToDays   The longest rental, in days, earning the bonus.
+ */
+public record PricingRule(long baseCents, int includedDays, long dayRateCents,
+                          int points, int bonusPoints, int bonusFromDays, int bonusToDays) {
+
+    /**
+     * Constructs a new instance of the PricingRule.
+     *
+     * @throws IllegalArgumentException If an amount, the included days or points are negative,
+     *                                  or the bonus range is empty.
+     */
+    public PricingRule {
+        if (baseCents < 0 || dayRateCents < 0 || includedDays < 0 || points < 0 || bonusPoints < 0) {
+            throw new IllegalArgumentException("Amounts, included days and points must not be negative");
+        }
+        if (bonusFromDays > bonusToDays) {
+            throw new IllegalArgumentException("Bonus range must not be empty");
+        }
+    }
+
+    /**
+     * Compiles the rule into a price strategy.
+     * Prices and points of typical rental lengths are precomputed, so pricing a rental costs the same
+     * as with the built-in strategies.
+     *
+     * @return The strategy applying the rule.
+     */
+    public PriceStrategy compile() {
+        return new TabulatedPriceStrategy(new RulePriceStrategy(this));
+    }
+}
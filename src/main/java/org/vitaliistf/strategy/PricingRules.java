@@ -0,0 +1,137 @@
+package org.vitaliistf.strategy;
+
+import org.vitaliistf.model.movie.MovieType;
+
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.math.BigDecimal;
+import java.util.EnumMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+
+/**
+ * Reads pricing rules of movie types from a properties file.
+ * Each key is a movie type name and a rule field separated by a dot, e.g. {@code DRAMA.dayRate=1.50}.
+ * The fields are {@code base} and {@code dayRate} (amounts with at most two decimals),
+ * and optionally {@code includedDays} (default 0), {@code points} (default 1), {@code bonusPoints} (default 0),
+ * {@code bonusFromDays} and {@code bonusToDays} (default unbounded).
+ * Movie types without keys are not part of the result and keep their current pricing.
+ */
+public final class PricingRules {
+
+    private static final Set<String> FIELDS = Set.of(
+            "base", "includedDays", "dayRate", "points", "bonusPoints", "bonusFromDays", "bonusToDays");
+
+    /**
+     * Private constructor to prevent instantiation of the utility class.
+     */
+    private PricingRules() {
+    }
+
+    /**
+     * Loads pricing rules from a file.
+     *
+     * @param fileName The name of the file to load the rules from.
+     * @return The rules by movie type.
+     * @throws IOException              If the file cannot be read.
+     * @throws IllegalArgumentException If the file contains an unknown key or an invalid value.
+     */
+    public static Map<MovieType, PricingRule> load(String fileName) throws IOException {
+        Properties properties = new Properties();
+        try (Reader reader = new FileReader(fileName)) {
+            properties.load(reader);
+        }
+        return parse(properties);
+    }
+
+    /**
+     * Compiles pricing rules into price strategies.
+     *
+     * @param rules The rules by movie type.
+     * @return The strategies by movie type.
+     */
+    public static Map<MovieType, PriceStrategy> compile(Map<MovieType, PricingRule> rules) {
+        Map<MovieType, PriceStrategy> strategies = new EnumMap<>(MovieType.class);
+        rules.forEach((type, rule) -> strategies.put(type, rule.compile()));
+        return strategies;
+    }
+
+    /**
+     * Parses pricing rules from properties.
+     *
+     * @param properties The properties holding the rules.
+     * @return The rules by movie type.
+     * @throws IllegalArgumentException If there is an unknown key, a missing amount or an invalid value.
+     */
+    public static Map<MovieType, PricingRule> parse(Properties properties) {
+        Set<MovieType> types = new HashSet<>();
+        for (String key : properties.stringPropertyNames()) {
+            int dot = key.indexOf('.');
+            if (dot < 0 || !FIELDS.contains(key.substring(dot + 1))) {
+                throw new IllegalArgumentException("Unknown pricing key: " + key);
+            }
+            try {
+                types.add(MovieType.valueOf(key.substring(0, dot)));
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Unknown movie type in pricing key: " + key);
+            }
+        }
+
+        Map<MovieType, PricingRule> rules = new EnumMap<>(MovieType.class);
+        for (MovieType type : types) {
+            rules.put(type, new PricingRule(
+                    cents(properties, type + ".base"),
+                    integer(properties, type + ".includedDays", 0),
+                    cents(properties, type + ".dayRate"),
+                    integer(properties, type + ".points", 1),
+                    integer(properties, type + ".bonusPoints", 0),
+                    integer(properties, type + ".bonusFromDays", Integer.MIN_VALUE),
+                    integer(properties, type + ".bonusToDays", Integer.MAX_VALUE)));
+        }
+        return rules;
+    }
+
+    /**
+     * Reads a required amount in cents.
+     *
+     * @param properties The properties holding the rules.
+     * @param key        The key of the amount.
+     * @return The amount in cents.
+     * @throws IllegalArgumentException If the amount is missing or has more than two decimals.
+     */
+    private static long cents(Properties properties, String key) {
+        String value = properties.getProperty(key);
+        if (value == null) {
+            throw new IllegalArgumentException("Missing pricing key: " + key);
+        }
+        try {
+            return new BigDecimal(value.trim()).movePointRight(2).longValueExact();
+        } catch (ArithmeticException | NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid amount for " + key + ": " + value);
+        }
+    }
+
+    /**
+     * Reads an optional integer.
+     *
+     * @param properties   The properties holding the rules.
+     * @param key          The key of the integer.
+     * @param defaultValue The value used if the key is missing.
+     * @return The integer.
+     * @throws IllegalArgumentException If the value is not an integer.
+     */
+    private static int integer(Properties properties, String key, int defaultValue) {
+        String value = properties.getProperty(key);
+        if (value == null) {
+            return defaultValue;
+        }
+        try {
+            return Integer.parseInt(value.trim());
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid number for " + key + ": " + value);
+        }
+    }
+}
@@ -0,0 +1,88 @@
+package org.vitaliistf.strategy;
+
+/**
+ * Precomputed prices and points of several price strategies in flat arrays, one row per strategy.
+ * Looking up a rental is an array load at {@code row * (maxDays + 1) + days}, with no call through the
+ * PriceStrategy interface, so callers pricing many kinds of movies at one call site can be inlined.
+ * Rentals longer than the table fall back to the strategy of the row.
+ */
+public final class PricingTable {
+
+    private final PriceStrategy[] strategies;
+    private final int maxDays;
+    private final int stride;
+    private final double[] prices;
+    private final long[] cents;
+    private final int[] points;
+
+    /**
+     * Constructs a new instance of the PricingTable covering rentals up to
+     * {@link TabulatedPriceStrategy#DEFAULT_MAX_DAYS}.
+     *
+     * @param strategies The strategies to precompute, one per row.
+     */
+    public PricingTable(PriceStrategy[] strategies) {
+        this(strategies, TabulatedPriceStrategy.DEFAULT_MAX_DAYS);
+    }
+
+    /**
+     * Constructs a new instance of the PricingTable.
+     *
+     * @param strategies The strategies to precompute, one per row.
+     * @param maxDays    The longest rental, in days, covered by the table.
+     */
+    public PricingTable(PriceStrategy[] strategies, int maxDays) {
+        this.strategies = strategies.clone();
+        this.maxDays = maxDays;
+        this.stride = maxDays + 1;
+        this.prices = new double[strategies.length * stride];
+        this.cents = new long[strategies.length * stride];
+        this.points = new int[strategies.length * stride];
+        for (int row = 0; row < strategies.length; row++) {
+            for (int days = 0; days <= maxDays; days++) {
+                prices[row * stride + days] = strategies[row].calculatePrice(days);
+                cents[row * stride + days] = strategies[row].calculatePriceCents(days);
+                points[row * stride + days] = strategies[row].calculatePoints(days);
+            }
+        }
+    }
+
+    /**
+     * Looks up the rental price of a row.
+     *
+     * @param row        The row of the strategy.
+     * @param daysRented The number of days the movie is rented for.
+     * @return The calculated rental price.
+     */
+    public double price(int row, int daysRented) {
+        return daysRented >= 0 && daysRented <= maxDays
+                ? prices[row * stride + daysRented]
+                : strategies[row].calculatePrice(daysRented);
+    }
+
+    /**
+     * Looks up the exact rental price in cents of a row.
+     *
+     * @param row        The row of the strategy.
+     * @param daysRented The number of days the movie is rented for.
+     * @return The calculated rental price in cents.
+     */
+    public long priceCents(int row, int daysRented) {
+        return daysRented >= 0 && daysRented <= maxDays
+                ? cents[row * stride + daysRented]
+                : strategies[row].calculatePriceCents(daysRented);
+    }
+
+    /**
+     * Looks up the rental points of a row.
+     *
+     * @param row        The row of the strategy.
+     * @param daysRented The number of days the movie is rented for.
+     * @return The calculated rental points.
+     */
+    public int points(int row, int daysRented) {
+        return daysRented >= 0 && daysRented <= maxDays
+                ? points[row * stride + daysRented]
+                : strategies[row].calculatePoints(daysRented);
+    }
+}
@@ -0,0 +1,64 @@
+package org.vitaliistf.strategy;
+
+/**
+ * Implementation of the PriceStrategy interface that applies a PricingRule.
+ * The rule is copied into final fields, so pricing does not go through the rule record.
+ */
+public class RulePriceStrategy implements PriceStrategy {
+
+    private final long baseCents;
+    private final int includedDays;
+    private final long dayRateCents;
+    private final int points;
+    private final int bonusPoints;
+    private final int bonusFromDays;
+    private final int bonusToDays;
+
+    /**
+     * Constructs a new instance of the RulePriceStrategy.
+     *
+     * @param rule The rule to apply.
+     */
+    public RulePriceStrategy(PricingRule rule) {
+        this.baseCents = rule.baseCents();
+        this.includedDays = rule.includedDays();
+        this.dayRateCents = rule.dayRateCents();
+        this.points = rule.points();
+        this.bonusPoints = rule.bonusPoints();
+        this.bonusFromDays = rule.bonusFromDays();
+        this.bonusToDays = rule.bonusToDays();
+    }
+
+    /**
+     * Calculates the rental price by the rule based on the number of days rented.
+     *
+     * @param daysRented The number of days the movie is rented for.
+     * @return The calculated rental price.
+     */
+    @Override
+    public double calculatePrice(int daysRented) {
+        return calculatePriceCents(daysRented) / 100.0;
+    }
+
+    /**
+     * Calculates the exact rental price in cents by the rule based on the number of days rented.
+     *
+     * @param daysRented The number of days the movie is rented for.
+     * @return The calculated rental price in cents.
+     */
+    @Override
+    public long calculatePriceCents(int daysRented) {
+        return baseCents + (daysRented > includedDays ? (daysRented - includedDays) * dayRateCents : 0);
+    }
+
+    /**
+     * Calculates the rental points by the rule based on the number of days rented.
+     *
+     * @param daysRented The number of days the movie is rented for.
+     * @return The calculated rental points.
+     */
+    @Override
+    public int calculatePoints(int daysRented) {
+        return points + (daysRented >= bonusFromDays && daysRented <= bonusToDays ? bonusPoints : 0);
+    }
+}
@@ -0,0 +1,131 @@
+package org.vitaliistf.strategy;
+
+/**
+ * Decorator of a PriceStrategy that precomputes prices and points for typical rental lengths.
+ * Rentals within the table are priced with a single array load; longer rentals fall back to the wrapped strategy.
+ */
+public class TabulatedPriceStrategy implements PriceStrategy {
+
+    /**
+     * Default longest rental, in days, covered by the tables.
+     */
+    public static final int DEFAULT_MAX_DAYS = 60;
+
+    private final PriceStrategy strategy;
+    private final double[] prices;
+    private final long[] cents;
+    private final int[] points;
+
+    /**
+     * Constructs a new instance of the TabulatedPriceStrategy covering rentals up to {@link #DEFAULT_MAX_DAYS}.
+     *
+     * @param strategy The strategy to precompute.
+     */
+    public TabulatedPriceStrategy(PriceStrategy strategy) {
+        this(strategy, DEFAULT_MAX_DAYS);
+    }
+
+    /**
+     * Constructs a new instance of the TabulatedPriceStrategy.
+     *
+     * @param strategy The strategy to precompute.
+     * @param maxDays  The longest rental, in days, covered by the tables.
+     */
+    public TabulatedPriceStrategy(PriceStrategy strategy, int maxDays) {
+        this.strategy = strategy;
+        this.prices = new double[maxDays + 1];
+        this.cents = new long[maxDays + 1];
+        this.points = new int[maxDays + 1];
+        for (int days = 0; days <= maxDays; days++) {
+            prices[days] = strategy.calculatePrice(days);
+            cents[days] = strategy.calculatePriceCents(days);
+            points[days] = strategy.calculatePoints(days);
+        }
+    }
+
+    /**
+     * Gets the strategy the tables were computed from.
+     *
+     * @return The wrapped strategy.
+     */
+    public PriceStrategy getStrategy() {
+        return strategy;
+    }
+
+    /**
+     * Looks up the rental price, computing it only for rentals outside the table.
+     *
+     * @param daysRented The number of days the movie is rented for.
+     * @return The calculated rental price.
+     */
+    @Override
+    public double calculatePrice(int daysRented) {
+        return daysRented >= 0 && daysRented < prices.length ? prices[daysRented] : strategy.calculatePrice(daysRented);
+    }
+
+    /**
+     * Looks up the exact rental price in cents, computing it only for rentals outside the table.
+     *
+     * @param daysRented The number of days the movie is rented for.
+     * @return The calculated rental price in cents.
+     */
+    @Override
+    public long calculatePriceCents(int daysRented) {
+        return daysRented >= 0 && daysRented < cents.length ? cents[daysRented] : strategy.calculatePriceCents(daysRented);
+    }
+
+    /**
+     * Looks up the rental points, computing them only for rentals outside the table.
+     *
+     * @param daysRented The number of days the movie is rented for.
+     * @return The calculated rental points.
+     */
+    @Override
+    public int calculatePoints(int daysRented) {
+        return daysRented >= 0 && daysRented < points.length ? points[daysRented] : strategy.calculatePoints(daysRented);
+    }
+
+    /**
+     * Looks up rental prices and points for a batch of rentals,
+     * computing them only for rentals outside the table.
+     *
+     * @param daysRented The numbers of days each movie is rented for.
+     * @param prices     The array to fill with the calculated prices.
+     * @param points     The array to fill with the calculated points.
+     */
+    @Override
+    public void calculateAll(int[] daysRented, double[] prices, int[] points) {
+        for (int i = 0; i < daysRented.length; i++) {
+            int days = daysRented[i];
+            if (days >= 0 && days < this.prices.length) {
+                prices[i] = this.prices[days];
+                points[i] = this.points[days];
+            } else {
+                prices[i] = strategy.calculatePrice(days);
+                points[i] = strategy.calculatePoints(days);
+            }
+        }
+    }
+
+    /**
+     * Looks up exact rental prices in cents and points for a batch of rentals,
+     * computing them only for rentals outside the table.
+     *
+     * @param daysRented The numbers of days each movie is rented for.
+     * @param prices     The array to fill with the calculated prices in cents.
+     * @param points     The array to fill with the calculated points.
+     */
+    @Override
+    public void calculateAllCents(int[] daysRented, long[] prices, int[] points) {
+        for (int i = 0; i < daysRented.length; i++) {
+            int days = daysRented[i];
+            if (days >= 0 && days < cents.length) {
+                prices[i] = cents[days];
+                points[i] = this.points[days];
+            } else {
+                prices[i] = strategy.calculatePriceCents(days);
+                points[i] = strategy.calculatePoints(days);
+            }
+        }
+    }
+}
@@ -16,6 +16,17 @@ public class ThrillerPriceStrategy implements PriceStrategy {
         return 3 + daysRented * 2.5;
     }
 
+    /**
+     * Calculates the exact rental price in cents for a thriller movie based on the number of days rented.
+     *
+     * @param daysRented The number of days the movie is rented for.
+     * @return The calculated rental price in cents.
+     */
+    @Override
+    public long calculatePriceCents(int daysRented) {
+        return 300 + daysRented * 250L;
+    }
+
     /**
      * Calculates the rental points for a thriller movie based on the number of days rented.
      *
@@ -27,4 +38,35 @@ public class ThrillerPriceStrategy implements PriceStrategy {
         return 1 + (daysRented < 2 ? 1 : 0);
     }
 
+    /**
+     * Calculates rental prices and points for a batch of thriller movies.
+     *
+     * @param daysRented The numbers of days each movie is rented for.
+     * @param prices     The array to fill with the calculated prices.
+     * @param points     The array to fill with the calculated points.
+     */
+    @Override
+    public void calculateAll(int[] daysRented, double[] prices, int[] points) {
+        for (int i = 0; i < daysRented.length; i++) {
+            int days = daysRented[i];
+            prices[i] = 3 + days * 2.5;
+            points[i] = days < 2 ? 2 : 1;
+        }
+    }
+
+    /**
+     * Calculates exact rental prices in cents and points for a batch of thriller movies.
+     *
+     * @param daysRented The numbers of days each movie is rented for.
+     * @param prices     The array to fill with the calculated prices in cents.
+     * @param points     The array to fill with the calculated points.
+     */
+    @Override
+    public void calculateAllCents(int[] daysRented, long[] prices, int[] points) {
+        for (int i = 0; i < daysRented.length; i++) {
+            int days = daysRented[i];
+            prices[i] = 300 + days * 250L;
+            points[i] = days < 2 ? 2 : 1;
+        }
+    }
 }
@@ -2,6 +2,7 @@ package org.vitaliistf.view;
 
 import org.vitaliistf.model.Customer;
 import org.vitaliistf.model.Rental;
+import org.vitaliistf.model.RentalTotals;
 
 /**
  * HTML implementation of the RentalsView interface for generating rentals-related HTML output for a customer.
@@ -71,8 +72,8 @@ public class HtmlRentalsView implements RentalsView {
         for (Rental each : customer.rentals()) {
             sb.append("<li>")
                     .append(each.movie().getTitle())
-                    .append(" - ")
-                    .append(each.calculatePrice())
+                    .append(" - ");
+            MoneyFormat.appendCents(sb, each.calculatePriceCents())
                     .append("</li>\n");
         }
         sb.append("</ul>\n");
@@ -87,16 +88,12 @@ public class HtmlRentalsView implements RentalsView {
      */
     @Override
     public String generateFooter(Customer customer) {
-        return """
-                <p>Amount owed is <strong>""" +
-                customer.getTotalAmount() +
-                """
-                        </strong>.</p>
-                        <p>You earned <strong>""" +
-                customer.getPoints() +
-                """
-                        </strong> points.</p>
-                        </body>
-                        </html>""";
+        RentalTotals totals = customer.getTotals();
+        StringBuilder sb = new StringBuilder("<p>Amount owed is <strong>");
+        MoneyFormat.appendCents(sb, totals.getTotalAmountCents())
+                .append("</strong>.</p>\n<p>You earned <strong>")
+                .append(totals.getPoints())
+                .append("</strong> points.</p>\n</body>\n</html>");
+        return sb.toString();
     }
 }
@@ -0,0 +1,46 @@
+package org.vitaliistf.view;
+
+/**
+ * Formats amounts of money held as whole cents.
+ * Digits are written straight into a StringBuilder, so formatting allocates no intermediate strings.
+ */
+public final class MoneyFormat {
+
+    /**
+     * Private constructor to prevent instantiation of the utility class.
+     */
+    private MoneyFormat() {
+    }
+
+    /**
+     * Appends an amount in cents as units with two decimal places, e.g. 1250 as "12.50".
+     *
+     * @param sb    The builder to append to.
+     * @param cents The amount in cents.
+     * @return The builder, for chaining.
+     */
+    public static StringBuilder appendCents(StringBuilder sb, long cents) {
+        long units = cents / 100;
+        long fraction = cents % 100;
+        if (cents < 0) {
+            sb.append('-');
+            units = -units;
+            fraction = -fraction;
+        }
+        sb.append(units).append('.');
+        if (fraction < 10) {
+            sb.append('0');
+        }
+        return sb.append(fraction);
+    }
+
+    /**
+     * Formats an amount in cents as units with two decimal places.
+     *
+     * @param cents The amount in cents.
+     * @return The formatted amount.
+     */
+    public static String format(long cents) {
+        return appendCents(new StringBuilder(24), cents).toString();
+    }
+}
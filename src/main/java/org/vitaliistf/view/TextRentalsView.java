@@ -2,6 +2,7 @@ package org.vitaliistf.view;
 
 import org.vitaliistf.model.Customer;
 import org.vitaliistf.model.Rental;
+import org.vitaliistf.model.RentalTotals;
 
 /**
  * Text implementation of the RentalsView interface for generating rentals-related text output for a customer.
@@ -56,8 +57,8 @@ public class TextRentalsView implements RentalsView {
         for (Rental each : customer.rentals()) {
             sb.append("\t")
                     .append(each.movie().getTitle())
-                    .append("\t")
-                    .append(each.calculatePrice())
+                    .append("\t");
+            MoneyFormat.appendCents(sb, each.calculatePriceCents())
                     .append("\n");
         }
         return sb.toString();
@@ -71,11 +72,12 @@ public class TextRentalsView implements RentalsView {
      */
     @Override
     public String generateFooter(Customer customer) {
-        return "Amount owed is " +
-                customer.getTotalAmount() +
-                ".\n" +
-                "You earned " +
-                customer.getPoints() +
-                " points.";
+        RentalTotals totals = customer.getTotals();
+        StringBuilder sb = new StringBuilder("Amount owed is ");
+        MoneyFormat.appendCents(sb, totals.getTotalAmountCents())
+                .append(".\nYou earned ")
+                .append(totals.getPoints())
+                .append(" points.");
+        return sb.toString();
     }
 }
@@ -0,0 +1,67 @@
+package org.vitaliistf.billing;
+
+import org.junit.jupiter.api.Test;
+import org.vitaliistf.model.Customer;
+import org.vitaliistf.model.Rental;
+import org.vitaliistf.model.movie.Movie;
+import org.vitaliistf.model.movie.MovieType;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class BillingRunTest {
+
+    @Test
+    void testRunMatchesSequentialTotals() {
+        MovieType[] types = MovieType.values();
+        List<Customer> customers = new ArrayList<>();
+        for (int i = 0; i < 10_000; i++) {
+            List<Rental> rentals = new ArrayList<>();
+            for (int r = 0; r < i % 4; r++) {
+                MovieType type = types[(i + r) % types.length];
+                rentals.add(new Rental(new Movie.Builder("Movie " + r, type).actors(List.of()).build(), 1 + r));
+            }
+            customers.add(new Customer("Customer " + i, rentals));
+        }
+        AtomicInteger progress = new AtomicInteger();
+        ForkJoinPool pool = new ForkJoinPool(4);
+
+        BillingReport report = new BillingRun(pool).run(customers,
+                (billed, total, elapsed) -> progress.accumulateAndGet(billed, Math::max));
+        pool.shutdown();
+
+        long totalAmount = 0;
+        long totalPoints = 0;
+        for (int i = 0; i < customers.size(); i++) {
+            Customer customer = customers.get(i);
+            CustomerBill bill = report.bills().get(i);
+            assertEquals(customer.name(), bill.name());
+            assertEquals(customer.getTotalAmountCents(), bill.amountCents());
+            assertEquals(customer.getPoints(), bill.points());
+            totalAmount += bill.amountCents();
+            totalPoints += bill.points();
+        }
+        for (MovieType type : types) {
+            long amount = customers.stream().mapToLong(customer -> customer.getAmountCents(type)).sum();
+            assertEquals(amount, report.amountCentsByType().get(type));
+        }
+        assertEquals(totalAmount, report.totalAmountCents());
+        assertEquals(totalPoints, report.totalPoints());
+        assertEquals(customers.size(), progress.get());
+        assertTrue(report.customersPerSecond() > 0);
+    }
+
+    @Test
+    void testRunWithoutCustomers() {
+        BillingReport report = new BillingRun().run(List.of(), BillingListener.NONE);
+
+        assertTrue(report.bills().isEmpty());
+        assertEquals(0, report.totalAmountCents());
+        assertEquals(0L, report.pointsByType().get(MovieType.DRAMA));
+    }
+}
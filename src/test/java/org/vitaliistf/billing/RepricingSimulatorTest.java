@@ -0,0 +1,79 @@
+package org.vitaliistf.billing;
+
+import org.junit.jupiter.api.Test;
+import org.vitaliistf.model.Customer;
+import org.vitaliistf.model.Rental;
+import org.vitaliistf.model.movie.Movie;
+import org.vitaliistf.model.movie.MovieType;
+import org.vitaliistf.strategy.PriceStrategy;
+import org.vitaliistf.strategy.PricingRule;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class RepricingSimulatorTest {
+
+    @Test
+    void testReplayMatchesPerRentalPricing() {
+        MovieType[] types = MovieType.values();
+        List<Customer> customers = new ArrayList<>();
+        for (int i = 0; i < 10_000; i++) {
+            List<Rental> rentals = new ArrayList<>();
+            for (int r = 0; r < i % 5; r++) {
+                MovieType type = types[(i + r) % types.length];
+                rentals.add(new Rental(new Movie.Builder("Movie " + r, type).actors(List.of()).build(), 1 + (i + r) % 9));
+            }
+            customers.add(new Customer("Customer " + i, rentals));
+        }
+        PriceStrategy cheapDrama = new PricingRule(100, 1, 50, 1, 0, 0, 0).compile();
+        ForkJoinPool pool = new ForkJoinPool(4);
+
+        RepricingReport report = new RepricingSimulator(pool).run(customers, List.of(
+                RepricingScenario.current("current"),
+                new RepricingScenario("cheap drama", Map.of(MovieType.DRAMA, cheapDrama))));
+        pool.shutdown();
+
+        ScenarioResult current = report.results().get(0);
+        ScenarioResult candidate = report.results().get(1);
+        long rentals = 0;
+        long dramaAmount = 0;
+        for (int i = 0; i < customers.size(); i++) {
+            Customer customer = customers.get(i);
+            long candidateAmount = 0;
+            for (Rental rental : customer.rentals()) {
+                boolean drama = rental.movie().getPriceCode() == MovieType.DRAMA;
+                long price = drama ? cheapDrama.calculatePriceCents(rental.daysRented()) : rental.calculatePriceCents();
+                candidateAmount += price;
+                dramaAmount += drama ? price : 0;
+                rentals++;
+            }
+            assertEquals(customer.name(), report.customers().get(i));
+            assertEquals(customer.getTotalAmountCents(), current.amountCentsByCustomer()[i]);
+            assertEquals(customer.getPoints(), current.pointsByCustomer()[i]);
+            assertEquals(candidateAmount, candidate.amountCentsByCustomer()[i]);
+        }
+        for (MovieType type : types) {
+            long amount = customers.stream().mapToLong(customer -> customer.getAmountCents(type)).sum();
+            assertEquals(amount, current.amountCentsByType().get(type));
+        }
+        assertEquals(dramaAmount, candidate.amountCentsByType().get(MovieType.DRAMA));
+        assertEquals(current.amountCentsByType().get(MovieType.COMEDY), candidate.amountCentsByType().get(MovieType.COMEDY));
+        assertEquals(rentals, report.rentals());
+
+        ScenarioResult change = candidate.changeFrom(current);
+        assertEquals(candidate.totalAmountCents() - current.totalAmountCents(), change.totalAmountCents());
+        assertEquals(0, change.amountCentsByType().get(MovieType.THRILLER));
+    }
+
+    @Test
+    void testReplayWithoutCustomers() {
+        RepricingReport report = new RepricingSimulator().run(List.of(), List.of(RepricingScenario.current("current")));
+
+        assertEquals(0, report.rentals());
+        assertEquals(0, report.results().get(0).totalAmountCents());
+    }
+}
@@ -0,0 +1,93 @@
+package org.vitaliistf.collection;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PersistentSequenceTest {
+
+    @Test
+    void testAppendAndRemove() {
+        PersistentSequence<String> empty = PersistentSequence.empty();
+        PersistentSequence<String> one = empty.append("a");
+        PersistentSequence<String> two = one.append("b");
+        PersistentSequence<String> three = two.append("c");
+        PersistentSequence<String> removed = three.without(2);
+
+        assertEquals(List.of(), empty);
+        assertEquals(List.of("a"), one);
+        assertEquals(List.of("a", "b", "c"), three);
+        assertEquals(List.of("a", "c"), removed);
+        assertEquals("c", removed.get(1));
+        assertEquals("c", removed.find(3));
+        assertNull(removed.find(2));
+        assertSame(removed, removed.without(2));
+    }
+
+    @Test
+    void testVersions() {
+        PersistentSequence<String> first = PersistentSequence.<String>empty().append("a");
+        PersistentSequence<String> second = first.append("b");
+        PersistentSequence<String> cleared = second.cleared();
+
+        assertTrue(second.version() > first.version());
+        assertTrue(cleared.version() > second.version());
+        assertTrue(cleared.isEmpty());
+        assertEquals(3, cleared.append("c").lastSequence());
+        assertEquals(List.of("a"), first);
+    }
+
+    @Test
+    void testRestoreSequenceNumbers() {
+        PersistentSequence<String> current = PersistentSequence.<String>empty().appendAll(List.of("a", "b", "c"));
+        PersistentSequence<String> restored = current.restarted().append(2, "x").append(7, "y");
+
+        assertTrue(restored.version() > current.version());
+        assertEquals(List.of("x", "y"), restored);
+        assertEquals("y", restored.find(7));
+        assertEquals(8, restored.append("z").lastSequence());
+        assertThrows(IllegalArgumentException.class, () -> restored.append(7, "w"));
+        assertEquals(10, restored.continuedAfter(9).append("z").lastSequence());
+        assertThrows(IllegalArgumentException.class, () -> restored.continuedAfter(6));
+    }
+
+    @Test
+    void testIteratorAfter() {
+        PersistentSequence<String> sequence = PersistentSequence.<String>empty()
+                .appendAll(List.of("a", "b", "c", "d"))
+                .without(2);
+        PersistentSequence.SequenceIterator<String> iterator = sequence.iteratorAfter(1);
+
+        assertEquals("c", iterator.next());
+        assertEquals(3, iterator.sequence());
+        assertEquals("d", iterator.next());
+        assertFalse(iterator.hasNext());
+    }
+
+    @Test
+    void testMatchesArrayList() {
+        Random random = new Random(42);
+        List<Integer> expected = new ArrayList<>();
+        List<Long> sequences = new ArrayList<>();
+        PersistentSequence<Integer> sequence = PersistentSequence.empty();
+
+        for (int i = 0; i < 20_000; i++) {
+            if (!expected.isEmpty() && random.nextInt(3) == 0) {
+                int index = random.nextInt(expected.size());
+                expected.remove(index);
+                sequence = sequence.without(sequences.remove(index));
+            } else {
+                expected.add(i);
+                sequence = sequence.append(i);
+                sequences.add(sequence.lastSequence());
+            }
+        }
+
+        assertEquals(expected, sequence);
+        assertEquals(expected.get(expected.size() / 2), sequence.get(expected.size() / 2));
+    }
+}
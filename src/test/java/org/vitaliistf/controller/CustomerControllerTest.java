@@ -2,18 +2,27 @@ package org.vitaliistf.controller;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.vitaliistf.billing.BillingListener;
+import org.vitaliistf.billing.BillingReport;
 import org.vitaliistf.model.Customer;
 import org.vitaliistf.model.movie.Movie;
 import org.vitaliistf.model.movie.MovieType;
+import org.vitaliistf.serialization.CatalogMismatchException;
 import org.vitaliistf.serialization.DataManager;
 import org.vitaliistf.view.HtmlRentalsView;
 import org.vitaliistf.view.TextRentalsView;
 
+import java.io.IOException;
+import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 public class CustomerControllerTest {
@@ -28,6 +37,22 @@ public class CustomerControllerTest {
         controller = new CustomerController(textRentalsView, htmlRentalsView, dataManager);
     }
 
+    @Test
+    void testRunBilling() {
+        Movie movie = new Movie.Builder("Movie", MovieType.COMEDY).actors(List.of()).build();
+        Customer customer = new Customer("John Doe", new ArrayList<>());
+        controller.addCustomer(customer);
+        controller.addCustomer(new Customer("Jane Doe", new ArrayList<>()));
+        controller.addRental(customer, movie, 2);
+
+        BillingReport report = controller.runBilling(BillingListener.NONE);
+
+        assertEquals(2, report.bills().size());
+        assertEquals(600, report.bills().get(0).amountCents());
+        assertEquals(600, report.amountCentsByType().get(MovieType.COMEDY));
+        assertEquals(600, report.totalAmountCents());
+    }
+
     @Test
     void testAddCustomer() {
         Customer customer = new Customer("John Doe", new ArrayList<>());
@@ -51,6 +76,20 @@ public class CustomerControllerTest {
         assertTrue(customer.rentals().size() > 0);
     }
 
+    @Test
+    void testAddRentalRejectsUnregisteredCustomer() {
+        Customer customer = new Customer("John Doe", new ArrayList<>());
+        Customer stranger = new Customer("John Doe", new ArrayList<>());
+        Movie movie = new Movie.Builder("Inception", MovieType.NEW_RELEASE).actors(List.of()).build();
+        controller.addCustomer(customer);
+
+        assertThrows(IllegalArgumentException.class, () -> controller.addRental(stranger, movie, 3));
+        assertThrows(IllegalArgumentException.class,
+                () -> controller.addRental(new Customer("Jane Doe", new ArrayList<>()), movie, 3));
+        assertTrue(stranger.rentals().isEmpty());
+        assertTrue(customer.rentals().isEmpty());
+    }
+
     @Test
     void testFindCustomerByName() {
         Customer customer = new Customer("John Doe", new ArrayList<>());
@@ -61,6 +100,117 @@ public class CustomerControllerTest {
         assertEquals(Optional.empty(), controller.findCustomerByName("Nonexistent Customer"));
     }
 
+    @Test
+    void testFindCustomerByNameIgnoresCase() {
+        Customer customer = new Customer("John Doe", new ArrayList<>());
+
+        controller.addCustomer(customer);
+
+        assertEquals(Optional.of(customer), controller.findCustomerByName("JOHN DOE"));
+    }
+
+    @Test
+    void testNullCustomerName() {
+        Customer customer = new Customer(null, new ArrayList<>());
+
+        assertTrue(controller.addCustomer(customer));
+
+        assertTrue(controller.getCustomers().contains(customer));
+        assertEquals(Optional.empty(), controller.findCustomerByName(null));
+    }
+
+    @Test
+    void testAddDuplicateCustomer() {
+        Customer customer = new Customer("John Doe", new ArrayList<>());
+        Customer duplicate = new Customer("john doe", new ArrayList<>());
+
+        assertTrue(controller.addCustomer(customer));
+        assertFalse(controller.addCustomer(duplicate));
+        assertEquals(List.of(customer), controller.getCustomers());
+    }
+
+    @Test
+    void testFindCustomerByNameAfterLoad(@TempDir Path directory) throws IOException {
+        Customer customer = new Customer("John Doe", new ArrayList<>());
+        String fileName = directory.resolve("customers.txt").toString();
+
+        controller.addCustomer(customer);
+        controller.saveDataToFile(fileName);
+
+        CustomerController loaded = new CustomerController(TextRentalsView.getInstance(),
+                HtmlRentalsView.getInstance(), DataManager.getInstance());
+        loaded.loadDataFromFile(fileName);
+
+        assertEquals(Optional.of(customer), loaded.findCustomerByName("john doe"));
+    }
+
+    @Test
+    void testRentalsReferToCatalogMoviesAfterLoad(@TempDir Path directory) throws IOException {
+        MovieController movies = new MovieController(DataManager.getInstance());
+        Movie movie = new Movie.Builder("Inception", MovieType.NEW_RELEASE)
+                .director("Christopher Nolan")
+                .description("A thief who steals corporate secrets through dream-sharing technology.")
+                .actors(List.of("Leonardo DiCaprio"))
+                .build();
+        Movie removed = new Movie.Builder("Removed", MovieType.DRAMA).actors(List.of()).build();
+        movies.addMovie(movie);
+        Customer customer = new Customer("John Doe", new ArrayList<>());
+        controller.addCustomer(customer);
+        controller.addRental(customer, movie, 3);
+        controller.addRental(customer, removed, 2);
+        String catalogFile = directory.resolve("ref_catalog.txt").toString();
+        String customersFile = directory.resolve("ref_customers.txt").toString();
+
+        movies.saveDataToFile(catalogFile);
+        controller.saveDataToFile(customersFile, movies::getMovieId, movies.getCatalogStamp());
+        MovieController loadedMovies = new MovieController(DataManager.getInstance());
+        loadedMovies.loadDataFromFile(catalogFile);
+        CustomerController loaded = new CustomerController(TextRentalsView.getInstance(),
+                HtmlRentalsView.getInstance(), DataManager.getInstance());
+        loaded.loadDataFromFile(customersFile, id -> loadedMovies.findMovieById(id).orElse(null),
+                loadedMovies.getCatalogStamp());
+
+        Customer loadedCustomer = loaded.findCustomerByName("John Doe").orElseThrow();
+        assertEquals(customer, loadedCustomer);
+        assertSame(loadedMovies.findMovieByTitle("Inception").orElseThrow(), loadedCustomer.rentals().get(0).movie());
+        assertEquals(removed, loadedCustomer.rentals().get(1).movie());
+    }
+
+    @Test
+    void testCustomersNotLoadedAgainstAnotherCatalog(@TempDir Path directory) throws IOException {
+        MovieController movies = new MovieController(DataManager.getInstance());
+        MovieController otherMovies = new MovieController(DataManager.getInstance());
+        Movie movie = new Movie.Builder("Inception", MovieType.NEW_RELEASE).actors(List.of()).build();
+        movies.addMovie(movie);
+        otherMovies.addMovie(new Movie.Builder("Heat", MovieType.THRILLER).actors(List.of()).build());
+        Customer customer = new Customer("John Doe", new ArrayList<>());
+        controller.addCustomer(customer);
+        controller.addRental(customer, movie, 3);
+        String catalogFile = directory.resolve("stamp_catalog.txt").toString();
+        String customersFile = directory.resolve("stamp_customers.txt").toString();
+        String laterCustomersFile = directory.resolve("stamp_customers_later.txt").toString();
+        movies.saveDataToFile(catalogFile);
+        controller.saveDataToFile(customersFile, movies::getMovieId, movies.getCatalogStamp());
+        movies.addMovie(new Movie.Builder("Memento", MovieType.REGULAR).actors(List.of()).build());
+        controller.saveDataToFile(laterCustomersFile, movies::getMovieId, movies.getCatalogStamp());
+
+        CustomerController loaded = new CustomerController(TextRentalsView.getInstance(),
+                HtmlRentalsView.getInstance(), DataManager.getInstance());
+        assertThrows(CatalogMismatchException.class, () -> loaded.loadDataFromFile(customersFile,
+                id -> otherMovies.findMovieById(id).orElse(null), otherMovies.getCatalogStamp()));
+        assertTrue(loaded.getCustomers().isEmpty());
+
+        otherMovies.loadDataFromFile(catalogFile);
+        assertThrows(CatalogMismatchException.class, () -> loaded.loadDataFromFile(laterCustomersFile,
+                id -> otherMovies.findMovieById(id).orElse(null), otherMovies.getCatalogStamp()));
+        assertTrue(loaded.getCustomers().isEmpty());
+
+        loaded.loadDataFromFile(customersFile, id -> otherMovies.findMovieById(id).orElse(null),
+                otherMovies.getCatalogStamp());
+        assertEquals(movies.getCatalogId(), otherMovies.getCatalogId());
+        assertEquals(List.of(customer), loaded.getCustomers());
+    }
+
     @Test
     void testGenerateCustomerHtmlRentalsView() {
         Customer customer = new Customer("John Doe", new ArrayList<>());
@@ -2,12 +2,23 @@ package org.vitaliistf.controller;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.vitaliistf.collection.Page;
+import org.vitaliistf.index.MovieOrder;
+import org.vitaliistf.index.MovieQuery;
 import org.vitaliistf.model.movie.Movie;
 import org.vitaliistf.model.movie.MovieType;
 import org.vitaliistf.serialization.DataManager;
 
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Locale;
 import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -46,6 +57,111 @@ class MovieControllerTest {
         assertEquals(Optional.empty(), controller.findMovieByTitle("Nonexistent Movie"));
     }
 
+    @Test
+    void testFindMovieByTitleIgnoresCase() {
+        Movie movie = new Movie.Builder("Inception", MovieType.NEW_RELEASE)
+                .director("Christopher Nolan")
+                .actors(List.of("Leonardo DiCaprio"))
+                .build();
+
+        controller.addMovie(movie);
+
+        assertEquals(Optional.of(movie), controller.findMovieByTitle("INCEPTION"));
+        assertEquals(Optional.of(movie), controller.findMovieByTitle("inception"));
+    }
+
+    @Test
+    void testFindMovieByTitleAfterDelete() {
+        Movie movie = new Movie.Builder("Inception", MovieType.NEW_RELEASE)
+                .director("Christopher Nolan")
+                .actors(List.of("Leonardo DiCaprio"))
+                .build();
+        Movie remake = new Movie.Builder("inception", MovieType.REGULAR)
+                .director("Someone Else")
+                .actors(List.of())
+                .build();
+
+        controller.addMovie(movie);
+        controller.addMovie(remake);
+        controller.deleteMovie(movie);
+
+        assertEquals(Optional.of(remake), controller.findMovieByTitle("Inception"));
+
+        controller.deleteMovie(remake);
+
+        assertEquals(Optional.empty(), controller.findMovieByTitle("Inception"));
+    }
+
+    @Test
+    void testFindMovieByTitleAfterLoad(@TempDir Path directory) throws IOException {
+        Movie movie = new Movie.Builder("Inception", MovieType.NEW_RELEASE)
+                .director("Christopher Nolan")
+                .actors(List.of("Leonardo DiCaprio"))
+                .build();
+        String fileName = directory.resolve("catalog.txt").toString();
+
+        controller.addMovie(movie);
+        controller.saveDataToFile(fileName);
+
+        MovieController loaded = new MovieController(DataManager.getInstance());
+        loaded.loadDataFromFile(fileName);
+
+        assertEquals(Optional.of(movie), loaded.findMovieByTitle("inception"));
+    }
+
+    @Test
+    void testIndexesBuiltOnDemandFollowChanges(@TempDir Path directory) throws IOException {
+        Movie memento = new Movie.Builder("Memento", MovieType.REGULAR)
+                .director("Christopher Nolan").countryOfOrigin("USA").actors(List.of()).build();
+        Movie inception = new Movie.Builder("Inception", MovieType.NEW_RELEASE)
+                .director("Christopher Nolan").countryOfOrigin("UK").actors(List.of()).build();
+        Movie untitled = new Movie.Builder(null, MovieType.REGULAR)
+                .director("Christopher Nolan").countryOfOrigin("UK").actors(List.of()).build();
+        String fileName = directory.resolve("catalog_lazy.txt").toString();
+        controller.addMovie(memento);
+        controller.addMovie(inception);
+        controller.saveDataToFile(fileName);
+
+        MovieController loaded = new MovieController(DataManager.getInstance());
+        loaded.loadDataFromFile(fileName);
+        assertEquals(List.of(memento, inception), loaded.findMovieByDirector("Christopher Nolan"));
+        loaded.addMovie(untitled);
+        loaded.deleteMovie(memento);
+
+        assertEquals(3, loaded.getMovieId(untitled));
+        assertEquals(List.of(inception, untitled), loaded.findMovieByDirector("Christopher Nolan"));
+        assertEquals(List.of(inception, untitled), loaded.findMovieByCountry("uk"));
+        assertEquals(List.of(), loaded.findMovieByCountry("USA"));
+        assertEquals(List.of("Inception"), loaded.suggestTitles("", 10));
+        assertTrue(loaded.deleteMovie(untitled));
+        assertEquals(List.of(inception), loaded.findMovieByDirector("Christopher Nolan"));
+    }
+
+    @Test
+    void testMovieIdsSurviveSaveAndLoad(@TempDir Path directory) throws IOException {
+        Movie first = new Movie.Builder("First", MovieType.DRAMA).actors(List.of()).build();
+        Movie second = new Movie.Builder("Second", MovieType.COMEDY).actors(List.of()).build();
+        String fileName = directory.resolve("catalog_ids.txt").toString();
+        controller.addMovie(new Movie.Builder("Deleted", MovieType.DRAMA).actors(List.of()).build());
+        controller.addMovie(first);
+        controller.addMovie(second);
+        controller.deleteMovie(controller.findMovieByTitle("Deleted").orElseThrow());
+        long secondId = controller.getMovieId(second);
+
+        controller.saveDataToFile(fileName);
+        MovieController loaded = new MovieController(DataManager.getInstance());
+        loaded.addMovie(new Movie.Builder("Unsaved", MovieType.REGULAR).actors(List.of()).build());
+        loaded.loadDataFromFile(fileName);
+
+        assertEquals(3, secondId);
+        assertEquals(secondId, loaded.getMovieId(second));
+        assertEquals(Optional.of(second), loaded.findMovieById(secondId));
+        assertEquals(0, loaded.getMovieId(new Movie.Builder("Unsaved", MovieType.REGULAR).actors(List.of()).build()));
+        assertEquals(Optional.empty(), loaded.findMovieById(1));
+        loaded.addMovie(new Movie.Builder("Third", MovieType.REGULAR).actors(List.of()).build());
+        assertEquals(4, loaded.getMovieId(loaded.findMovieByTitle("Third").orElseThrow()));
+    }
+
     @Test
     void testFindMovieByDirector() {
         Movie movie1 = new Movie.Builder("Inception", MovieType.NEW_RELEASE)
@@ -129,6 +245,314 @@ class MovieControllerTest {
         assertTrue(result.contains(movie2));
     }
 
+    @Test
+    void testFindMovieByCountryIgnoresCase() {
+        Movie movie = new Movie.Builder("Crouching Tiger, Hidden Dragon", MovieType.NEW_RELEASE)
+                .director("Ang Lee")
+                .actors(List.of("Chow Yun-fat"))
+                .countryOfOrigin("China")
+                .build();
+
+        controller.addMovie(movie);
+
+        assertEquals(List.of(movie), controller.findMovieByCountry("CHINA"));
+    }
+
+    @Test
+    void testFindMovieByActorListedTwice() {
+        Movie movie = new Movie.Builder("Inception", MovieType.NEW_RELEASE)
+                .director("Christopher Nolan")
+                .actors(List.of("Tom Hardy", "Tom Hardy"))
+                .build();
+
+        controller.addMovie(movie);
+
+        assertEquals(List.of(movie), controller.findMovieByActor("Tom Hardy"));
+    }
+
+    @Test
+    void testIndexesUpdatedOnDelete() {
+        Movie movie1 = new Movie.Builder("Inception", MovieType.NEW_RELEASE)
+                .director("Christopher Nolan")
+                .actors(List.of("Leonardo DiCaprio", "Tom Hardy"))
+                .countryOfOrigin("USA")
+                .build();
+        Movie movie2 = new Movie.Builder("Dunkirk", MovieType.NEW_RELEASE)
+                .director("Christopher Nolan")
+                .actors(List.of("Tom Hardy"))
+                .countryOfOrigin("UK")
+                .build();
+
+        controller.addMovie(movie1);
+        controller.addMovie(movie2);
+        controller.deleteMovie(movie1);
+
+        assertEquals(List.of(movie2), controller.findMovieByDirector("Christopher Nolan"));
+        assertEquals(List.of(movie2), controller.findMovieByActor("Tom Hardy"));
+        assertEquals(List.of(movie2), controller.findMovieByType(MovieType.NEW_RELEASE));
+        assertTrue(controller.findMovieByActor("Leonardo DiCaprio").isEmpty());
+        assertTrue(controller.findMovieByCountry("USA").isEmpty());
+    }
+
+    @Test
+    void testFindMovies() {
+        Movie movie1 = new Movie.Builder("Inception", MovieType.THRILLER)
+                .director("Christopher Nolan")
+                .actors(List.of("Leonardo DiCaprio", "Tom Hardy"))
+                .countryOfOrigin("USA")
+                .build();
+        Movie movie2 = new Movie.Builder("Dunkirk", MovieType.DRAMA)
+                .director("Christopher Nolan")
+                .actors(List.of("Tom Hardy"))
+                .countryOfOrigin("UK")
+                .build();
+        Movie movie3 = new Movie.Builder("Mad Max: Fury Road", MovieType.THRILLER)
+                .director("George Miller")
+                .actors(List.of("Tom Hardy"))
+                .countryOfOrigin("Australia")
+                .build();
+
+        controller.addMovie(movie1);
+        controller.addMovie(movie2);
+        controller.addMovie(movie3);
+
+        MovieQuery query = new MovieQuery.Builder()
+                .director("Christopher Nolan")
+                .country("usa")
+                .type(MovieType.THRILLER)
+                .actor("Tom Hardy")
+                .build();
+
+        assertEquals(List.of(movie1), controller.findMovies(query).toList());
+        assertEquals(List.of(movie1, movie3), controller.findMovies(new MovieQuery.Builder()
+                .actor("Tom Hardy")
+                .type(MovieType.THRILLER)
+                .build()).toList());
+        assertEquals(3, controller.findMovies(new MovieQuery.Builder().build()).count());
+        assertEquals(0, controller.findMovies(new MovieQuery.Builder().director("Nobody").build()).count());
+    }
+
+    @Test
+    void testFindMoviesFoldsCountryLikeIndex() {
+        Movie movie = new Movie.Builder("Winter Sleep", MovieType.DRAMA)
+                .director("Nuri Bilge Ceylan")
+                .countryOfOrigin("TÜRKİYE")
+                .actors(List.of())
+                .build();
+        controller.addMovie(movie);
+        String folded = "TÜRKİYE".toLowerCase(Locale.ROOT);
+
+        assertEquals(List.of(movie), controller.findMovieByCountry(folded));
+        assertEquals(List.of(movie), controller.findMovies(new MovieQuery.Builder()
+                .director("Nuri Bilge Ceylan")
+                .country(folded)
+                .build()).toList());
+        assertTrue(new MovieQuery.Builder().country(folded).build().test(movie));
+    }
+
+    @Test
+    void testSuggestTitles() {
+        Movie movie1 = new Movie.Builder("Inception", MovieType.NEW_RELEASE).actors(List.of()).build();
+        Movie movie2 = new Movie.Builder("Interstellar", MovieType.REGULAR).actors(List.of()).build();
+        Movie movie3 = new Movie.Builder("Insomnia", MovieType.REGULAR).actors(List.of()).build();
+        Movie movie4 = new Movie.Builder("Memento", MovieType.REGULAR).actors(List.of()).build();
+
+        controller.addMovie(movie1);
+        controller.addMovie(movie2);
+        controller.addMovie(movie3);
+        controller.addMovie(movie4);
+
+        assertEquals(List.of("Inception", "Insomnia", "Interstellar"), controller.suggestTitles("IN", 10));
+        assertEquals(List.of("Inception", "Insomnia"), controller.suggestTitles("in", 2));
+        assertEquals(List.of("Interstellar"), controller.suggestTitles("Inte", 10));
+        assertTrue(controller.suggestTitles("Tenet", 10).isEmpty());
+
+        controller.deleteMovie(movie3);
+
+        assertEquals(List.of("Inception", "Interstellar"), controller.suggestTitles("in", 10));
+    }
+
+    @Test
+    void testSuggestSimilarTitles() {
+        Movie movie1 = new Movie.Builder("Interstellar", MovieType.REGULAR).actors(List.of()).build();
+        Movie movie2 = new Movie.Builder("Inception", MovieType.NEW_RELEASE).actors(List.of()).build();
+        Movie movie3 = new Movie.Builder("The Prestige", MovieType.REGULAR).actors(List.of()).build();
+
+        controller.addMovie(movie1);
+        controller.addMovie(movie2);
+        controller.addMovie(movie3);
+
+        assertEquals(List.of("Interstellar"), controller.suggestSimilarTitles("intrestellar", 5));
+        assertEquals(List.of("Inception"), controller.suggestSimilarTitles("Incepton", 5));
+        assertEquals(List.of("The Prestige"), controller.suggestSimilarTitles("the prestiege", 5));
+        assertTrue(controller.suggestSimilarTitles("Memento", 5).isEmpty());
+
+        controller.deleteMovie(movie2);
+
+        assertTrue(controller.suggestSimilarTitles("Incepton", 5).isEmpty());
+    }
+
+    @Test
+    void testSearchMovies() {
+        Movie movie1 = new Movie.Builder("Inception", MovieType.NEW_RELEASE)
+                .director("Christopher Nolan")
+                .description("A thief who steals corporate secrets through dream-sharing technology.")
+                .actors(List.of("Leonardo DiCaprio"))
+                .build();
+        Movie movie2 = new Movie.Builder("Paprika", MovieType.REGULAR)
+                .director("Satoshi Kon")
+                .description("A device that lets therapists enter patients' dreams is stolen. Dream, dream, dream.")
+                .actors(List.of())
+                .build();
+        Movie movie3 = new Movie.Builder("Heat", MovieType.REGULAR)
+                .director("Michael Mann")
+                .description("A group of professional bank robbers.")
+                .actors(List.of())
+                .build();
+
+        controller.addMovie(movie1);
+        controller.addMovie(movie2);
+        controller.addMovie(movie3);
+
+        assertEquals(List.of(movie2, movie1), controller.searchMovies("DREAM", 10));
+        assertEquals(List.of(movie2), controller.searchMovies("dream", 1));
+        assertEquals(List.of(movie1), controller.searchMovies("corporate secrets", 10));
+        assertEquals(List.of(movie3), controller.searchMovies("heat", 10));
+        assertTrue(controller.searchMovies("western", 10).isEmpty());
+
+        controller.deleteMovie(movie2);
+
+        assertEquals(List.of(movie1), controller.searchMovies("dream", 10));
+    }
+
+    @Test
+    void testSearchMoviesKeepsDuplicateAfterDelete() {
+        Movie movie = new Movie.Builder("Paprika", MovieType.REGULAR)
+                .description("Dream detective.")
+                .actors(List.of())
+                .build();
+        Movie duplicate = new Movie.Builder("Paprika", MovieType.REGULAR)
+                .description("Dream detective.")
+                .actors(List.of())
+                .build();
+
+        controller.addMovie(movie);
+        controller.addMovie(duplicate);
+
+        assertEquals(2, controller.searchMovies("dream", 10).size());
+
+        controller.deleteMovie(movie);
+
+        assertEquals(1, controller.getMovieCatalog().size());
+        assertTrue(controller.findMovieByTitle("Paprika").isPresent());
+        assertEquals(List.of(duplicate), controller.searchMovies("dream", 10));
+    }
+
+    @Test
+    void testMovieCatalogSnapshot() {
+        Movie movie1 = new Movie.Builder("Inception", MovieType.NEW_RELEASE).actors(List.of()).build();
+        Movie movie2 = new Movie.Builder("Interstellar", MovieType.REGULAR).actors(List.of()).build();
+
+        controller.addMovie(movie1);
+        List<Movie> snapshot = controller.getMovieCatalog();
+        controller.addMovie(movie2);
+
+        assertEquals(List.of(movie1), snapshot);
+        assertEquals(List.of(movie1, movie2), controller.getMovieCatalog());
+        assertThrows(UnsupportedOperationException.class, () -> snapshot.add(movie2));
+    }
+
+    @Test
+    void testGetMovieCatalogPage() {
+        for (int i = 0; i < 5; i++) {
+            controller.addMovie(new Movie.Builder("Movie " + i, MovieType.REGULAR).actors(List.of()).build());
+        }
+
+        Page<Movie> first = controller.getMovieCatalogPage(null, 2);
+        controller.deleteMovie(controller.findMovieByTitle("Movie 2").orElseThrow());
+        Page<Movie> second = controller.getMovieCatalogPage(first.nextCursor(), 2);
+
+        assertEquals(List.of("Movie 0", "Movie 1"), first.items().stream().map(Movie::getTitle).toList());
+        assertEquals(List.of("Movie 3", "Movie 4"), second.items().stream().map(Movie::getTitle).toList());
+        assertFalse(second.hasNext());
+        assertThrows(IllegalArgumentException.class, () -> controller.getMovieCatalogPage("not a cursor", 2));
+        assertEquals(List.of("Movie 0", "Movie 1"),
+                controller.streamMovieCatalog().limit(2).map(Movie::getTitle).toList());
+    }
+
+    @Test
+    void testOrderedCatalogViews() {
+        Movie movie1 = new Movie.Builder("Memento", MovieType.REGULAR)
+                .director("Christopher Nolan").countryOfOrigin("USA").actors(List.of()).build();
+        Movie movie2 = new Movie.Builder("amelie", MovieType.REGULAR)
+                .director("Jean-Pierre Jeunet").countryOfOrigin("France").actors(List.of()).build();
+        Movie movie3 = new Movie.Builder("Mad Max", MovieType.THRILLER)
+                .director("George Miller").countryOfOrigin("Australia").actors(List.of()).build();
+        Movie movie4 = new Movie.Builder("Nosferatu", MovieType.DRAMA)
+                .director("F. W. Murnau").countryOfOrigin("Germany").actors(List.of()).build();
+
+        controller.addMovie(movie1);
+        controller.addMovie(movie2);
+        controller.addMovie(movie3);
+        controller.addMovie(movie4);
+
+        assertEquals(List.of(movie3, movie1), controller.findMoviesInRange(MovieOrder.TITLE, "M", "N", 10));
+        assertEquals(List.of(movie2, movie3), controller.findMoviesInRange(MovieOrder.TITLE, null, "me", 10));
+        assertEquals(List.of(movie3), controller.findMoviesInRange(MovieOrder.COUNTRY, "a", "b", 10));
+
+        Page<Movie> first = controller.getMovieCatalogPage(MovieOrder.DIRECTOR, null, 2);
+        Page<Movie> second = controller.getMovieCatalogPage(MovieOrder.DIRECTOR, first.nextCursor(), 2);
+
+        assertEquals(List.of(movie1, movie4), first.items());
+        assertEquals(List.of(movie3, movie2), second.items());
+        assertFalse(second.hasNext());
+
+        controller.deleteMovie(movie3);
+
+        assertEquals(List.of(movie1), controller.findMoviesInRange(MovieOrder.TITLE, "m", "n", 10));
+    }
+
+    @Test
+    void testConcurrentAddAndFind() throws Exception {
+        int writers = 4;
+        int moviesPerWriter = 250;
+        ExecutorService executor = Executors.newFixedThreadPool(writers + 1);
+        try {
+            Future<?> reader = executor.submit(() -> {
+                while (controller.getMovieCatalog().size() < writers * moviesPerWriter) {
+                    for (Movie movie : controller.findMovieByType(MovieType.DRAMA)) {
+                        assertEquals(MovieType.DRAMA, movie.getPriceCode());
+                    }
+                    controller.findMovieByTitle("Movie 0-0");
+                    controller.suggestTitles("movie 1", 5);
+                }
+            });
+            List<Future<?>> tasks = new ArrayList<>();
+            for (int w = 0; w < writers; w++) {
+                int writer = w;
+                tasks.add(executor.submit(() -> {
+                    for (int i = 0; i < moviesPerWriter; i++) {
+                        controller.addMovie(new Movie.Builder("Movie " + writer + "-" + i, MovieType.DRAMA)
+                                .director("Director " + writer)
+                                .actors(List.of())
+                                .build());
+                    }
+                }));
+            }
+            for (Future<?> task : tasks) {
+                task.get();
+            }
+            reader.get();
+        } finally {
+            executor.shutdown();
+        }
+
+        assertEquals(writers * moviesPerWriter, controller.getMovieCatalog().size());
+        assertEquals(writers * moviesPerWriter, controller.findMovieByType(MovieType.DRAMA).size());
+        assertEquals(moviesPerWriter, controller.findMovieByDirector("Director 2").size());
+        assertTrue(controller.findMovieByTitle("movie 3-249").isPresent());
+    }
+
     @Test
     void testDeleteMovie() {
         Movie movie = new Movie.Builder("Inception", MovieType.NEW_RELEASE)
@@ -141,4 +565,19 @@ class MovieControllerTest {
         assertTrue(controller.deleteMovie(movie));
         assertFalse(controller.getMovieCatalog().contains(movie));
     }
+
+    @Test
+    void testGetMovieIdPrefersSameInstance() {
+        Movie first = new Movie.Builder("Inception", MovieType.NEW_RELEASE).actors(List.of()).build();
+        Movie second = new Movie.Builder("Inception", MovieType.NEW_RELEASE).actors(List.of()).build();
+        controller.addMovie(first);
+        controller.addMovie(second);
+
+        assertEquals(2, controller.getMovieId(second));
+        assertEquals(1, controller.getMovieId(new Movie.Builder("Inception", MovieType.NEW_RELEASE)
+                .actors(List.of()).build()));
+        assertTrue(controller.deleteMovie(second));
+        assertSame(first, controller.findMovieById(1).orElseThrow());
+        assertTrue(controller.findMovieById(2).isEmpty());
+    }
 }
@@ -0,0 +1,228 @@
+package org.vitaliistf.controller;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.vitaliistf.model.Customer;
+import org.vitaliistf.model.movie.Movie;
+import org.vitaliistf.model.movie.MovieType;
+import org.vitaliistf.serialization.DataManager;
+import org.vitaliistf.serialization.Snapshot;
+import org.vitaliistf.view.HtmlRentalsView;
+import org.vitaliistf.view.TextRentalsView;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletionException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class StorageControllerTest {
+
+    @Test
+    void testChangesSurviveRestart(@TempDir Path directory) throws IOException {
+        String baseName = directory.resolve("test_rentals").toString();
+        Movie inception = new Movie.Builder("Inception", MovieType.NEW_RELEASE).build();
+        Movie heat = new Movie.Builder("Heat", MovieType.THRILLER).build();
+        Movie tenet = new Movie.Builder("Tenet", MovieType.DRAMA).build();
+        Store store = new Store(baseName);
+        store.open();
+        store.movies.addMovie(inception);
+        store.movies.addMovie(heat);
+        store.movies.addMovie(tenet);
+        Customer customer = new Customer("John Doe", new ArrayList<>(List.of()));
+        store.customers.addCustomer(customer);
+        store.customers.addRental(customer, heat, 3);
+        store.movies.deleteMovie(tenet);
+        store.customers.addRental(customer, tenet, 2);
+        store.storage.close();
+
+        Store restarted = new Store(baseName);
+        restarted.open();
+
+        assertEquals(List.of(inception, heat), restarted.movies.getMovieCatalog());
+        assertEquals(2, restarted.movies.getMovieId(heat));
+        Customer loaded = restarted.customers.findCustomerByName("john doe").orElseThrow();
+        assertEquals(customer.rentals(), loaded.rentals());
+        assertSame(restarted.movies.findMovieById(2).orElseThrow(), loaded.rentals().get(0).movie());
+        restarted.movies.addMovie(tenet);
+        assertEquals(4, restarted.movies.getMovieId(tenet));
+        restarted.storage.close();
+    }
+
+    @Test
+    void testCompactionCoversJournal(@TempDir Path directory) throws IOException {
+        String baseName = directory.resolve("test_rentals").toString();
+        Movie heat = new Movie.Builder("Heat", MovieType.THRILLER).build();
+        Store store = new Store(baseName);
+        store.open();
+        store.movies.addMovie(heat);
+        Customer customer = new Customer("John Doe", new ArrayList<>());
+        store.customers.addCustomer(customer);
+        store.customers.addRental(customer, heat, 1);
+        store.storage.compact().join();
+        store.customers.addRental(customer, heat, 2);
+        store.customers.addCustomer(new Customer("Jane Doe", new ArrayList<>()));
+        store.storage.close();
+
+        assertTrue(Files.exists(directory.resolve("test_rentals.snapshot")));
+        assertFalse(Files.exists(directory.resolve("test_rentals.0.journal")));
+        Store restarted = new Store(baseName);
+        restarted.open();
+
+        assertEquals(2, restarted.customers.getCustomers().size());
+        assertEquals(customer.rentals(), restarted.customers.findCustomerByName("John Doe").orElseThrow().rentals());
+        restarted.storage.close();
+    }
+
+    @Test
+    void testRentalsInSnapshotAreNotReplayedTwice(@TempDir Path directory) throws IOException {
+        String baseName = directory.resolve("test_rentals").toString();
+        Movie heat = new Movie.Builder("Heat", MovieType.THRILLER).build();
+        Store store = new Store(baseName);
+        store.open();
+        store.movies.addMovie(heat);
+        Customer customer = new Customer("John Doe", new ArrayList<>());
+        store.customers.addCustomer(customer);
+        store.storage.compact().join();
+        store.customers.addRental(customer, heat, 2);
+        store.storage.close();
+        // A snapshot written after the journal switched may already hold rentals that are in the new segment.
+        DataManager.getInstance().saveSnapshot(baseName + ".snapshot",
+                new Snapshot(1, store.movies.getCatalogId(), store.movies.getMovieCatalog(),
+                        store.customers.getCustomers()));
+
+        Store restarted = new Store(baseName);
+        restarted.open();
+
+        assertEquals(1, restarted.customers.findCustomerByName("John Doe").orElseThrow().rentals().size());
+        restarted.storage.close();
+    }
+
+    @Test
+    void testRentalsOfMoviesDeletedConcurrentlyAreReplayed(@TempDir Path directory) throws Exception {
+        String baseName = directory.resolve("test_rentals").toString();
+        Store store = new Store(baseName);
+        store.open();
+        List<Movie> movies = new ArrayList<>();
+        for (int i = 0; i < 20000; i++) {
+            Movie movie = new Movie.Builder("Movie " + i, MovieType.DRAMA).build();
+            store.movies.addMovie(movie);
+            movies.add(movie);
+        }
+        Customer customer = new Customer("John Doe", new ArrayList<>());
+        store.customers.addCustomer(customer);
+
+        Thread deleter = new Thread(() -> movies.forEach(store.movies::deleteMovie));
+        deleter.start();
+        for (Movie movie : movies) {
+            store.customers.addRental(customer, movie, 1);
+        }
+        deleter.join();
+        store.storage.close();
+
+        Store restarted = new Store(baseName);
+        restarted.open();
+        assertTrue(restarted.movies.getMovieCatalog().isEmpty());
+        assertEquals(customer.rentals(), restarted.customers.findCustomerByName("John Doe").orElseThrow().rentals());
+        restarted.storage.close();
+    }
+
+    @Test
+    void testCompactionFailureIsReported(@TempDir Path directory) throws IOException {
+        String baseName = directory.resolve("test_rentals").toString();
+        Store store = new Store(baseName);
+        store.open();
+        store.customers.addCustomer(new Customer("John Doe", new ArrayList<>()));
+        // A directory in the place of the snapshot keeps it from being saved.
+        Files.createDirectories(directory.resolve("test_rentals.snapshot").resolve("blocked"));
+
+        CompletionException failure = assertThrows(CompletionException.class, () -> store.storage.compact().join());
+
+        assertInstanceOf(UncheckedIOException.class, failure.getCause());
+        store.storage.close();
+        Store restarted = new Store(baseName);
+        Files.delete(directory.resolve("test_rentals.snapshot").resolve("blocked"));
+        Files.delete(directory.resolve("test_rentals.snapshot"));
+        restarted.open();
+        assertEquals(1, restarted.customers.getCustomers().size());
+        restarted.storage.close();
+    }
+
+    @Test
+    void testLoadedDataIsRecoveredOnlyOnceSaved(@TempDir Path directory) throws IOException {
+        String baseName = directory.resolve("test_rentals").toString();
+        String catalogFile = directory.resolve("catalog.bin").toString();
+        String customersFile = directory.resolve("customers.bin").toString();
+        Movie heat = new Movie.Builder("Heat", MovieType.THRILLER).build();
+        Movie tenet = new Movie.Builder("Tenet", MovieType.DRAMA).build();
+        Store store = new Store(baseName);
+        store.open();
+        store.movies.addMovie(heat);
+        Customer john = new Customer("John Doe", new ArrayList<>());
+        store.customers.addCustomer(john);
+        store.customers.addRental(john, heat, 2);
+        Store files = new Store(baseName);
+        files.movies.addMovie(tenet);
+        Customer jane = new Customer("Jane Doe", new ArrayList<>());
+        files.customers.addCustomer(jane);
+        files.customers.addRental(jane, tenet, 3);
+        files.movies.saveDataToFile(catalogFile);
+        files.customers.saveDataToFile(customersFile, files.movies::getMovieId, files.movies.getCatalogStamp());
+        // A directory in the place of the snapshot keeps it from being saved.
+        Path blocked = directory.resolve("test_rentals.snapshot").resolve("blocked");
+        Files.createDirectories(blocked);
+
+        assertThrows(IOException.class, () -> store.storage.loadDataFromFiles(catalogFile, customersFile));
+        store.movies.addMovie(heat);
+        store.customers.addRental(store.customers.findCustomerByName("Jane Doe").orElseThrow(), tenet, 1);
+        store.storage.close();
+        Files.delete(blocked);
+        Files.delete(blocked.getParent());
+
+        Store restarted = new Store(baseName);
+        restarted.open();
+        assertEquals(List.of(heat), restarted.movies.getMovieCatalog());
+        assertEquals(List.of(john), restarted.customers.getCustomers());
+        assertEquals(0, restarted.storage.loadDataFromFiles(catalogFile, customersFile));
+        Customer loadedJane = restarted.customers.findCustomerByName("Jane Doe").orElseThrow();
+        restarted.customers.addRental(loadedJane, tenet, 1);
+        restarted.storage.close();
+
+        Store reopened = new Store(baseName);
+        reopened.open();
+        assertEquals(List.of(tenet), reopened.movies.getMovieCatalog());
+        assertEquals(List.of(loadedJane), reopened.customers.getCustomers());
+        assertEquals(2, reopened.customers.getCustomers().get(0).rentals().size());
+        reopened.storage.close();
+    }
+
+    /**
+     * Controllers sharing one storage, as wired by the application.
+     */
+    private static class Store {
+
+        private final MovieController movies;
+        private final CustomerController customers;
+        private final StorageController storage;
+
+        Store(String baseName) {
+            DataManager dataManager = DataManager.getInstance();
+            movies = new MovieController(dataManager);
+            customers = new CustomerController(TextRentalsView.getInstance(), HtmlRentalsView.getInstance(), dataManager);
+            storage = new StorageController(baseName, movies, customers, dataManager);
+        }
+
+        void open() throws IOException {
+            storage.open();
+        }
+    }
+}
@@ -0,0 +1,153 @@
+package org.vitaliistf.model;
+
+import org.junit.jupiter.api.Test;
+import org.vitaliistf.model.movie.Movie;
+import org.vitaliistf.model.movie.MovieType;
+import org.vitaliistf.strategy.PricingRule;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class CustomerTest {
+
+    @Test
+    void testTotals() {
+        Customer customer = new Customer("John Doe", new ArrayList<>());
+        double amount = 0;
+        int points = 0;
+        for (int i = 0; i < 100; i++) {
+            MovieType type = MovieType.values()[i % MovieType.values().length];
+            Movie movie = new Movie.Builder("Movie " + i, type).actors(List.of()).build();
+            int days = i % 70;
+            customer.rentMovie(movie, days);
+            amount += type.getPriceStrategy().calculatePrice(days);
+            points += type.getPriceStrategy().calculatePoints(days);
+        }
+
+        assertEquals(amount, customer.getTotalAmount());
+        assertEquals(points, customer.getPoints());
+    }
+
+    @Test
+    void testTotalsByType() {
+        Movie drama = new Movie.Builder("Drama", MovieType.DRAMA).actors(List.of()).build();
+        Movie comedy = new Movie.Builder("Comedy", MovieType.COMEDY).actors(List.of()).build();
+        Customer customer = new Customer("John Doe", new ArrayList<>(List.of(new Rental(drama, 2))));
+
+        customer.rentMovie(comedy, 1);
+        customer.rentMovie(drama, 1);
+
+        assertEquals(9.5, customer.getAmount(MovieType.DRAMA));
+        assertEquals(3, customer.getPoints(MovieType.DRAMA));
+        assertEquals(4.0, customer.getAmount(MovieType.COMEDY));
+        assertEquals(1, customer.getPoints(MovieType.COMEDY));
+        assertEquals(0.0, customer.getAmount(MovieType.THRILLER));
+        assertEquals(13.5, customer.getTotalAmount());
+        assertEquals(4, customer.getPoints());
+    }
+
+    @Test
+    void testTotalsAfterRemove() {
+        Movie drama = new Movie.Builder("Drama", MovieType.DRAMA).actors(List.of()).build();
+        Customer customer = new Customer("John Doe", new ArrayList<>());
+
+        customer.rentMovie(drama, 2);
+        customer.rentMovie(drama, 1);
+        customer.rentals().remove(0);
+
+        assertEquals(4.0, customer.getTotalAmount());
+        assertEquals(1, customer.getPoints());
+    }
+
+    @Test
+    void testIteratorKeepsSnapshotWhileRentalsAreAdded() {
+        Movie drama = new Movie.Builder("Drama", MovieType.DRAMA).actors(List.of()).build();
+        Customer customer = new Customer("John Doe", new ArrayList<>());
+        for (int i = 0; i < 10; i++) {
+            customer.rentMovie(drama, 1);
+        }
+        customer.rentals().remove(9);
+
+        Iterator<Rental> snapshot = customer.rentals().iterator();
+        for (int i = 0; i < 10; i++) {
+            customer.rentMovie(drama, 2);
+        }
+        int seen = 0;
+        while (snapshot.hasNext()) {
+            assertEquals(1, snapshot.next().daysRented());
+            seen++;
+        }
+
+        assertEquals(9, seen);
+        assertEquals(19, customer.rentals().size());
+        assertEquals(2, customer.rentals().get(18).daysRented());
+        assertEquals(9 * MovieType.DRAMA.getPriceStrategy().calculatePriceCents(1)
+                + 10 * MovieType.DRAMA.getPriceStrategy().calculatePriceCents(2), customer.getTotalAmountCents());
+    }
+
+    @Test
+    void testTotalsSnapshotIsNotAffectedByLaterRentals() {
+        Movie drama = new Movie.Builder("Drama", MovieType.DRAMA).actors(List.of()).build();
+        Movie comedy = new Movie.Builder("Comedy", MovieType.COMEDY).actors(List.of()).build();
+        Customer customer = new Customer("John Doe", new ArrayList<>());
+        customer.rentMovie(drama, 2);
+
+        RentalTotals totals = customer.getTotals();
+        customer.rentMovie(comedy, 1);
+        customer.rentMovie(drama, 1);
+
+        assertEquals(customer.getAmountCents(MovieType.DRAMA) - MovieType.DRAMA.getPriceStrategy().calculatePriceCents(1),
+                totals.getAmountCents(MovieType.DRAMA));
+        assertEquals(0, totals.getAmountCents(MovieType.COMEDY));
+        assertEquals(0, totals.getPoints(MovieType.COMEDY));
+        assertEquals(totals.getAmountCents(MovieType.DRAMA), totals.getTotalAmountCents());
+        assertEquals(totals.getPoints(MovieType.DRAMA), totals.getPoints());
+        assertEquals(customer.getTotalAmountCents(), customer.getTotals().getTotalAmountCents());
+    }
+
+    @Test
+    void testTotalsWithoutRentals() {
+        Customer customer = new Customer("John Doe", new ArrayList<>());
+
+        assertEquals(0.0, customer.getTotalAmount());
+        assertEquals(0, customer.getPoints());
+    }
+
+    @Test
+    void testTotalsInCents() {
+        Movie thriller = new Movie.Builder("Thriller", MovieType.THRILLER).actors(List.of()).build();
+        Customer customer = new Customer("John Doe", new ArrayList<>());
+        long cents = 0;
+        for (int i = 0; i < 1000; i++) {
+            customer.rentMovie(thriller, i % 7);
+            cents += 300 + (i % 7) * 250L;
+        }
+
+        assertEquals(cents, customer.getTotalAmountCents());
+        assertEquals(cents, customer.getAmountCents(MovieType.THRILLER));
+        assertEquals(0, customer.getAmountCents(MovieType.DRAMA));
+    }
+
+    @Test
+    void testTotalsFollowPricingReload() {
+        Movie comedy = new Movie.Builder("Comedy", MovieType.COMEDY).actors(List.of()).build();
+        Customer customer = new Customer("John Doe", new ArrayList<>(List.of(new Rental(comedy, 2))));
+        assertEquals(600, customer.getTotalAmountCents());
+
+        try {
+            MovieType.setPriceStrategies(Map.of(MovieType.COMEDY, new PricingRule(100, 0, 50, 3, 0, 0, 0).compile()));
+            assertEquals(200, customer.getTotalAmountCents());
+            assertEquals(3, customer.getPoints(MovieType.COMEDY));
+
+            customer.rentMovie(comedy, 1);
+            assertEquals(350, customer.getTotalAmountCents());
+        } finally {
+            MovieType.resetPriceStrategies();
+        }
+        assertEquals(1000, customer.getTotalAmountCents());
+    }
+}
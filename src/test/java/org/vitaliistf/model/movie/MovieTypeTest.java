@@ -0,0 +1,54 @@
+package org.vitaliistf.model.movie;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.vitaliistf.strategy.PriceStrategy;
+import org.vitaliistf.strategy.PricingRule;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class MovieTypeTest {
+
+    @AfterEach
+    void resetPricing() {
+        MovieType.resetPriceStrategies();
+    }
+
+    @Test
+    void testFastPathMatchesStrategy() {
+        assertFastPathMatchesStrategies();
+    }
+
+    @Test
+    void testFastPathFollowsReplacedStrategies() {
+        MovieType.setPriceStrategies(Map.of(
+                MovieType.DRAMA, new PricingRule(199, 2, 75, 1, 2, 0, 1).compile(),
+                MovieType.THRILLER, new PriceStrategy() {
+                    @Override
+                    public double calculatePrice(int daysRented) {
+                        return daysRented * 0.25;
+                    }
+
+                    @Override
+                    public int calculatePoints(int daysRented) {
+                        return daysRented;
+                    }
+                }));
+
+        assertFastPathMatchesStrategies();
+        assertEquals(349, MovieType.DRAMA.calculatePriceCents(4));
+    }
+
+    private static void assertFastPathMatchesStrategies() {
+        for (MovieType type : MovieType.values()) {
+            PriceStrategy strategy = type.getPriceStrategy();
+            for (int days = -5; days <= 200; days++) {
+                assertEquals(strategy.calculatePrice(days), type.calculatePrice(days));
+                assertEquals(strategy.calculatePriceCents(days), type.calculatePriceCents(days));
+                assertEquals(strategy.calculatePoints(days), type.calculatePoints(days));
+            }
+        }
+    }
+}
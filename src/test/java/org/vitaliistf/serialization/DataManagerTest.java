@@ -1,19 +1,37 @@
 package org.vitaliistf.serialization;
 
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.vitaliistf.collection.PersistentSequence;
 import org.vitaliistf.model.Customer;
+import org.vitaliistf.model.Rental;
 import org.vitaliistf.model.movie.Movie;
 import org.vitaliistf.model.movie.MovieType;
 
+import java.io.IOException;
+import java.io.ObjectOutputStream;
+import java.io.StreamCorruptedException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.stream.Stream;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 public class DataManagerTest {
 
     @Test
-    void testSaveAndLoadDataToFile() {
+    void testSaveAndLoadDataToFile() throws IOException {
         DataManager dataManager = DataManager.getInstance();
 
         Movie movie = new Movie.Builder("Inception", MovieType.NEW_RELEASE)
@@ -44,4 +62,317 @@ public class DataManagerTest {
         assertTrue(movies.contains(movie));
         assertTrue(customers.contains(customer));
     }
+
+    @Test
+    void testSaveAndLoadKeepsAllFields(@TempDir Path directory) throws IOException {
+        DataManager dataManager = DataManager.getInstance();
+        List<Movie> movies = new ArrayList<>();
+        for (int i = 0; i < 5000; i++) {
+            movies.add(new Movie.Builder("Movie " + i, MovieType.values()[i % MovieType.values().length])
+                    .director("Director " + i % 10)
+                    .countryOfOrigin(i % 2 == 0 ? "Україна" : "日本")
+                    .description("x".repeat(i % 100))
+                    .actors(List.of("Actor " + i % 7, "Actor " + i % 11))
+                    .build());
+        }
+        movies.add(new Movie.Builder(null, MovieType.DRAMA).director(null).description("").build());
+        movies.add(new Movie.Builder("Long", MovieType.COMEDY).description("y".repeat(200_000)).actors(List.of()).build());
+        Customer customer = new Customer("Jane", new ArrayList<>(List.of(
+                new Rental(movies.get(1), -2), new Rental(movies.get(4000), 1_000_000))));
+        String catalogFile = directory.resolve("catalog.txt").toString();
+        String customersFile = directory.resolve("customers.txt").toString();
+
+        dataManager.saveMovieCatalogToFile(catalogFile, movies);
+        dataManager.saveCustomersToFile(customersFile, List.of(customer));
+        List<Movie> loadedMovies = new ArrayList<>(List.of(movies.get(0)));
+        List<Customer> loadedCustomers = new ArrayList<>();
+        dataManager.loadMovieCatalogFromFile(catalogFile, loadedMovies);
+        dataManager.loadCustomersFromFile(customersFile, loadedCustomers);
+
+        assertEquals(movies, loadedMovies);
+        assertEquals(List.of(customer), loadedCustomers);
+        assertEquals(customer.getTotalAmountCents(), loadedCustomers.get(0).getTotalAmountCents());
+    }
+
+    @Test
+    void testLoadsSerializedFilesOfEarlierVersions(@TempDir Path directory) throws IOException {
+        DataManager dataManager = DataManager.getInstance();
+        Movie movie = new Movie.Builder("Inception", MovieType.NEW_RELEASE)
+                .director("Christopher Nolan")
+                .actors(List.of("Leonardo DiCaprio"))
+                .build();
+        Customer customer = new Customer("John Doe", new ArrayList<>(List.of(new Rental(movie, 3))));
+        Path catalogFile = directory.resolve("catalog.txt");
+        Path customersFile = directory.resolve("customers.txt");
+        serialize(catalogFile, new ArrayList<>(List.of(movie)));
+        serialize(customersFile, new ArrayList<>(List.of(customer)));
+
+        List<Movie> movies = new ArrayList<>();
+        List<Customer> customers = new ArrayList<>();
+        dataManager.loadMovieCatalogFromFile(catalogFile.toString(), movies);
+        dataManager.loadCustomersFromFile(customersFile.toString(), customers);
+        assertEquals(List.of(movie), movies);
+        assertEquals(List.of(customer), customers);
+
+        long serializedSize = Files.size(customersFile);
+        dataManager.saveCustomersToFile(customersFile.toString(), customers);
+        customers.clear();
+        dataManager.loadCustomersFromFile(customersFile.toString(), customers);
+        assertEquals(List.of(customer), customers);
+        assertTrue(Files.size(customersFile) < serializedSize);
+    }
+
+@Test
+    void testRentalsStoredAsMovieIds(@TempDir Path directory) throws IOException {
+        DataManager dataManager = DataManager.getInstance();
+        List<Movie> movies = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            movies.add(new Movie.Builder("Movie " + i, MovieType.DRAMA)
+                    .description("Description of movie " + i + " that is long enough to matter in the file.")
+                    .actors(List.of("Actor " + i))
+                    .build());
+        }
+        List<Customer> customers = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            Customer customer = new Customer("Customer " + i, new ArrayList<>());
+            for (int r = 0; r < 5; r++) {
+                customer.rentMovie(movies.get((i * 7 + r) % movies.size()), 1 + r);
+            }
+            customers.add(customer);
+        }
+        Path embedded = directory.resolve("embedded.bin");
+        Path referenced = directory.resolve("referenced.bin");
+
+        dataManager.saveCustomersToFile(embedded.toString(), customers);
+        CatalogStamp catalog = new CatalogStamp(7, movies.size());
+        dataManager.saveCustomersToFile(referenced.toString(), customers,
+                movie -> movies.indexOf(movie) + 1, catalog);
+        List<Customer> loaded = new ArrayList<>();
+        dataManager.loadCustomersFromFile(referenced.toString(), loaded, id -> movies.get((int) id - 1), catalog);
+
+        assertEquals(customers, loaded);
+        assertSame(movies.get(0), loaded.get(0).rentals().get(0).movie());
+        assertTrue(Files.size(referenced) * 3 < Files.size(embedded));
+    }
+
+    @Test
+    void testCatalogLoadedAsMappedViews(@TempDir Path directory) throws IOException {
+        DataManager dataManager = DataManager.getInstance();
+        PersistentSequence<Movie> catalog = PersistentSequence.empty();
+        for (int i = 0; i < 10; i++) {
+            catalog = catalog.append(new Movie.Builder("Movie " + i, MovieType.values()[i % MovieType.values().length])
+                    .countryOfOrigin("Україна")
+                    .description(i == 3 ? null : "Description " + i)
+                    .actors(i == 4 ? null : List.of("Actor " + i, "Актор"))
+                    .build());
+        }
+        catalog = catalog.without(2).without(10);
+        String catalogFile = directory.resolve("catalog.bin").toString();
+
+        dataManager.saveMovieCatalogToFile(catalogFile, catalog);
+        PersistentSequence<Movie> loaded = dataManager.restoreMovieCatalogFromFile(catalogFile,
+                PersistentSequence.empty());
+
+        assertEquals(catalog.size(), loaded.size());
+        assertEquals(10, loaded.lastSequence());
+        for (PersistentSequence.SequenceIterator<Movie> iterator = catalog.iterator(); iterator.hasNext(); ) {
+            Movie movie = iterator.next();
+            Movie view = loaded.find(iterator.sequence());
+            assertInstanceOf(MappedMovie.class, view);
+            assertEquals(movie, view);
+            assertEquals(view, movie);
+            assertEquals(movie.hashCode(), view.hashCode());
+        }
+    }
+
+    @Test
+    void testRejectsMappedCatalogWithDamagedRecords(@TempDir Path directory) throws IOException {
+        DataManager dataManager = DataManager.getInstance();
+        PersistentSequence<Movie> catalog = PersistentSequence.empty();
+        for (int i = 0; i < 10; i++) {
+            catalog = catalog.append(new Movie.Builder("Movie " + i, MovieType.DRAMA)
+                    .actors(List.of("Actor " + i)).build());
+        }
+        Path catalogFile = directory.resolve("catalog.bin");
+        dataManager.saveMovieCatalogToFile(catalogFile.toString(), catalog);
+        byte[] saved = Files.readAllBytes(catalogFile);
+        int title = indexOf(saved, "Movie 5".getBytes());
+        int type = indexOf(saved, "DRAMA".getBytes());
+        int actor = indexOf(saved, "Actor 7".getBytes());
+
+        byte[] longTitle = saved.clone();
+        ByteBuffer.wrap(longTitle).putInt(title - Integer.BYTES, Integer.MAX_VALUE - 8);
+        byte[] unknownType = saved.clone();
+        unknownType[type + 4] = 'X';
+        byte[] longActor = saved.clone();
+        ByteBuffer.wrap(longActor).putInt(actor - Integer.BYTES, 1 << 20);
+        for (byte[] damaged : List.of(longTitle, unknownType, longActor)) {
+            Files.write(catalogFile, damaged);
+            assertThrows(StreamCorruptedException.class, () -> dataManager.restoreMovieCatalogFromFile(
+                    catalogFile.toString(), PersistentSequence.empty()));
+        }
+    }
+
+    @Test
+    void testMappedCatalogKeepsRecordsWithinChunks(@TempDir Path directory) throws IOException {
+        Movie[] movies = new Movie[20];
+        long[] ids = new long[movies.length];
+        for (int i = 0; i < movies.length; i++) {
+            movies[i] = new Movie.Builder("Movie " + i, MovieType.COMEDY).description("z".repeat(i * 5)).build();
+            ids[i] = i * 3L + 1;
+        }
+        Path file = directory.resolve("mapped.bin");
+
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE_NEW,
+                StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            long end = MappedCatalog.write(channel, 16, movies, ids, 100, 8);
+            assertTrue(end > 256 * 2);
+            MappedCatalog mapped = MappedCatalog.map(channel, 16);
+            assertEquals(movies.length, mapped.size());
+            assertEquals(100, mapped.lastSequence());
+            for (int i = 0; i < movies.length; i++) {
+                assertEquals(ids[i], mapped.id(i));
+                assertEquals(movies[i], mapped.movie(i));
+            }
+        }
+        Movie large = new Movie.Builder("Large").description("z".repeat(300)).build();
+        try (FileChannel channel = FileChannel.open(directory.resolve("large.bin"), StandardOpenOption.CREATE_NEW,
+                StandardOpenOption.WRITE)) {
+            assertThrows(IOException.class,
+                    () -> MappedCatalog.write(channel, 0, new Movie[]{large}, new long[]{1}, 1, 8));
+        }
+    }
+
+    @Test
+    void testStreamsAndExportsCustomersOneAtATime(@TempDir Path directory) throws IOException {
+        DataManager dataManager = DataManager.getInstance();
+        Movie movie = new Movie.Builder("Inception", MovieType.NEW_RELEASE).build();
+        List<Customer> customers = customers(movie, 100);
+        String customersFile = directory.resolve("customers.bin").toString();
+        String exportFile = directory.resolve("export.bin").toString();
+        CatalogStamp catalog = new CatalogStamp(7, 1);
+        dataManager.saveCustomersToFile(customersFile, customers, m -> 1, catalog);
+
+        long exported;
+        try (Stream<Customer> stream = dataManager.streamCustomersFromFile(customersFile, id -> movie, catalog, damage -> { })) {
+            exported = dataManager.exportCustomersToFile(exportFile,
+                    stream.filter(customer -> customer.rentals().size() % 2 == 0).iterator(), m -> 1, catalog);
+        }
+        try (Stream<Customer> stream = dataManager.streamCustomersFromFile(customersFile, id -> movie, catalog, damage -> { })) {
+            dataManager.exportCustomersToFile(customersFile, stream.limit(10).iterator(), m -> 1, catalog);
+        }
+
+        List<Customer> loaded = new ArrayList<>();
+        dataManager.loadCustomersFromFile(exportFile, loaded, id -> movie, catalog);
+        assertEquals(customers.stream().filter(customer -> customer.rentals().size() % 2 == 0).toList(), loaded);
+        assertEquals(loaded.size(), exported);
+        assertSame(movie, loaded.get(1).rentals().get(0).movie());
+        dataManager.loadCustomersFromFile(customersFile, loaded, id -> movie, catalog);
+        assertEquals(customers.subList(0, 10), loaded);
+    }
+
+    @Test
+    void testRejectsCustomersSavedAgainstAnotherCatalog(@TempDir Path directory) throws IOException {
+        DataManager dataManager = DataManager.getInstance();
+        Movie movie = new Movie.Builder("Inception", MovieType.NEW_RELEASE).build();
+        String customersFile = directory.resolve("customers.bin").toString();
+        dataManager.saveCustomersToFile(customersFile, customers(movie, 3), m -> 1, new CatalogStamp(7, 4));
+
+        for (CatalogStamp other : List.of(new CatalogStamp(8, 4), new CatalogStamp(7, 3), CatalogStamp.NONE)) {
+            assertThrows(CatalogMismatchException.class,
+                    () -> dataManager.streamCustomersFromFile(customersFile, id -> movie, other, damage -> { }).close());
+        }
+        try (Stream<Customer> stream = dataManager.streamCustomersFromFile(customersFile, id -> movie,
+                new CatalogStamp(7, 5), damage -> { })) {
+            assertEquals(3, stream.count());
+        }
+    }
+
+    @Test
+    void testSkipsDamagedCustomerRecords(@TempDir Path directory) throws IOException {
+        DataManager dataManager = DataManager.getInstance();
+        Movie movie = new Movie.Builder("Inception", MovieType.NEW_RELEASE).build();
+        List<Customer> customers = customers(movie, 100);
+        Path customersFile = directory.resolve("customers.bin");
+        dataManager.saveCustomersToFile(customersFile.toString(), customers);
+
+        byte[] bytes = Files.readAllBytes(customersFile);
+        byte[] name = "Customer 50".getBytes();
+        for (int i = 0; i < bytes.length - name.length; i++) {
+            if (Arrays.equals(bytes, i, i + name.length, name, 0, name.length)) {
+                bytes[i] ^= 1;
+            }
+        }
+        Files.write(customersFile, Arrays.copyOf(bytes, bytes.length - 3));
+
+        List<Customer> loaded = new ArrayList<>();
+        assertEquals(2, dataManager.loadCustomersFromFile(customersFile.toString(), loaded));
+        assertEquals(98, loaded.size());
+        assertFalse(loaded.contains(customers.get(50)));
+        assertFalse(loaded.contains(customers.get(99)));
+        assertEquals(customers.get(51), loaded.get(50));
+    }
+
+    @Test
+    void testResumesAfterDamagedRecordLength(@TempDir Path directory) throws IOException {
+        DataManager dataManager = DataManager.getInstance();
+        Movie movie = new Movie.Builder("Inception", MovieType.NEW_RELEASE).build();
+        List<Customer> customers = customers(movie, 100);
+        Path customersFile = directory.resolve("customers.bin");
+        dataManager.saveCustomersToFile(customersFile.toString(), customers);
+
+        // Give the record of customer 30 a length running far past the end of the file.
+        byte[] bytes = Files.readAllBytes(customersFile);
+        byte[] name = "Customer 30".getBytes();
+        int start = 0;
+        while (!Arrays.equals(bytes, start, start + name.length, name, 0, name.length)) {
+            start++;
+        }
+        ByteBuffer record = ByteBuffer.wrap(bytes);
+        int marker = start;
+        while (record.getInt(marker) != CustomerRecordWriter.RECORD_MARKER) {
+            marker--;
+        }
+        record.putInt(marker + Integer.BYTES, Integer.MAX_VALUE / 2);
+        Files.write(customersFile, bytes);
+
+        List<IOException> damage = new ArrayList<>();
+        List<Customer> loaded;
+        try (Stream<Customer> stream = dataManager.streamCustomersFromFile(customersFile.toString(), id -> null,
+                CatalogStamp.NONE, damage::add)) {
+            loaded = stream.toList();
+        }
+        assertEquals(1, damage.size());
+        assertInstanceOf(StreamCorruptedException.class, damage.get(0));
+        assertEquals(99, loaded.size());
+        assertFalse(loaded.contains(customers.get(30)));
+        assertEquals(customers.get(99), loaded.get(98));
+    }
+
+    private static int indexOf(byte[] bytes, byte[] part) {
+        for (int i = 0; i <= bytes.length - part.length; i++) {
+            if (Arrays.equals(bytes, i, i + part.length, part, 0, part.length)) {
+                return i;
+            }
+        }
+        throw new AssertionError("Bytes not found");
+    }
+
+    private static List<Customer> customers(Movie movie, int count) {
+        List<Customer> customers = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            Customer customer = new Customer("Customer " + i, new ArrayList<>());
+            for (int r = 0; r < i % 5; r++) {
+                customer.rentMovie(movie, r + 1);
+            }
+            customers.add(customer);
+        }
+        return customers;
+    }
+
+    private static void serialize(Path file, Object value) throws IOException {
+        try (ObjectOutputStream objectOutputStream = new ObjectOutputStream(Files.newOutputStream(file))) {
+            objectOutputStream.writeObject(value);
+        }
+    }
 }
@@ -0,0 +1,155 @@
+package org.vitaliistf.serialization;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.vitaliistf.model.Customer;
+import org.vitaliistf.model.Rental;
+import org.vitaliistf.model.movie.Movie;
+import org.vitaliistf.model.movie.MovieType;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class JournalTest {
+
+    @Test
+    void testReplayChanges(@TempDir Path directory) throws IOException {
+        String baseName = directory.resolve("test_data").toString();
+        Movie inception = new Movie.Builder("Inception", MovieType.NEW_RELEASE).director("Christopher Nolan").build();
+        Movie heat = new Movie.Builder("Heat", MovieType.THRILLER).actors(List.of("Al Pacino")).build();
+        Map<Movie, Long> ids = Map.of(inception, 1L);
+
+        try (Journal journal = Journal.open(baseName, 3, movie -> ids.getOrDefault(movie, 0L))) {
+            journal.addMovie(1, inception);
+            journal.addCustomer(new Customer("John Doe", List.of(new Rental(inception, 2))));
+            journal.addRental("John Doe", 1, heat, 4);
+            journal.sync(journal.deleteMovie(1));
+        }
+        RecordingHandler handler = new RecordingHandler();
+
+        assertEquals(4, Journal.replay(baseName, 0, handler));
+        assertEquals(List.of("add 1 Inception", "customer John Doe 1", "rental John Doe 1 Heat 4", "delete 1"),
+                handler.changes);
+        assertSame(handler.movies.get(1L), handler.customers.get(0).rentals().get(0).movie());
+        assertEquals(4, Journal.replay(baseName, 4, new RecordingHandler()));
+    }
+
+    @Test
+    void testTornRecordEndsReplay(@TempDir Path directory) throws IOException {
+        String baseName = directory.resolve("test_data").toString();
+        Movie movie = new Movie.Builder("Heat", MovieType.THRILLER).build();
+        try (Journal journal = Journal.open(baseName, 0, m -> 0)) {
+            journal.addMovie(1, movie);
+            journal.sync(journal.addMovie(2, movie));
+        }
+        Path segment = directory.resolve("test_data.0.journal");
+        try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.WRITE)) {
+            channel.truncate(Files.size(segment) - 3);
+        }
+        RecordingHandler handler = new RecordingHandler();
+
+        Journal.replay(baseName, 0, handler);
+
+        assertEquals(List.of("add 1 Heat"), handler.changes);
+    }
+
+    @Test
+    void testRotateAndDeleteSegments(@TempDir Path directory) throws IOException {
+        String baseName = directory.resolve("test_data").toString();
+        Movie movie = new Movie.Builder("Heat", MovieType.THRILLER).build();
+        try (Journal journal = Journal.open(baseName, 0, m -> 0)) {
+            journal.addMovie(1, movie);
+            assertEquals(1, journal.rotate());
+            journal.sync(journal.addMovie(2, movie));
+            assertThrows(IOException.class, () -> Journal.open(baseName, 1, m -> 0));
+        }
+        Journal.deleteSegmentsBefore(baseName, 1);
+        RecordingHandler handler = new RecordingHandler();
+
+        assertEquals(2, Journal.replay(baseName, 0, handler));
+        assertEquals(List.of("add 2 Heat"), handler.changes);
+    }
+
+    @Test
+    void testConcurrentChangesAreAllDurable(@TempDir Path directory) throws Exception {
+        String baseName = directory.resolve("test_data").toString();
+        Movie movie = new Movie.Builder("Heat", MovieType.THRILLER).build();
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try (Journal journal = Journal.open(baseName, 0, m -> 1)) {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int thread = 0; thread < 8; thread++) {
+                String name = "Customer " + thread;
+                futures.add(executor.submit(() -> {
+                    for (int i = 0; i < 200; i++) {
+                        journal.sync(journal.addRental(name, i, movie, i));
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+        RecordingHandler handler = new RecordingHandler();
+        handler.movies.put(1L, movie);
+
+        Journal.replay(baseName, 0, handler);
+
+        assertEquals(1600, handler.changes.size());
+        assertTrue(handler.changes.contains("rental Customer 7 199 Heat 199"));
+    }
+
+    /**
+     * Handler that records the replayed changes as text.
+     */
+    private static class RecordingHandler implements JournalHandler {
+
+        private final List<String> changes = new ArrayList<>();
+        private final Map<Long, Movie> movies = new HashMap<>();
+        private final List<Customer> customers = new ArrayList<>();
+
+        @Override
+        public Movie findMovie(long id) {
+            return movies.get(id);
+        }
+
+        @Override
+        public void addMovie(long id, Movie movie) {
+            movies.put(id, movie);
+            changes.add("add " + id + " " + movie.getTitle());
+        }
+
+        @Override
+        public void deleteMovie(long id) {
+            changes.add("delete " + id);
+        }
+
+        @Override
+        public void addCustomer(Customer customer) {
+            customers.add(customer);
+            changes.add("customer " + customer.name() + " " + customer.rentals().size());
+        }
+
+        @Override
+        public void addRental(String customerName, int index, Movie movie, int days) {
+            changes.add("rental " + customerName + " " + index + " " + movie.getTitle() + " " + days);
+        }
+    }
+}
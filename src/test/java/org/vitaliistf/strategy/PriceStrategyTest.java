@@ -0,0 +1,59 @@
+package org.vitaliistf.strategy;
+
+import org.junit.jupiter.api.Test;
+import org.vitaliistf.model.movie.MovieType;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class PriceStrategyTest {
+
+    private static final int[] DAYS = IntStream.rangeClosed(-3, 100).toArray();
+
+    private static List<PriceStrategy> strategies() {
+        List<PriceStrategy> strategies = new ArrayList<>(List.of(
+                new RegularPriceStrategy(),
+                new NewReleasePriceStrategy(),
+                new ChildrensPriceStrategy(),
+                new DramaPriceStrategy(),
+                new ComedyPriceStrategy(),
+                new ThrillerPriceStrategy()
+        ));
+        for (MovieType type : MovieType.values()) {
+            strategies.add(type.getPriceStrategy());
+        }
+        return strategies;
+    }
+
+    @Test
+    void testBatchMatchesSingleRental() {
+        int[] days = DAYS;
+        for (PriceStrategy strategy : strategies()) {
+            double[] prices = new double[days.length];
+            int[] points = new int[days.length];
+            strategy.calculateAll(days, prices, points);
+            for (int i = 0; i < days.length; i++) {
+                assertEquals(strategy.calculatePrice(days[i]), prices[i]);
+                assertEquals(strategy.calculatePoints(days[i]), points[i]);
+            }
+        }
+    }
+
+    @Test
+    void testCentsMatchPrice() {
+        for (PriceStrategy strategy : strategies()) {
+            long[] prices = new long[DAYS.length];
+            int[] points = new int[DAYS.length];
+            strategy.calculateAllCents(DAYS, prices, points);
+            for (int i = 0; i < DAYS.length; i++) {
+                long cents = Math.round(strategy.calculatePrice(DAYS[i]) * 100);
+                assertEquals(cents, strategy.calculatePriceCents(DAYS[i]));
+                assertEquals(cents, prices[i]);
+                assertEquals(strategy.calculatePoints(DAYS[i]), points[i]);
+            }
+        }
+    }
+}
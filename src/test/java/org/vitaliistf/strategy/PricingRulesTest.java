@@ -0,0 +1,84 @@
+package org.vitaliistf.strategy;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.vitaliistf.model.movie.MovieType;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.Properties;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class PricingRulesTest {
+
+    @AfterEach
+    void resetPricing() {
+        MovieType.resetPriceStrategies();
+    }
+
+    @Test
+    void testShippedRulesMatchBuiltInStrategies() throws IOException {
+        Map<MovieType, PricingRule> rules = PricingRules.load("pricing.properties");
+
+        assertEquals(MovieType.values().length, rules.size());
+        for (MovieType type : MovieType.values()) {
+            PriceStrategy compiled = rules.get(type).compile();
+            for (int days = 0; days <= 100; days++) {
+                assertEquals(type.getPriceStrategy().calculatePrice(days), compiled.calculatePrice(days));
+                assertEquals(type.getPriceStrategy().calculatePriceCents(days), compiled.calculatePriceCents(days));
+                assertEquals(type.getPriceStrategy().calculatePoints(days), compiled.calculatePoints(days));
+            }
+        }
+    }
+
+    @Test
+    void testLoadRule(@TempDir Path directory) throws IOException {
+        Path file = directory.resolve("pricing.properties");
+        Files.writeString(file, "DRAMA.base=1.99\nDRAMA.includedDays=1\nDRAMA.dayRate=0.75\nDRAMA.points=2\n");
+
+        Map<MovieType, PricingRule> rules = PricingRules.load(file.toString());
+
+        assertEquals(Map.of(MovieType.DRAMA, new PricingRule(199, 1, 75, 2, 0, Integer.MIN_VALUE, Integer.MAX_VALUE)),
+                rules);
+        assertEquals(349, rules.get(MovieType.DRAMA).compile().calculatePriceCents(3));
+    }
+
+    @Test
+    void testParseRejectsInvalidRules() {
+        assertThrows(IllegalArgumentException.class, () -> PricingRules.parse(properties("DRAMA.rate", "1")));
+        assertThrows(IllegalArgumentException.class, () -> PricingRules.parse(properties("HORROR.base", "1")));
+        assertThrows(IllegalArgumentException.class, () -> PricingRules.parse(properties("DRAMA.base", "1")));
+        assertThrows(IllegalArgumentException.class, () -> PricingRules.parse(
+                properties("DRAMA.base", "1.005", "DRAMA.dayRate", "1")));
+        assertThrows(IllegalArgumentException.class, () -> PricingRules.parse(
+                properties("DRAMA.base", "-1", "DRAMA.dayRate", "1")));
+    }
+
+    @Test
+    void testSetPriceStrategiesReplacesOnlyGivenTypes() {
+        PriceStrategy comedy = MovieType.COMEDY.getPriceStrategy();
+        long version = MovieType.pricingVersion();
+        PriceStrategy drama = new PricingRule(100, 0, 100, 1, 0, 0, 0).compile();
+
+        MovieType.setPriceStrategies(Map.of(MovieType.DRAMA, drama));
+
+        assertSame(drama, MovieType.DRAMA.getPriceStrategy());
+        assertSame(comedy, MovieType.COMEDY.getPriceStrategy());
+        assertNotEquals(version, MovieType.pricingVersion());
+    }
+
+    private static Properties properties(String... keysAndValues) {
+        Properties properties = new Properties();
+        for (int i = 0; i < keysAndValues.length; i += 2) {
+            properties.setProperty(keysAndValues[i], keysAndValues[i + 1]);
+        }
+        return properties;
+    }
+}
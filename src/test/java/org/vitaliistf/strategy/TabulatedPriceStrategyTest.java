@@ -0,0 +1,30 @@
+package org.vitaliistf.strategy;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class TabulatedPriceStrategyTest {
+
+    private static final List<PriceStrategy> STRATEGIES = List.of(
+            new RegularPriceStrategy(),
+            new NewReleasePriceStrategy(),
+            new ChildrensPriceStrategy(),
+            new DramaPriceStrategy(),
+            new ComedyPriceStrategy(),
+            new ThrillerPriceStrategy()
+    );
+
+    @Test
+    void testSameResultsAsStrategy() {
+        for (PriceStrategy strategy : STRATEGIES) {
+            TabulatedPriceStrategy tabulated = new TabulatedPriceStrategy(strategy, 10);
+            for (int days = -2; days <= 20; days++) {
+                assertEquals(strategy.calculatePrice(days), tabulated.calculatePrice(days));
+                assertEquals(strategy.calculatePoints(days), tabulated.calculatePoints(days));
+            }
+        }
+    }
+}
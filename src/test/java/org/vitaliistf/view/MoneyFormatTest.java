@@ -0,0 +1,43 @@
+package org.vitaliistf.view;
+
+import org.junit.jupiter.api.Test;
+import org.vitaliistf.model.Customer;
+import org.vitaliistf.model.movie.Movie;
+import org.vitaliistf.model.movie.MovieType;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class MoneyFormatTest {
+
+    @Test
+    void testFormat() {
+        assertEquals("0.00", MoneyFormat.format(0));
+        assertEquals("0.05", MoneyFormat.format(5));
+        assertEquals("12.50", MoneyFormat.format(1250));
+        assertEquals("-3.07", MoneyFormat.format(-307));
+        assertEquals("92233720368547758.07", MoneyFormat.format(Long.MAX_VALUE));
+        assertEquals("-92233720368547758.08", MoneyFormat.format(Long.MIN_VALUE));
+    }
+
+    @Test
+    void testAppendToBuilder() {
+        StringBuilder sb = new StringBuilder("Total: ");
+        MoneyFormat.appendCents(sb, 450).append('!');
+        assertEquals("Total: 4.50!", sb.toString());
+    }
+
+    @Test
+    void testViewsFormatCents() {
+        Movie movie = new Movie.Builder("Movie", MovieType.DRAMA).actors(List.of()).build();
+        Customer customer = new Customer("John Doe", new ArrayList<>());
+        customer.rentMovie(movie, 1);
+
+        assertEquals("\tMovie\t4.00\n", TextRentalsView.getInstance().generateRecords(customer));
+        assertTrue(TextRentalsView.getInstance().generateFooter(customer).startsWith("Amount owed is 4.00.\n"));
+        assertTrue(HtmlRentalsView.getInstance().generateFooter(customer).contains("<strong>4.00</strong>"));
+    }
+}